@@ -0,0 +1,110 @@
+package ru.practicum.benchmark;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.repository.DatabaseInfo;
+import ru.practicum.repository.HitDictionary;
+import ru.practicum.repository.HitJdbcRepository;
+import ru.practicum.repository.IpCodec;
+import ru.practicum.repository.StatsJdbcRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class BenchmarkDatabase implements AutoCloseable {
+    static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    static final int DAYS = 30;
+    static final int URIS = 1000;
+    static final int IPS = 50_000;
+    static final String APP = "ewm-main-service";
+
+    private static final int INSERT_CHUNK = 10_000;
+
+    private final JdbcConnectionPool pool;
+    private final JdbcTemplate jdbcTemplate;
+    private final HitDictionary hitDictionary;
+    private final HitJdbcRepository hitJdbcRepository;
+    private final StatsJdbcRepository statsJdbcRepository;
+
+    BenchmarkDatabase() {
+        pool = JdbcConnectionPool.create("jdbc:h2:mem:bench" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "bench", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema-h2.sql"), new ClassPathResource("schema.sql"))
+                .execute(pool);
+        jdbcTemplate = new JdbcTemplate(pool);
+        hitDictionary = new HitDictionary(jdbcTemplate, new DatabaseInfo(jdbcTemplate));
+        hitJdbcRepository = new HitJdbcRepository(jdbcTemplate, hitDictionary);
+        statsJdbcRepository = new StatsJdbcRepository(new NamedParameterJdbcTemplate(jdbcTemplate));
+    }
+
+    HitJdbcRepository getHitJdbcRepository() {
+        return hitJdbcRepository;
+    }
+
+    StatsJdbcRepository getStatsJdbcRepository() {
+        return statsJdbcRepository;
+    }
+
+    void seed(int rows, long randomSeed) {
+        Random random = new Random(randomSeed);
+        int appId = hitDictionary.appIds(List.of(APP)).get(APP);
+        List<String> uris = new ArrayList<>(URIS);
+        for (int i = 0; i < URIS; i++) {
+            uris.add(uri(i));
+        }
+        Map<String, Integer> ids = hitDictionary.uriIds(uris);
+        int[] uriIds = new int[URIS];
+        for (int i = 0; i < URIS; i++) {
+            uriIds[i] = ids.get(uri(i));
+        }
+        List<Object[]> chunk = new ArrayList<>(INSERT_CHUNK);
+        for (int i = 0; i < rows; i++) {
+            chunk.add(new Object[]{
+                    appId,
+                    uriIds[skewedIndex(random, URIS)],
+                    IpCodec.encode(ip(random.nextInt(IPS))),
+                    Timestamp.valueOf(START.plusSeconds(random.nextInt(DAYS * 24 * 3600)))
+            });
+            if (chunk.size() == INSERT_CHUNK || i == rows - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO hits (app_id, uri_id, ip, timestamp) VALUES (?, ?, ?, ?)", chunk);
+                chunk.clear();
+            }
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    static EndpointHit randomHit(Random random) {
+        EndpointHit hit = new EndpointHit();
+        hit.setApp(APP);
+        hit.setUri(uri(skewedIndex(random, URIS)));
+        hit.setIp(ip(random.nextInt(IPS)));
+        hit.setTimestamp(START.plusSeconds(random.nextInt(DAYS * 24 * 3600)));
+        return hit;
+    }
+
+    static String uri(int index) {
+        return "/events/" + index;
+    }
+
+    static String ip(int index) {
+        return "10." + (index >> 16 & 0xFF) + "." + (index >> 8 & 0xFF) + "." + (index & 0xFF);
+    }
+
+    private static int skewedIndex(Random random, int bound) {
+        double value = random.nextDouble();
+        return (int) (value * value * bound);
+    }
+
+    @Override
+    public void close() {
+        jdbcTemplate.execute("SHUTDOWN");
+        pool.dispose();
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.EndpointHitMapper;
+import ru.practicum.repository.IpCodec;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HitMappingBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private EndpointHit hit;
+    private EndpointHitDto hitDto;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        hit = BenchmarkDatabase.randomHit(new Random(42));
+        hitDto = EndpointHitMapper.toDto(hit);
+        json = objectMapper.writeValueAsBytes(hitDto);
+    }
+
+    @Benchmark
+    public EndpointHit dtoToHit() {
+        return EndpointHitMapper.toHit(hitDto);
+    }
+
+    @Benchmark
+    public EndpointHitDto hitToDto() {
+        return EndpointHitMapper.toDto(hit);
+    }
+
+    @Benchmark
+    public EndpointHit parseJson() throws IOException {
+        return EndpointHitMapper.toHit(objectMapper.readValue(json, EndpointHitDto.class));
+    }
+
+    @Benchmark
+    public byte[] encodeIp() {
+        return IpCodec.encode(hit.getIp());
+    }
+}
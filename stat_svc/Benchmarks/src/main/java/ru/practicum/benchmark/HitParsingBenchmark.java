@@ -0,0 +1,117 @@
+package ru.practicum.benchmark;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.EndpointHitMapper;
+import ru.practicum.repository.HitJdbcRepository;
+import ru.practicum.service.HitJsonParser;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HitParsingBenchmark {
+    private static final int BATCH_SIZE = 1000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Validator validator;
+    private BenchmarkDatabase database;
+    private HitJdbcRepository hitJdbcRepository;
+    private byte[] ndjson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        database = new BenchmarkDatabase();
+        hitJdbcRepository = database.getHitJdbcRepository();
+        Random random = new Random(42);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            out.write(objectMapper.writeValueAsBytes(EndpointHitMapper.toDto(BenchmarkDatabase.randomHit(random))));
+            out.write('\n');
+        }
+        ndjson = out.toByteArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<EndpointHit> databindParse() throws IOException {
+        return parseDatabind();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<EndpointHit> streamingParse() throws IOException {
+        return parseStreaming();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void databindIngest() throws IOException {
+        hitJdbcRepository.saveAll(parseDatabind());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void streamingIngest() throws IOException {
+        hitJdbcRepository.saveAll(parseStreaming());
+    }
+
+    private List<EndpointHit> parseDatabind() throws IOException {
+        List<EndpointHit> hits = new ArrayList<>(BATCH_SIZE);
+        try (MappingIterator<EndpointHitDto> iterator = objectMapper.readerFor(EndpointHitDto.class).readValues(ndjson)) {
+            while (iterator.hasNextValue()) {
+                EndpointHitDto hitDto = iterator.nextValue();
+                if (validator.validate(hitDto).isEmpty()) {
+                    hits.add(EndpointHitMapper.toHit(hitDto));
+                }
+            }
+        }
+        return hits;
+    }
+
+    private List<EndpointHit> parseStreaming() throws IOException {
+        List<EndpointHit> hits = new ArrayList<>(BATCH_SIZE);
+        try (JsonParser parser = objectMapper.getFactory().createParser(ndjson)) {
+            HitJsonParser hitParser = new HitJsonParser(parser);
+            while (hitParser.next()) {
+                if (hitParser.getHit() != null) {
+                    hits.add(hitParser.getHit());
+                }
+            }
+        }
+        return hits;
+    }
+}
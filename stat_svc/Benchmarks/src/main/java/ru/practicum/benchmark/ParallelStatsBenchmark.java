@@ -0,0 +1,71 @@
+package ru.practicum.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.repository.StatsJdbcRepository;
+import ru.practicum.service.ParallelStatsExecutor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ParallelStatsBenchmark {
+    private static final int URIS = 200;
+
+    @Param({"1", "2", "4", "8"})
+    private int poolSize;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private BenchmarkDatabase database;
+    private StatsJdbcRepository statsJdbcRepository;
+    private ParallelStatsExecutor parallelStatsExecutor;
+    private String[] uris;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase();
+        database.seed(rows, 42);
+        statsJdbcRepository = database.getStatsJdbcRepository();
+        parallelStatsExecutor = new ParallelStatsExecutor(poolSize, 1, 31, 600_000);
+        uris = new String[URIS];
+        for (int i = 0; i < URIS; i++) {
+            uris[i] = BenchmarkDatabase.uri(i);
+        }
+        start = BenchmarkDatabase.START;
+        end = start.plusDays(BenchmarkDatabase.DAYS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parallelStatsExecutor.shutdown();
+        database.close();
+    }
+
+    @Benchmark
+    public List<EndpointStats> uniqueSplitByUris() {
+        return parallelStatsExecutor.splitByUris(uris,
+                chunk -> statsJdbcRepository.getStatsUniqueWithUris(start, end, chunk));
+    }
+}
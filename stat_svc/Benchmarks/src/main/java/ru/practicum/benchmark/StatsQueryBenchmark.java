@@ -0,0 +1,76 @@
+package ru.practicum.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.repository.StatsJdbcRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class StatsQueryBenchmark {
+    private static final String[] URIS = {
+            BenchmarkDatabase.uri(0), BenchmarkDatabase.uri(1), BenchmarkDatabase.uri(10),
+            BenchmarkDatabase.uri(100), BenchmarkDatabase.uri(500)
+    };
+
+    @Param({"10000", "1000000", "10000000"})
+    private int rows;
+
+    private BenchmarkDatabase database;
+    private StatsJdbcRepository statsJdbcRepository;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase();
+        database.seed(rows, 42);
+        statsJdbcRepository = database.getStatsJdbcRepository();
+        start = BenchmarkDatabase.START.plusDays(7);
+        end = start.plusDays(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<EndpointStats> notUnique() {
+        return statsJdbcRepository.getStatsNotUnique(start, end);
+    }
+
+    @Benchmark
+    public List<EndpointStats> unique() {
+        return statsJdbcRepository.getStatsUnique(start, end);
+    }
+
+    @Benchmark
+    public List<EndpointStats> notUniqueWithUris() {
+        return statsJdbcRepository.getStatsNotUniqueWithUris(start, end, URIS);
+    }
+
+    @Benchmark
+    public List<EndpointStats> uniqueWithUris() {
+        return statsJdbcRepository.getStatsUniqueWithUris(start, end, URIS);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class HitBatchResult {
+    private long accepted;
+    private long rejected;
+    private List<String> errors;
+}
@@ -10,5 +10,7 @@ public class RequestParamDto {
     private final String end;
     private final String[] uris;
     private final boolean unique;
+    private final boolean approx;
+    private final boolean groupByPrefix;
 
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package ru.practicum.cluster;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.dto.HitBatchResult;
+import ru.practicum.dto.RequestParamDto;
+import ru.practicum.exceptions.ServiceUnavailableException;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@Component
+@ConditionalOnProperty(name = "stats.cluster.enabled", havingValue = "true")
+public class ClusterClient {
+    public static final String LOCAL_HEADER = "X-Stats-Local";
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final ParameterizedTypeReference<List<EndpointStats>> STATS_TYPE =
+            new ParameterizedTypeReference<List<EndpointStats>>() {
+            };
+
+    private final RestTemplate rest;
+
+    @Autowired
+    public ClusterClient(RestTemplateBuilder restTemplateBuilder,
+                         @Value("${stats.cluster.connect-timeout-ms:1000}") long connectTimeoutMs,
+                         @Value("${stats.cluster.read-timeout-ms:30000}") long readTimeoutMs) {
+        this.rest = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .setReadTimeout(Duration.ofMillis(readTimeoutMs))
+                .build();
+    }
+
+    public void postHit(String node, EndpointHitDto hitDto) {
+        call(node, () -> rest.exchange(node + "/hit", HttpMethod.POST,
+                new HttpEntity<>(hitDto, headers(MediaType.APPLICATION_JSON)), String.class));
+    }
+
+    public HitBatchResult postHitBatch(String node, byte[] ndjson) {
+        return call(node, () -> rest.exchange(node + "/hit/batch", HttpMethod.POST,
+                new HttpEntity<>(ndjson, headers(NDJSON)), HitBatchResult.class).getBody());
+    }
+
+    public List<EndpointStats> getStats(String node, RequestParamDto request) {
+        Map<String, Object> variables = new HashMap<>();
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(node)
+                .path("/stats")
+                .queryParam("start", "{start}")
+                .queryParam("end", "{end}")
+                .queryParam("unique", request.isUnique())
+                .queryParam("approx", request.isApprox())
+                .queryParam("groupByPrefix", request.isGroupByPrefix());
+        variables.put("start", request.getStart());
+        variables.put("end", request.getEnd());
+        addUris(builder, variables, request.getUris());
+        return getStats(node, builder.encode().buildAndExpand(variables).toUri());
+    }
+
+    public List<EndpointStats> getTopStats(String node, int n, String window) {
+        URI uri = UriComponentsBuilder.fromHttpUrl(node)
+                .path("/stats/top")
+                .queryParam("n", n)
+                .queryParam("window", "{window}")
+                .encode()
+                .buildAndExpand(Map.of("window", window))
+                .toUri();
+        return getStats(node, uri);
+    }
+
+    public List<EndpointStats> getRealtimeStats(String node, String[] uris, int window) {
+        Map<String, Object> variables = new HashMap<>();
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(node)
+                .path("/stats/realtime")
+                .queryParam("window", window);
+        addUris(builder, variables, uris);
+        return getStats(node, builder.encode().buildAndExpand(variables).toUri());
+    }
+
+    private List<EndpointStats> getStats(String node, URI uri) {
+        return call(node, () -> rest.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers(null)), STATS_TYPE).getBody());
+    }
+
+    private static void addUris(UriComponentsBuilder builder, Map<String, Object> variables, String[] uris) {
+        if (uris == null) {
+            return;
+        }
+        for (int i = 0; i < uris.length; i++) {
+            builder.queryParam("uris", "{uri" + i + "}");
+            variables.put("uri" + i, uris[i]);
+        }
+    }
+
+    private static <T> T call(String node, Supplier<T> request) {
+        try {
+            return request.get();
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                throw new ServiceUnavailableException("Ошибка: узел кластера " + node + " перегружен.", e);
+            }
+            throw new RuntimeException(e.getResponseBodyAsString());
+        } catch (RestClientException e) {
+            throw new ServiceUnavailableException("Ошибка: узел кластера " + node + " недоступен.", e);
+        }
+    }
+
+    private static HttpHeaders headers(MediaType contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        if (contentType != null) {
+            headers.setContentType(contentType);
+        }
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        headers.set(LOCAL_HEADER, "true");
+        return headers;
+    }
+}
@@ -0,0 +1,313 @@
+package ru.practicum.cluster;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.EndpointHitMapper;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.dto.HitBatchResult;
+import ru.practicum.dto.RequestParamDto;
+import ru.practicum.exceptions.ServiceUnavailableException;
+import ru.practicum.service.HitBatchService;
+import ru.practicum.service.HitJsonParser;
+import ru.practicum.service.RealtimeCounters;
+import ru.practicum.service.StatsAccumulator;
+import ru.practicum.service.StatsService;
+import ru.practicum.service.TopHitsService;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats.cluster.enabled", havingValue = "true")
+public class ClusterRouter {
+    private final ClusterTopology topology;
+    private final ClusterClient clusterClient;
+    private final StatsService statsService;
+    private final HitBatchService hitBatchService;
+    private final TopHitsService topHitsService;
+    private final RealtimeCounters realtimeCounters;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final long timeoutNanos;
+    private final ExecutorService executor;
+    private final Counter forwardedCounter;
+    private final Counter localCounter;
+
+    @Autowired
+    public ClusterRouter(ClusterTopology topology,
+                         ClusterClient clusterClient,
+                         StatsService statsService,
+                         HitBatchService hitBatchService,
+                         TopHitsService topHitsService,
+                         RealtimeCounters realtimeCounters,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${stats.ingest.batch.chunk-size:5000}") int chunkSize,
+                         @Value("${stats.cluster.fanout-threads:8}") int fanoutThreads,
+                         @Value("${stats.cluster.timeout-ms:30000}") long timeoutMs) {
+        this.topology = topology;
+        this.clusterClient = clusterClient;
+        this.statsService = statsService;
+        this.hitBatchService = hitBatchService;
+        this.topHitsService = topHitsService;
+        this.realtimeCounters = realtimeCounters;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(fanoutThreads, runnable -> {
+            Thread thread = new Thread(runnable, "stats-cluster-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.forwardedCounter = Counter.builder("stats.cluster.hits")
+                .tag("route", "forwarded")
+                .register(meterRegistry);
+        this.localCounter = Counter.builder("stats.cluster.hits")
+                .tag("route", "local")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void saveHit(EndpointHitDto hitDto) {
+        int owner = topology.ownerOf(hitDto.getApp(), hitDto.getUri());
+        if (topology.isSelf(owner)) {
+            localCounter.increment();
+            statsService.saveHit(hitDto);
+        } else {
+            forwardedCounter.increment();
+            clusterClient.postHit(topology.url(owner), hitDto);
+        }
+    }
+
+    public void saveHit(EndpointHit hit) {
+        int owner = topology.ownerOf(hit.getApp(), hit.getUri());
+        if (topology.isSelf(owner)) {
+            localCounter.increment();
+            statsService.saveHit(hit);
+        } else {
+            forwardedCounter.increment();
+            clusterClient.postHit(topology.url(owner), EndpointHitMapper.toDto(hit));
+        }
+    }
+
+    public void saveHits(List<EndpointHit> hits) {
+        List<List<EndpointHit>> pending = pendingShards();
+        for (EndpointHit hit : hits) {
+            pending.get(topology.ownerOf(hit.getApp(), hit.getUri())).add(hit);
+        }
+        HitBatchResult total = new HitBatchResult(0, 0, new ArrayList<>());
+        for (int owner = 0; owner < pending.size(); owner++) {
+            flush(owner, pending.get(owner), total);
+        }
+    }
+
+    public HitBatchResult saveHitBatch(InputStream body) {
+        HitBatchResult total = new HitBatchResult(0, 0, new ArrayList<>());
+        List<List<EndpointHit>> pending = pendingShards();
+        long position = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            HitJsonParser hitParser = new HitJsonParser(parser);
+            while (hitParser.next()) {
+                position++;
+                EndpointHit hit = hitParser.getHit();
+                if (hit == null) {
+                    total.setRejected(total.getRejected() + 1);
+                    addError(total, "Запрос №" + position + ": " + hitParser.getError());
+                    continue;
+                }
+                int owner = topology.ownerOf(hit.getApp(), hit.getUri());
+                List<EndpointHit> shard = pending.get(owner);
+                shard.add(hit);
+                if (shard.size() >= chunkSize) {
+                    flush(owner, shard, total);
+                }
+            }
+        } catch (IOException e) {
+            total.setRejected(total.getRejected() + 1);
+            addError(total, "Запрос №" + position + ": некорректный JSON, обработка прервана. " + e.getMessage());
+        }
+        for (int owner = 0; owner < pending.size(); owner++) {
+            flush(owner, pending.get(owner), total);
+        }
+        log.info("Пакетное сохранение запросов в кластере: принято {}, отклонено {}", total.getAccepted(), total.getRejected());
+        return total;
+    }
+
+    public List<EndpointStats> getStats(RequestParamDto request) {
+        Map<Integer, String[]> shards = shardsOf(request.getUris());
+        if (shards.isEmpty()) {
+            return statsService.getStats(request);
+        }
+        return fanOut(shards,
+                uris -> statsService.getStats(part(request, uris)),
+                (url, uris) -> clusterClient.getStats(url, part(request, uris))).toList();
+    }
+
+    public List<EndpointStats> getTopStats(int n, String window) {
+        Map<Integer, String[]> shards = shardsOf(null);
+        List<EndpointStats> merged = fanOut(shards,
+                uris -> topHitsService.getTop(n, window),
+                (url, uris) -> clusterClient.getTopStats(url, n, window)).toList();
+        return merged.size() > n ? new ArrayList<>(merged.subList(0, n)) : merged;
+    }
+
+    public List<EndpointStats> getRealtimeStats(String[] uris, int window) {
+        Map<Integer, String[]> shards = shardsOf(uris);
+        if (shards.isEmpty()) {
+            return realtimeCounters.getStats(uris, window);
+        }
+        return fanOut(shards,
+                part -> realtimeCounters.getStats(part, window),
+                (url, part) -> clusterClient.getRealtimeStats(url, part, window)).toList();
+    }
+
+    private StatsAccumulator fanOut(Map<Integer, String[]> shards,
+                                    Function<String[], List<EndpointStats>> local,
+                                    BiFunction<String, String[], List<EndpointStats>> remote) {
+        Map<Integer, Future<List<EndpointStats>>> futures = new LinkedHashMap<>();
+        String[] localUris = null;
+        boolean hasLocal = false;
+        for (Map.Entry<Integer, String[]> shard : shards.entrySet()) {
+            int node = shard.getKey();
+            String[] uris = shard.getValue();
+            if (topology.isSelf(node)) {
+                localUris = uris;
+                hasLocal = true;
+            } else {
+                String url = topology.url(node);
+                futures.put(node, executor.submit(() -> remote.apply(url, uris)));
+            }
+        }
+
+        StatsAccumulator accumulator = new StatsAccumulator();
+        try {
+            if (hasLocal) {
+                accumulator.addAll(local.apply(localUris));
+            }
+            long deadline = System.nanoTime() + timeoutNanos;
+            for (Map.Entry<Integer, Future<List<EndpointStats>>> entry : futures.entrySet()) {
+                accumulator.addAll(await(entry.getKey(), entry.getValue(), deadline));
+            }
+        } finally {
+            for (Future<List<EndpointStats>> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+        return accumulator;
+    }
+
+    private static RequestParamDto part(RequestParamDto request, String[] uris) {
+        return new RequestParamDto(request.getStart(), request.getEnd(), uris,
+                request.isUnique(), request.isApprox(), request.isGroupByPrefix());
+    }
+
+    private Map<Integer, String[]> shardsOf(String[] uris) {
+        Map<Integer, String[]> shards = new LinkedHashMap<>();
+        if (uris != null && uris.length == 0) {
+            return shards;
+        }
+        for (int node = 0; node < topology.size(); node++) {
+            shards.put(node, uris);
+        }
+        return shards;
+    }
+
+    private List<List<EndpointHit>> pendingShards() {
+        List<List<EndpointHit>> pending = new ArrayList<>(topology.size());
+        for (int i = 0; i < topology.size(); i++) {
+            pending.add(new ArrayList<>());
+        }
+        return pending;
+    }
+
+    private List<EndpointStats> await(int node, Future<List<EndpointStats>> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ServiceUnavailableException("Ошибка: узел кластера " + topology.url(node) + " недоступен.", e.getCause());
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("Ошибка: узел кластера " + topology.url(node) + " не ответил вовремя.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Ошибка: запрос статистики в кластере прерван.", e);
+        }
+    }
+
+    private void flush(int owner, List<EndpointHit> shard, HitBatchResult total) {
+        if (shard.isEmpty()) {
+            return;
+        }
+        if (topology.isSelf(owner)) {
+            localCounter.increment(shard.size());
+            hitBatchService.writeHits(shard);
+            total.setAccepted(total.getAccepted() + shard.size());
+        } else {
+            forwardedCounter.increment(shard.size());
+            List<EndpointHitDto> hitDtos = new ArrayList<>(shard.size());
+            for (EndpointHit hit : shard) {
+                hitDtos.add(EndpointHitMapper.toDto(hit));
+            }
+            HitBatchResult result = clusterClient.postHitBatch(topology.url(owner), toNdjson(hitDtos));
+            total.setAccepted(total.getAccepted() + result.getAccepted());
+            total.setRejected(total.getRejected() + result.getRejected());
+            if (result.getErrors() != null) {
+                for (String error : result.getErrors()) {
+                    addError(total, "Узел " + owner + ", " + error);
+                }
+            }
+        }
+        shard.clear();
+    }
+
+    private byte[] toNdjson(List<EndpointHitDto> shard) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(shard.size() * 128);
+        try {
+            for (EndpointHitDto hitDto : shard) {
+                objectMapper.writeValue(out, hitDto);
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось сериализовать пакет запросов", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void addError(HitBatchResult total, String error) {
+        if (total.getErrors().size() < HitBatchService.MAX_REPORTED_ERRORS) {
+            total.getErrors().add(error);
+        }
+    }
+}
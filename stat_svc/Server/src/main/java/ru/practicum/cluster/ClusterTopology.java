@@ -0,0 +1,59 @@
+package ru.practicum.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.sketch.Hashing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.cluster.enabled", havingValue = "true")
+public class ClusterTopology {
+    private final List<String> nodes = new ArrayList<>();
+    private final int selfIndex;
+
+    @Autowired
+    public ClusterTopology(@Value("${stats.cluster.nodes:}") List<String> nodes,
+                           @Value("${stats.cluster.self-index:0}") int selfIndex) {
+        for (String node : nodes) {
+            String url = node.trim();
+            if (url.isEmpty()) {
+                continue;
+            }
+            this.nodes.add(url.endsWith("/") ? url.substring(0, url.length() - 1) : url);
+        }
+        if (this.nodes.isEmpty()) {
+            throw new IllegalArgumentException("Не заданы узлы кластера в stats.cluster.nodes");
+        }
+        if (selfIndex < 0 || selfIndex >= this.nodes.size()) {
+            throw new IllegalArgumentException("stats.cluster.self-index должен быть в диапазоне 0.." + (this.nodes.size() - 1));
+        }
+        this.selfIndex = selfIndex;
+        log.info("Узел {} из {} в кластере статистики: {}", selfIndex, this.nodes.size(), this.nodes);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public int getSelfIndex() {
+        return selfIndex;
+    }
+
+    public boolean isSelf(int node) {
+        return node == selfIndex;
+    }
+
+    public String url(int node) {
+        return nodes.get(node);
+    }
+
+    public int ownerOf(String app, String uri) {
+        return (int) Math.floorMod(Hashing.hash64(app + '\n' + uri), (long) nodes.size());
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "stats.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+    private final DataSourceProperties dataSourceProperties;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final List<String> replicaUrls;
+    private final String replicaUsername;
+    private final String replicaPassword;
+    private final int replicaPoolSize;
+    private final long maxLagMs;
+
+    @Autowired
+    public ReplicaDataSourceConfig(DataSourceProperties dataSourceProperties,
+                                   Environment environment,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${stats.replica.urls:}") List<String> replicaUrls,
+                                   @Value("${stats.replica.username:${spring.datasource.username:}}") String replicaUsername,
+                                   @Value("${stats.replica.password:${spring.datasource.password:}}") String replicaPassword,
+                                   @Value("${stats.replica.pool-size:10}") int replicaPoolSize,
+                                   @Value("${stats.replica.max-lag-ms:5000}") long maxLagMs) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.replicaUrls = replicaUrls;
+        this.replicaUsername = replicaUsername;
+        this.replicaPassword = replicaPassword;
+        this.replicaPoolSize = replicaPoolSize;
+        this.maxLagMs = maxLagMs;
+    }
+
+    @Bean(destroyMethod = "close", autowireCandidate = false)
+    public ReplicaRoutingDataSource replicaRoutingDataSource() {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("stats-primary");
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("stats-replica-" + replicas.size());
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(replicaUsername);
+            replica.setPassword(replicaPassword);
+            replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        log.info("Чтение статистики направляется на {} реплик, допустимое отставание {} мс", replicas.size(), maxLagMs);
+        return new ReplicaRoutingDataSource(primary, replicas, maxLagMs, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource() {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource());
+    }
+}
@@ -0,0 +1,140 @@
+package ru.practicum.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    static final String PRIMARY = "primary";
+
+    private static final String POSTGRES = "PostgreSQL";
+    private static final String POSTGRES_LAG = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMs;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter fallbackCounter;
+
+    ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaDataSources, long maxLagMs,
+                             MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.maxLagMs = maxLagMs;
+        this.replicas = new ArrayList<>(replicaDataSources.size());
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            Replica replica = new Replica("replica-" + i, replicaDataSources.get(i));
+            replicas.add(replica);
+            targets.put(replica.name, replica.dataSource);
+            Gauge.builder("stats.replica.lag.ms", replica, r -> r.lagMs)
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+        this.fallbackCounter = Counter.builder("stats.replica.fallback")
+                .register(meterRegistry);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        checkLag();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicas.isEmpty()) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy) {
+                return replica.name;
+            }
+        }
+        fallbackCounter.increment();
+        return PRIMARY;
+    }
+
+    @Scheduled(fixedDelayString = "${stats.replica.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try {
+                replica.lagMs = measureLag(replica);
+                replica.healthy = replica.lagMs <= maxLagMs;
+            } catch (RuntimeException e) {
+                replica.lagMs = Long.MAX_VALUE;
+                replica.healthy = false;
+                log.warn("Реплика {} недоступна: {}", replica.name, e.getMessage());
+            }
+            if (wasHealthy && !replica.healthy) {
+                log.warn("Реплика {} исключена из чтения, отставание {} мс", replica.name, replica.lagMs);
+            } else if (!wasHealthy && replica.healthy) {
+                log.info("Реплика {} используется для чтения, отставание {} мс", replica.name, replica.lagMs);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+        primary.close();
+    }
+
+    private static long measureLag(Replica replica) {
+        JdbcTemplate jdbcTemplate = replica.jdbcTemplate;
+        if (replica.productName == null) {
+            replica.productName = jdbcTemplate.execute((ConnectionCallback<String>) con ->
+                    con.getMetaData().getDatabaseProductName());
+            if (!POSTGRES.equalsIgnoreCase(replica.productName)) {
+                log.warn("Реплика {} работает на {}, а не на PostgreSQL: отставание не измеряется и считается " +
+                        "равным 0 мс, проверяется только доступность", replica.name, replica.productName);
+            }
+        }
+        if (!POSTGRES.equalsIgnoreCase(replica.productName)) {
+            jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            return 0;
+        }
+        Number lag = jdbcTemplate.queryForObject(POSTGRES_LAG, Number.class);
+        return lag == null ? 0 : lag.longValue();
+    }
+
+    private static class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private final JdbcTemplate jdbcTemplate;
+        private volatile boolean healthy;
+        private volatile long lagMs;
+        private volatile String productName;
+
+        private Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+    }
+}
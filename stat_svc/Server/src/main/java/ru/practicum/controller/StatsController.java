@@ -3,42 +3,169 @@ package ru.practicum.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.cluster.ClusterClient;
+import ru.practicum.cluster.ClusterRouter;
+import ru.practicum.dto.EndpointHit;
 import ru.practicum.dto.EndpointHitDto;
 import ru.practicum.dto.EndpointStats;
+import ru.practicum.dto.HitBatchResult;
 import ru.practicum.dto.RequestParamDto;
+import ru.practicum.exceptions.NotImplementedException;
+import ru.practicum.model.HistogramRequest;
+import ru.practicum.model.HitFilter;
+import ru.practicum.service.HitBatchService;
+import ru.practicum.service.HitExportService;
+import ru.practicum.service.HitHistogramService;
+import ru.practicum.service.RealtimeCounters;
 import ru.practicum.service.StatsService;
+import ru.practicum.service.TopHitsService;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @Slf4j
 @RequiredArgsConstructor
 public class StatsController {
     private final StatsService statsService;
+    private final HitBatchService hitBatchService;
+    private final HitExportService hitExportService;
+    private final TopHitsService topHitsService;
+    private final HitHistogramService hitHistogramService;
+    private final RealtimeCounters realtimeCounters;
+    private final Optional<ClusterRouter> clusterRouter;
 
     @PostMapping("/hit")
-    public ResponseEntity<String> postHit(@Valid @RequestBody EndpointHitDto hitDto) {
+    public ResponseEntity<String> postHit(@Valid @RequestBody EndpointHitDto hitDto,
+                                          @RequestHeader(name = ClusterClient.LOCAL_HEADER, defaultValue = "false") boolean local) {
         log.info("Сохранение запроса {}", hitDto.getUri());
-        statsService.saveHit(hitDto);
+        if (local || clusterRouter.isEmpty()) {
+            statsService.saveHit(hitDto);
+        } else {
+            clusterRouter.get().saveHit(hitDto);
+        }
         return new ResponseEntity<>("Запрос сохранен", HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/hit/fast", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> postHitFast(HttpServletRequest request,
+                                              @RequestHeader(name = ClusterClient.LOCAL_HEADER, defaultValue = "false") boolean local) throws IOException {
+        EndpointHit hit = hitBatchService.parseHit(request.getInputStream());
+        log.info("Сохранение запроса {}", hit.getUri());
+        if (local || clusterRouter.isEmpty()) {
+            statsService.saveHit(hit);
+        } else {
+            clusterRouter.get().saveHit(hit);
+        }
+        return new ResponseEntity<>("Запрос сохранен", HttpStatus.CREATED);
+    }
+
+    @PostMapping(value = "/hit/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<HitBatchResult> postHitBatch(HttpServletRequest request,
+                                                       @RequestHeader(name = ClusterClient.LOCAL_HEADER, defaultValue = "false") boolean local) throws IOException {
+        log.info("Пакетное сохранение запросов");
+        HitBatchResult result = local || clusterRouter.isEmpty()
+                ? hitBatchService.saveHitBatch(request.getInputStream())
+                : clusterRouter.get().saveHitBatch(request.getInputStream());
+        return new ResponseEntity<>(result, HttpStatus.CREATED);
+    }
+
     @GetMapping("/stats")
     public List<EndpointStats> getStats(@RequestParam(name = "start") String start,
                                         @RequestParam(name = "end") String end,
                                         @RequestParam(name = "uris", required = false) String[] uris,
-                                        @RequestParam(name = "unique", defaultValue = "false") boolean unique) {
+                                        @RequestParam(name = "unique", defaultValue = "false") boolean unique,
+                                        @RequestParam(name = "approx", defaultValue = "false") boolean approx,
+                                        @RequestParam(name = "groupByPrefix", defaultValue = "false") boolean groupByPrefix,
+                                        @RequestHeader(name = ClusterClient.LOCAL_HEADER, defaultValue = "false") boolean local) {
         log.info("Запрос статистики по адресам {}", uris);
-        RequestParamDto requestDto = new RequestParamDto(start, end, uris, unique);
-        return statsService.getStats(requestDto);
+        RequestParamDto requestDto = new RequestParamDto(start, end, uris, unique, approx, groupByPrefix);
+        if (local || clusterRouter.isEmpty()) {
+            return statsService.getStats(requestDto);
+        }
+        return clusterRouter.get().getStats(requestDto);
+    }
+
+    @GetMapping("/stats/top")
+    public List<EndpointStats> getTopStats(@RequestParam(name = "n", defaultValue = "10") int n,
+                                           @RequestParam(name = "window", defaultValue = "hour") String window,
+                                           @RequestHeader(name = ClusterClient.LOCAL_HEADER, defaultValue = "false") boolean local) {
+        log.info("Запрос {} самых посещаемых адресов за окно {}", n, window);
+        if (local || clusterRouter.isEmpty()) {
+            return topHitsService.getTop(n, window);
+        }
+        return clusterRouter.get().getTopStats(n, window);
+    }
+
+    @GetMapping("/stats/realtime")
+    public List<EndpointStats> getRealtimeStats(@RequestParam(name = "uris", required = false) String[] uris,
+                                                @RequestParam(name = "window", defaultValue = "300") int window,
+                                                @RequestHeader(name = ClusterClient.LOCAL_HEADER, defaultValue = "false") boolean local) {
+        log.info("Запрос статистики по адресам {} за последние {} секунд", uris, window);
+        if (local || clusterRouter.isEmpty()) {
+            return realtimeCounters.getStats(uris, window);
+        }
+        return clusterRouter.get().getRealtimeStats(uris, window);
+    }
+
+    @GetMapping("/stats/histogram")
+    public ResponseEntity<StreamingResponseBody> getHistogram(@RequestParam(name = "start") String start,
+                                                              @RequestParam(name = "end") String end,
+                                                              @RequestParam(name = "uris", required = false) String[] uris,
+                                                              @RequestParam(name = "interval", defaultValue = "hour") String interval,
+                                                              @RequestParam(name = "unique", defaultValue = "false") boolean unique,
+                                                              @RequestHeader(name = ClusterClient.LOCAL_HEADER, defaultValue = "false") boolean local) {
+        log.info("Запрос гистограммы по адресам {} с интервалом {}", uris, interval);
+        requireLocal(local, "/stats/histogram");
+        HistogramRequest request = hitHistogramService.toRequest(start, end, uris, interval, unique);
+        StreamingResponseBody body = out -> hitHistogramService.writeHistogram(request, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @GetMapping("/hits")
-    public List<EndpointHitDto> getAllHits() {
+    public ResponseEntity<StreamingResponseBody> getAllHits(@RequestParam(name = "app", required = false) String app,
+                                                            @RequestParam(name = "start", required = false) String start,
+                                                            @RequestParam(name = "end", required = false) String end,
+                                                            @RequestParam(name = "afterId", required = false) Long afterId,
+                                                            @RequestParam(name = "limit", required = false) Integer limit,
+                                                            @RequestHeader(name = ClusterClient.LOCAL_HEADER, defaultValue = "false") boolean local) {
         log.info("Запрос полной статистики");
-        return statsService.getAllHits();
+        requireLocal(local, "/hits");
+        HitFilter filter = hitExportService.toFilter(app, start, end, afterId, limit);
+        StreamingResponseBody body = out -> hitExportService.writeJsonArray(filter, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @GetMapping("/hits/export")
+    public ResponseEntity<StreamingResponseBody> exportHits(@RequestParam(name = "app", required = false) String app,
+                                                            @RequestParam(name = "start", required = false) String start,
+                                                            @RequestParam(name = "end", required = false) String end,
+                                                            @RequestParam(name = "afterId", required = false) Long afterId,
+                                                            @RequestHeader(name = ClusterClient.LOCAL_HEADER, defaultValue = "false") boolean local) {
+        log.info("Выгрузка запросов в формате NDJSON");
+        requireLocal(local, "/hits/export");
+        HitFilter filter = hitExportService.toFilter(app, start, end, afterId, null);
+        StreamingResponseBody body = out -> hitExportService.writeNdjson(filter, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    private void requireLocal(boolean local, String path) {
+        if (!local && clusterRouter.isPresent()) {
+            throw new NotImplementedException("Ошибка: в кластере " + path + " возвращает данные только своего узла, " +
+                    "запросите каждый узел с заголовком " + ClusterClient.LOCAL_HEADER + ": true.");
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package ru.practicum.exceptions;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -14,4 +15,24 @@ public class ErrorHandler {
         log.debug("RuntimeException: {}", e.getMessage());
         return new ResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<String> tooManyRequestsHandle(TooManyRequestsException e) {
+        log.warn("TooManyRequestsException: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<String> serviceUnavailableHandle(ServiceUnavailableException e) {
+        log.warn("ServiceUnavailableException: {}", e.getMessage());
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(NotImplementedException.class)
+    public ResponseEntity<String> notImplementedHandle(NotImplementedException e) {
+        log.debug("NotImplementedException: {}", e.getMessage());
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_IMPLEMENTED);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.exceptions;
+
+public class NotImplementedException extends RuntimeException {
+    public NotImplementedException(String message) {
+        super(message);
+    }
+}
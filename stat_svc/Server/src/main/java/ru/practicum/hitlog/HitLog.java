@@ -0,0 +1,158 @@
+package ru.practicum.hitlog;
+
+import ru.practicum.dto.EndpointHit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class HitLog implements Closeable {
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String ID_FILE = "log.id";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final String logId;
+    private final ConcurrentNavigableMap<Long, HitLogSegment> segments = new ConcurrentSkipListMap<>();
+    private final Object forceLock = new Object();
+    private HitLogSegment active;
+    private int activePosition;
+    private volatile long writeOffset;
+    private long durableOffset;
+
+    private HitLog(Path directory, int segmentBytes, String logId) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.logId = logId;
+    }
+
+    public static HitLog open(Path directory, int segmentBytes) throws IOException {
+        Files.createDirectories(directory);
+        Path idFile = directory.resolve(ID_FILE);
+        if (!Files.exists(idFile)) {
+            Files.write(idFile, UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+        }
+        String logId = new String(Files.readAllBytes(idFile), StandardCharsets.UTF_8).trim();
+
+        HitLog hitLog = new HitLog(directory, segmentBytes, logId);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long baseOffset = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                hitLog.segments.put(baseOffset, HitLogSegment.open(file, baseOffset, segmentBytes));
+            }
+        }
+        if (hitLog.segments.isEmpty()) {
+            hitLog.active = hitLog.createSegment(0);
+            hitLog.activePosition = 0;
+        } else {
+            hitLog.active = hitLog.segments.lastEntry().getValue();
+            hitLog.activePosition = hitLog.active.recover();
+        }
+        hitLog.writeOffset = hitLog.active.getBaseOffset() + hitLog.activePosition;
+        hitLog.durableOffset = hitLog.writeOffset;
+        return hitLog;
+    }
+
+    public String getLogId() {
+        return logId;
+    }
+
+    public long getWriteOffset() {
+        return writeOffset;
+    }
+
+    public long getFirstOffset() {
+        return segments.firstKey();
+    }
+
+    public synchronized long append(EndpointHit hit) throws IOException {
+        byte[] payload = HitLogSegment.encode(hit);
+        int recordSize = HitLogSegment.HEADER_SIZE + payload.length;
+        if (recordSize > segmentBytes) {
+            throw new IllegalArgumentException("Запись не помещается в сегмент журнала");
+        }
+        if (activePosition + recordSize > active.capacity()) {
+            active.force();
+            active = createSegment(active.getBaseOffset() + activePosition);
+            activePosition = 0;
+        }
+        active.write(activePosition, payload);
+        activePosition += recordSize;
+        writeOffset = active.getBaseOffset() + activePosition;
+        return writeOffset;
+    }
+
+    public void awaitDurable(long offset) {
+        synchronized (forceLock) {
+            if (durableOffset >= offset) {
+                return;
+            }
+            long target = writeOffset;
+            segments.floorEntry(target).getValue().force();
+            durableOffset = target;
+        }
+    }
+
+    public long read(long fromOffset, int maxRecords, List<EndpointHit> out) {
+        long limitOffset = writeOffset;
+        long offset = fromOffset;
+        int initialSize = out.size();
+        while (out.size() - initialSize < maxRecords && offset < limitOffset) {
+            Map.Entry<Long, HitLogSegment> entry = segments.floorEntry(offset);
+            if (entry == null) {
+                throw new IllegalStateException("Смещение " + offset + " отсутствует в журнале");
+            }
+            Long nextBase = segments.higherKey(entry.getKey());
+            long segmentEnd = nextBase == null ? limitOffset : Math.min(nextBase, limitOffset);
+            if (offset >= segmentEnd) {
+                offset = nextBase == null ? segmentEnd : nextBase;
+                continue;
+            }
+            HitLogSegment segment = entry.getValue();
+            int position = segment.read((int) (offset - segment.getBaseOffset()),
+                    (int) (segmentEnd - segment.getBaseOffset()), maxRecords - (out.size() - initialSize), out);
+            offset = segment.getBaseOffset() + position;
+        }
+        return offset;
+    }
+
+    public int deleteBefore(long offset) throws IOException {
+        int deleted = 0;
+        while (true) {
+            Map.Entry<Long, HitLogSegment> first = segments.firstEntry();
+            Long nextBase = segments.higherKey(first.getKey());
+            if (nextBase == null || nextBase > offset) {
+                return deleted;
+            }
+            HitLogSegment segment = first.getValue();
+            segments.remove(first.getKey());
+            segment.close();
+            Files.deleteIfExists(segment.getPath());
+            deleted++;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        active.force();
+        for (HitLogSegment segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    private HitLogSegment createSegment(long baseOffset) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", baseOffset, SEGMENT_SUFFIX));
+        HitLogSegment segment = HitLogSegment.open(file, baseOffset, segmentBytes);
+        segments.put(baseOffset, segment);
+        return segment;
+    }
+}
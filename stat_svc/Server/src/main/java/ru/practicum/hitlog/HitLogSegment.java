@@ -0,0 +1,159 @@
+package ru.practicum.hitlog;
+
+import ru.practicum.dto.EndpointHit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.zip.CRC32;
+
+class HitLogSegment implements Closeable {
+    static final int HEADER_SIZE = 8;
+
+    private final long baseOffset;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private HitLogSegment(long baseOffset, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.baseOffset = baseOffset;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static HitLogSegment open(Path path, long baseOffset, int size) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long mappedSize = Math.max(size, channel.size());
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize);
+            return new HitLogSegment(baseOffset, path, channel, buffer);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static byte[] encode(EndpointHit hit) {
+        byte[] app = hit.getApp().getBytes(StandardCharsets.UTF_8);
+        byte[] uri = hit.getUri().getBytes(StandardCharsets.UTF_8);
+        byte[] ip = hit.getIp().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(8 + 6 + app.length + uri.length + ip.length);
+        payload.putLong(hit.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        putString(payload, app);
+        putString(payload, uri);
+        putString(payload, ip);
+        return payload.array();
+    }
+
+    long getBaseOffset() {
+        return baseOffset;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    int recover() {
+        int position = 0;
+        ByteBuffer view = buffer.duplicate();
+        while (readRecord(view, position) != null) {
+            position = view.position();
+        }
+        for (int i = position; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+        return position;
+    }
+
+    void write(int position, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + HEADER_SIZE);
+        view.put(payload);
+        view.putInt(position + 4, (int) crc.getValue());
+        view.putInt(position, payload.length);
+    }
+
+    int read(int position, int limit, int maxRecords, List<EndpointHit> out) {
+        ByteBuffer view = buffer.duplicate();
+        view.limit(limit);
+        int records = 0;
+        while (records < maxRecords && position < limit) {
+            EndpointHit hit = readRecord(view, position);
+            if (hit == null) {
+                throw new IllegalStateException("Поврежденная запись в журнале " + path + " по смещению " + position);
+            }
+            out.add(hit);
+            position = view.position();
+            records++;
+        }
+        return position;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static EndpointHit readRecord(ByteBuffer view, int position) {
+        if (position + HEADER_SIZE > view.limit()) {
+            return null;
+        }
+        int length = view.getInt(position);
+        if (length <= 0 || position + HEADER_SIZE + length > view.limit()) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        view.position(position + HEADER_SIZE);
+        view.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != view.getInt(position + 4)) {
+            return null;
+        }
+        return decode(ByteBuffer.wrap(payload));
+    }
+
+    private static EndpointHit decode(ByteBuffer payload) {
+        EndpointHit hit = new EndpointHit();
+        hit.setTimestamp(LocalDateTime.ofEpochSecond(payload.getLong(), 0, ZoneOffset.UTC));
+        hit.setApp(getString(payload));
+        hit.setUri(getString(payload));
+        hit.setIp(getString(payload));
+        return hit;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value.length > 0xFFFF) {
+            throw new IllegalArgumentException("Слишком длинное значение для записи в журнал");
+        }
+        buffer.putShort((short) value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.model;
+
+public enum HistogramInterval {
+    MINUTE("minute"),
+    HOUR("hour"),
+    DAY("day");
+
+    private final String unit;
+
+    HistogramInterval(String unit) {
+        this.unit = unit;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public static HistogramInterval fromUnit(String unit) {
+        for (HistogramInterval interval : values()) {
+            if (interval.unit.equals(unit)) {
+                return interval;
+            }
+        }
+        throw new RuntimeException("Ошибка: неизвестный интервал " + unit + ", допустимы minute, hour и day.");
+    }
+}
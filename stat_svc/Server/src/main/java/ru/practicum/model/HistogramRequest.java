@@ -0,0 +1,16 @@
+package ru.practicum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class HistogramRequest {
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final String[] uris;
+    private final HistogramInterval interval;
+    private final boolean unique;
+}
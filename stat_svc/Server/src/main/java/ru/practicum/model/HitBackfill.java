@@ -0,0 +1,10 @@
+package ru.practicum.model;
+
+import lombok.Value;
+
+@Value
+public class HitBackfill {
+    String name;
+    long cutoffId;
+    long backfilledId;
+}
@@ -0,0 +1,12 @@
+package ru.practicum.model;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+@Value
+public class HitDay {
+    String app;
+    String uri;
+    LocalDate date;
+}
@@ -0,0 +1,16 @@
+package ru.practicum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class HitFilter {
+    private final String app;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final Long afterId;
+    private final Integer limit;
+}
@@ -0,0 +1,13 @@
+package ru.practicum.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class HitMinute {
+    String app;
+    String uri;
+    String ip;
+    LocalDateTime minute;
+}
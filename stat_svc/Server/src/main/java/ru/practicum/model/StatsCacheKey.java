@@ -0,0 +1,15 @@
+package ru.practicum.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Value
+public class StatsCacheKey {
+    List<String> uris;
+    boolean unique;
+    boolean approx;
+    LocalDateTime start;
+    LocalDateTime endBucket;
+}
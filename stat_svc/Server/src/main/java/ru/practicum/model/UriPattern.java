@@ -0,0 +1,48 @@
+package ru.practicum.model;
+
+public final class UriPattern {
+    public static final String WILDCARD = "*";
+
+    private UriPattern() {
+    }
+
+    public static boolean isPrefix(String pattern) {
+        return pattern.endsWith(WILDCARD);
+    }
+
+    public static String prefixOf(String pattern) {
+        return pattern.substring(0, pattern.length() - WILDCARD.length());
+    }
+
+    public static boolean matches(String pattern, String uri) {
+        return isPrefix(pattern) ? uri.startsWith(prefixOf(pattern)) : pattern.equals(uri);
+    }
+
+    public static boolean matchesAny(Iterable<String> patterns, String uri) {
+        for (String pattern : patterns) {
+            if (matches(pattern, uri)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static boolean hasPrefix(String[] patterns) {
+        for (String pattern : patterns) {
+            if (isPrefix(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static String groupOf(String[] patterns, String uri) {
+        String group = null;
+        for (String pattern : patterns) {
+            if (isPrefix(pattern) && matches(pattern, uri) && (group == null || pattern.length() > group.length())) {
+                group = pattern;
+            }
+        }
+        return group == null ? uri : group;
+    }
+}
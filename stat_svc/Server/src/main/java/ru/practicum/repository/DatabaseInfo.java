@@ -0,0 +1,21 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+public class DatabaseInfo {
+    private final boolean postgres;
+
+    @Autowired
+    public DatabaseInfo(JdbcTemplate jdbcTemplate) {
+        String productName = jdbcTemplate.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        this.postgres = "PostgreSQL".equals(productName);
+    }
+
+    public boolean isPostgres() {
+        return postgres;
+    }
+}
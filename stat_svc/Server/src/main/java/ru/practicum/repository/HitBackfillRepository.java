@@ -0,0 +1,64 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.HitBackfill;
+
+@Repository
+public class HitBackfillRepository {
+    private static final String INSERT_POSTGRES = "INSERT INTO hit_backfill (name, cutoff_id, backfilled_id) VALUES (?, ?, ?) " +
+            "ON CONFLICT (name) DO NOTHING";
+    private static final String INSERT_MERGE = "MERGE INTO hit_backfill AS t " +
+            "USING (SELECT CAST(? AS VARCHAR(40)) AS name, CAST(? AS BIGINT) AS cutoff_id, " +
+            "CAST(? AS BIGINT) AS backfilled_id) AS s " +
+            "ON t.name = s.name " +
+            "WHEN NOT MATCHED THEN INSERT (name, cutoff_id, backfilled_id) VALUES (s.name, s.cutoff_id, s.backfilled_id)";
+    private static final String SELECT = "SELECT name, cutoff_id, backfilled_id FROM hit_backfill WHERE name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseInfo databaseInfo;
+
+    @Autowired
+    public HitBackfillRepository(JdbcTemplate jdbcTemplate, DatabaseInfo databaseInfo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseInfo = databaseInfo;
+    }
+
+    public long findMaxHitId() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM hits", Long.class);
+        return maxId == null ? 0 : maxId;
+    }
+
+    public boolean insertIfAbsent(String name, long cutoffId, long backfilledId) {
+        String sql = databaseInfo.isPostgres() ? INSERT_POSTGRES : INSERT_MERGE;
+        return jdbcTemplate.update(sql, name, cutoffId, backfilledId) > 0;
+    }
+
+    public HitBackfill find(String name) {
+        return find(SELECT, name);
+    }
+
+    public HitBackfill findForUpdate(String name) {
+        return find(SELECT + " FOR UPDATE", name);
+    }
+
+    public void updateBackfilled(String name, long backfilledId) {
+        jdbcTemplate.update("UPDATE hit_backfill SET backfilled_id = ? WHERE name = ?", backfilledId, name);
+    }
+
+    public void extendCutoff(String name, long cutoffId) {
+        jdbcTemplate.update("UPDATE hit_backfill SET cutoff_id = ? WHERE name = ? AND cutoff_id < ?",
+                cutoffId, name, cutoffId);
+    }
+
+    public void advanceCovered(String name, long hitId) {
+        jdbcTemplate.update("UPDATE hit_backfill SET cutoff_id = ?, backfilled_id = ? " +
+                "WHERE name = ? AND backfilled_id = cutoff_id AND cutoff_id < ?", hitId, hitId, name, hitId);
+    }
+
+    private HitBackfill find(String sql, String name) {
+        return jdbcTemplate.query(sql,
+                rs -> rs.next() ? new HitBackfill(rs.getString(1), rs.getLong(2), rs.getLong(3)) : null, name);
+    }
+}
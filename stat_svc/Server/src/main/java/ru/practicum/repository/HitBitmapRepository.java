@@ -0,0 +1,123 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.HitDay;
+import ru.practicum.model.HitKey;
+import ru.practicum.sketch.RoaringBitmap;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@Repository
+public class HitBitmapRepository {
+    private static final String SELECT_FOR_UPDATE = "SELECT bitmap FROM hits_ip_bitmaps " +
+            "WHERE uri = ? AND app = ? AND hit_date = ? FOR UPDATE";
+    private static final String INSERT_POSTGRES = "INSERT INTO hits_ip_bitmaps (app, uri, hit_date, bitmap) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (uri, app, hit_date) DO NOTHING";
+    private static final String INSERT_MERGE = "MERGE INTO hits_ip_bitmaps AS t " +
+            "USING (SELECT CAST(? AS VARCHAR(100)) AS app, CAST(? AS VARCHAR(40)) AS uri, " +
+            "CAST(? AS DATE) AS hit_date, CAST(? AS VARBINARY) AS bitmap) AS s " +
+            "ON t.uri = s.uri AND t.app = s.app AND t.hit_date = s.hit_date " +
+            "WHEN NOT MATCHED THEN INSERT (app, uri, hit_date, bitmap) VALUES (s.app, s.uri, s.hit_date, s.bitmap)";
+    private static final String UPDATE = "UPDATE hits_ip_bitmaps SET bitmap = ? WHERE uri = ? AND app = ? AND hit_date = ?";
+    private static final String INTERN_DAILY_IPS = "INSERT INTO hit_ips (ip) SELECT DISTINCT d.ip FROM hits_daily_ips d " +
+            "WHERE NOT EXISTS (SELECT 1 FROM hit_ips i WHERE i.ip = d.ip)";
+    private static final String SELECT_DAILY_IP_IDS = "SELECT u.uri AS uri, a.name AS app, d.hit_date, i.id AS ip_id " +
+            "FROM hits_daily_ips d " +
+            "JOIN hit_ips i ON i.ip = d.ip " +
+            "JOIN hit_apps a ON a.id = d.app_id " +
+            "JOIN hit_uris u ON u.id = d.uri_id " +
+            "ORDER BY u.uri, a.name, d.hit_date";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final DatabaseInfo databaseInfo;
+
+    @Autowired
+    public HitBitmapRepository(JdbcTemplate jdbcTemplate,
+                               NamedParameterJdbcTemplate namedJdbcTemplate,
+                               DatabaseInfo databaseInfo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.databaseInfo = databaseInfo;
+    }
+
+    public byte[] findForUpdate(HitDay day) {
+        return jdbcTemplate.query(SELECT_FOR_UPDATE, rs -> rs.next() ? rs.getBytes(1) : null,
+                day.getUri(), day.getApp(), Date.valueOf(day.getDate()));
+    }
+
+    public boolean insertIfAbsent(HitDay day, byte[] bitmap) {
+        String sql = databaseInfo.isPostgres() ? INSERT_POSTGRES : INSERT_MERGE;
+        return jdbcTemplate.update(sql, day.getApp(), day.getUri(), Date.valueOf(day.getDate()), bitmap) > 0;
+    }
+
+    public void update(HitDay day, byte[] bitmap) {
+        jdbcTemplate.update(UPDATE, bitmap, day.getUri(), day.getApp(), Date.valueOf(day.getDate()));
+    }
+
+    public Map<HitKey, RoaringBitmap> mergeBitmaps(LocalDate from, LocalDate to, String[] uris) {
+        StringBuilder sql = new StringBuilder("SELECT app, uri, bitmap FROM hits_ip_bitmaps " +
+                "WHERE hit_date >= :from AND hit_date <= :to");
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Date.valueOf(from))
+                .addValue("to", Date.valueOf(to));
+        if (uris != null) {
+            sql.append(" AND ").append(UriConditions.uriIn("uri", uris, params));
+        }
+
+        Map<HitKey, RoaringBitmap> merged = new HashMap<>();
+        namedJdbcTemplate.query(sql.toString(), params, (RowCallbackHandler) rs -> {
+            HitKey key = new HitKey(rs.getString("app"), rs.getString("uri"));
+            RoaringBitmap bitmap = RoaringBitmap.fromBytes(rs.getBytes("bitmap"));
+            RoaringBitmap current = merged.putIfAbsent(key, bitmap);
+            if (current != null) {
+                current.merge(bitmap);
+            }
+        });
+        return merged;
+    }
+
+    public void addRawIpIds(LocalDateTime from, LocalDateTime to, boolean inclusiveEnd, String[] uris,
+                            Map<HitKey, RoaringBitmap> bitmaps) {
+        StringBuilder sql = new StringBuilder("SELECT a.name AS app, u.uri AS uri, i.id AS ip_id FROM (" +
+                "SELECT DISTINCT h.app_id, h.uri_id, h.ip FROM hits h " +
+                "WHERE h.timestamp >= :from AND h.timestamp " + (inclusiveEnd ? "<=" : "<") + " :to");
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        if (uris != null) {
+            sql.append(" AND ").append(UriConditions.uriIdIn("h.uri_id", uris, params));
+        }
+        sql.append(") s JOIN hit_ips i ON i.ip = s.ip " +
+                "JOIN hit_apps a ON a.id = s.app_id " +
+                "JOIN hit_uris u ON u.id = s.uri_id");
+        namedJdbcTemplate.query(sql.toString(), params, (RowCallbackHandler) rs ->
+                bitmaps.computeIfAbsent(new HitKey(rs.getString("app"), rs.getString("uri")), key -> new RoaringBitmap())
+                        .add(rs.getInt("ip_id")));
+    }
+
+    public int internDailyIps() {
+        return jdbcTemplate.update(INTERN_DAILY_IPS);
+    }
+
+    public void findDailyIpIds(RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_DAILY_IP_IDS);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, handler);
+    }
+}
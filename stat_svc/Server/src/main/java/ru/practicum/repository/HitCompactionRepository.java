@@ -0,0 +1,123 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.dto.EndpointStats;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public class HitCompactionRepository {
+    public static final String DAILY_IPS = "daily_ips";
+
+    private static final String UPSERT_POSTGRES = "INSERT INTO hit_compaction (tier, compacted_before) VALUES (?, ?) " +
+            "ON CONFLICT (tier) DO UPDATE SET compacted_before = EXCLUDED.compacted_before";
+    private static final String UPSERT_MERGE = "MERGE INTO hit_compaction AS t " +
+            "USING (SELECT CAST(? AS VARCHAR(20)) AS tier, CAST(? AS DATE) AS compacted_before) AS s " +
+            "ON t.tier = s.tier " +
+            "WHEN MATCHED THEN UPDATE SET compacted_before = s.compacted_before " +
+            "WHEN NOT MATCHED THEN INSERT (tier, compacted_before) VALUES (s.tier, s.compacted_before)";
+    private static final String INSERT_POSTGRES = "INSERT INTO hit_compaction (tier, compacted_before) VALUES (?, ?) " +
+            "ON CONFLICT (tier) DO NOTHING";
+    private static final String INSERT_MERGE = "MERGE INTO hit_compaction AS t " +
+            "USING (SELECT CAST(? AS VARCHAR(20)) AS tier, CAST(? AS DATE) AS compacted_before) AS s " +
+            "ON t.tier = s.tier " +
+            "WHEN NOT MATCHED THEN INSERT (tier, compacted_before) VALUES (s.tier, s.compacted_before)";
+    private static final String WATERMARK = "SELECT compacted_before FROM hit_compaction WHERE tier = :tier";
+    private static final String COMPACT_DAY = "INSERT INTO hits_daily_ips (uri_id, app_id, hit_date, ip) " +
+            "SELECT DISTINCT h.uri_id, h.app_id, CAST(? AS DATE), h.ip FROM hits h " +
+            "WHERE h.timestamp >= ? AND h.timestamp < ? AND h.id <= ? " +
+            "AND NOT EXISTS (SELECT 1 FROM hits_daily_ips d " +
+            "WHERE d.uri_id = h.uri_id AND d.hit_date = ? AND d.app_id = h.app_id AND d.ip = h.ip)";
+    private static final String DELETE_BATCH = "DELETE FROM hits WHERE timestamp >= ? AND timestamp < ? AND id IN (" +
+            "SELECT id FROM hits WHERE timestamp >= ? AND timestamp < ? AND id <= ? FETCH FIRST ? ROWS ONLY)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final DatabaseInfo databaseInfo;
+
+    @Autowired
+    public HitCompactionRepository(JdbcTemplate jdbcTemplate,
+                                   NamedParameterJdbcTemplate namedJdbcTemplate,
+                                   DatabaseInfo databaseInfo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.databaseInfo = databaseInfo;
+    }
+
+    public LocalDate findWatermark(String tier) {
+        return jdbcTemplate.query("SELECT compacted_before FROM hit_compaction WHERE tier = ?",
+                rs -> rs.next() ? rs.getDate(1).toLocalDate() : null, tier);
+    }
+
+    public LocalDate findWatermarkForUpdate(String tier) {
+        return jdbcTemplate.queryForObject("SELECT compacted_before FROM hit_compaction WHERE tier = ? FOR UPDATE",
+                (rs, rowNum) -> rs.getDate(1).toLocalDate(), tier);
+    }
+
+    public void insertWatermarkIfAbsent(String tier, LocalDate compactedBefore) {
+        jdbcTemplate.update(databaseInfo.isPostgres() ? INSERT_POSTGRES : INSERT_MERGE, tier, Date.valueOf(compactedBefore));
+    }
+
+    public void saveWatermark(String tier, LocalDate compactedBefore) {
+        jdbcTemplate.update(databaseInfo.isPostgres() ? UPSERT_POSTGRES : UPSERT_MERGE, tier, Date.valueOf(compactedBefore));
+    }
+
+    public LocalDateTime findOldestHit(LocalDate from, LocalDate before) {
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "SELECT MIN(timestamp) FROM hits WHERE timestamp >= ? AND timestamp < ?", Timestamp.class,
+                Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(before.atStartOfDay()));
+        return oldest == null ? null : oldest.toLocalDateTime();
+    }
+
+    public Long findMaxId(LocalDate day) {
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM hits WHERE timestamp >= ? AND timestamp < ?", Long.class,
+                Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+    }
+
+    public int compactDay(LocalDate day, long maxId) {
+        Date date = Date.valueOf(day);
+        return jdbcTemplate.update(COMPACT_DAY, date, Timestamp.valueOf(day.atStartOfDay()),
+                Timestamp.valueOf(day.plusDays(1).atStartOfDay()), maxId, date);
+    }
+
+    public int deleteHits(LocalDate day, long maxId, int limit) {
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        return jdbcTemplate.update(DELETE_BATCH, from, to, from, to, maxId, limit);
+    }
+
+    public List<EndpointStats> getStatsUnique(String tier, LocalDateTime start, LocalDateTime end, String[] uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tier", tier)
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end))
+                .addValue("startDate", Date.valueOf(start.toLocalDate()))
+                .addValue("endDate", Date.valueOf(end.toLocalDate()));
+        StringBuilder sql = new StringBuilder("SELECT a.name AS app, u.uri AS uri, s.hits FROM (" +
+                "SELECT x.app_id, x.uri_id, COUNT(DISTINCT x.ip) AS hits, SUM(x.hits) AS total FROM (" +
+                "SELECT h.app_id, h.uri_id, h.ip, h.hits FROM hits h " +
+                "WHERE h.timestamp BETWEEN :start AND :end AND h.timestamp >= CAST((" + WATERMARK + ") AS TIMESTAMP)");
+        if (uris != null) {
+            sql.append(" AND ").append(UriConditions.uriIdIn("h.uri_id", uris, params));
+        }
+        sql.append(" UNION ALL SELECT d.app_id, d.uri_id, d.ip, 1 FROM hits_daily_ips d " +
+                "WHERE d.hit_date >= :startDate AND d.hit_date <= :endDate AND d.hit_date < (" + WATERMARK + ")");
+        if (uris != null) {
+            sql.append(" AND ").append(UriConditions.uriIdIn("d.uri_id", uris, params));
+        }
+        sql.append(") x GROUP BY x.uri_id, x.app_id) s " +
+                "JOIN hit_apps a ON a.id = s.app_id " +
+                "JOIN hit_uris u ON u.id = s.uri_id " +
+                "ORDER BY s.total DESC");
+        return namedJdbcTemplate.query(sql.toString(), params,
+                (rs, rowNum) -> new EndpointStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+}
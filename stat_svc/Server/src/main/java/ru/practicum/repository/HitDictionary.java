@@ -0,0 +1,174 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+@Repository
+public class HitDictionary {
+    private static final int IP_CACHE_SIZE = 100_000;
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final DatabaseInfo databaseInfo;
+    private final Dictionary apps;
+    private final Dictionary uris;
+    private final Dictionary ips;
+
+    @Autowired
+    public HitDictionary(JdbcTemplate jdbcTemplate, DatabaseInfo databaseInfo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.databaseInfo = databaseInfo;
+        this.apps = new Dictionary("SELECT id, name AS value FROM hit_apps WHERE name IN (:values)",
+                "INSERT INTO hit_apps (name) VALUES (?) ON CONFLICT (name) DO NOTHING",
+                "MERGE INTO hit_apps AS t USING (SELECT CAST(? AS VARCHAR(100)) AS name) AS s ON t.name = s.name " +
+                        "WHEN NOT MATCHED THEN INSERT (name) VALUES (s.name)",
+                value -> value, rs -> rs.getString("value"), new HashMap<>());
+        this.uris = new Dictionary("SELECT id, uri AS value FROM hit_uris WHERE uri IN (:values)",
+                "INSERT INTO hit_uris (uri) VALUES (?) ON CONFLICT (uri) DO NOTHING",
+                "MERGE INTO hit_uris AS t USING (SELECT CAST(? AS VARCHAR(40)) AS uri) AS s ON t.uri = s.uri " +
+                        "WHEN NOT MATCHED THEN INSERT (uri) VALUES (s.uri)",
+                value -> value, rs -> rs.getString("value"), new HashMap<>());
+        this.ips = new Dictionary("SELECT id, ip AS value FROM hit_ips WHERE ip IN (:values)",
+                "INSERT INTO hit_ips (ip) VALUES (?) ON CONFLICT (ip) DO NOTHING",
+                "MERGE INTO hit_ips AS t USING (SELECT CAST(? AS VARBINARY(64)) AS ip) AS s ON t.ip = s.ip " +
+                        "WHEN NOT MATCHED THEN INSERT (ip) VALUES (s.ip)",
+                IpCodec::encode, rs -> IpCodec.decode(rs.getBytes("value")),
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                        return size() > IP_CACHE_SIZE;
+                    }
+                });
+    }
+
+    public Map<String, Integer> appIds(Collection<String> values) {
+        return apps.ids(values);
+    }
+
+    public Map<String, Integer> uriIds(Collection<String> values) {
+        return uris.ids(values);
+    }
+
+    public Map<String, Integer> ipIds(Collection<String> values) {
+        return ips.ids(values);
+    }
+
+    private interface ValueReader {
+        String read(ResultSet rs) throws SQLException;
+    }
+
+    private final class Dictionary {
+        private final String select;
+        private final String insertPostgres;
+        private final String insertMerge;
+        private final Function<String, Object> encoder;
+        private final ValueReader reader;
+        private final Map<String, Integer> cache;
+
+        private Dictionary(String select, String insertPostgres, String insertMerge,
+                           Function<String, Object> encoder, ValueReader reader, Map<String, Integer> cache) {
+            this.select = select;
+            this.insertPostgres = insertPostgres;
+            this.insertMerge = insertMerge;
+            this.encoder = encoder;
+            this.reader = reader;
+            this.cache = cache;
+        }
+
+        private Map<String, Integer> ids(Collection<String> values) {
+            Map<String, Integer> ids = new HashMap<>();
+            TreeSet<String> missing = new TreeSet<>();
+            synchronized (cache) {
+                for (String value : values) {
+                    Integer id = cache.get(value);
+                    if (id == null) {
+                        missing.add(value);
+                    } else {
+                        ids.put(value, id);
+                    }
+                }
+            }
+            List<String> chunk = new ArrayList<>(Math.min(missing.size(), BATCH_SIZE));
+            for (String value : missing) {
+                chunk.add(value);
+                if (chunk.size() == BATCH_SIZE) {
+                    intern(chunk, ids);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                intern(chunk, ids);
+            }
+            return ids;
+        }
+
+        private void intern(List<String> values, Map<String, Integer> ids) {
+            List<Object> encoded = new ArrayList<>(values.size());
+            for (String value : values) {
+                encoded.add(encoder.apply(value));
+            }
+            Map<String, Integer> found = select(encoded);
+            if (found.size() < values.size()) {
+                List<Object> absent = new ArrayList<>();
+                for (int i = 0; i < values.size(); i++) {
+                    if (!found.containsKey(values.get(i))) {
+                        absent.add(encoded.get(i));
+                    }
+                }
+                jdbcTemplate.batchUpdate(databaseInfo.isPostgres() ? insertPostgres : insertMerge, absent,
+                        absent.size(), (ps, value) -> ps.setObject(1, value));
+                found = select(encoded);
+            }
+            if (found.size() < values.size()) {
+                throw new IllegalStateException("Не удалось получить идентификаторы для значений " + values);
+            }
+            ids.putAll(found);
+            cacheAfterCommit(found);
+        }
+
+        private Map<String, Integer> select(List<Object> encoded) {
+            Map<String, Integer> found = new HashMap<>();
+            namedJdbcTemplate.query(select, new MapSqlParameterSource("values", encoded),
+                    (RowCallbackHandler) rs -> found.put(reader.read(rs), rs.getInt("id")));
+            return found;
+        }
+
+        private void cacheAfterCommit(Map<String, Integer> found) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                cache(found);
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache(found);
+                }
+            });
+        }
+
+        private void cache(Map<String, Integer> found) {
+            synchronized (cache) {
+                cache.putAll(found);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.HistogramInterval;
+import ru.practicum.model.HistogramRequest;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+@Repository
+public class HitHistogramRepository {
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public HitHistogramRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void findHistogram(HistogramRequest request, boolean rollupsReady, RowCallbackHandler handler) {
+        String truncate = "DATE_TRUNC('" + request.getInterval().getUnit() + "', ";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(request.getStart()))
+                .addValue("end", Timestamp.valueOf(request.getEnd()));
+        String rawUriFilter = "";
+        String rollupUriFilter = "";
+        if (request.getUris() != null) {
+            rawUriFilter = " AND " + UriConditions.uriIdIn("uri_id", request.getUris(), params);
+            rollupUriFilter = " AND " + UriConditions.uriIn("uri", request.getUris(), params);
+        }
+
+        LocalDateTime fullStart = fullStart(request);
+        LocalDateTime fullEnd = fullEnd(request);
+        String sql;
+        if (usesRollups(request, rollupsReady)) {
+            params.addValue("fullStart", Timestamp.valueOf(fullStart))
+                    .addValue("fullEnd", Timestamp.valueOf(fullEnd));
+            String rollups = "SELECT app, uri, " + truncate + "bucket) AS bucket, hits FROM hits_hourly " +
+                    "WHERE bucket >= :fullStart AND bucket < :fullEnd" + rollupUriFilter;
+            String edges = rawBuckets(truncate, "SUM(hits)",
+                    "((timestamp >= :start AND timestamp < :fullStart) OR (timestamp >= :fullEnd AND timestamp <= :end))",
+                    rawUriFilter);
+            sql = "SELECT app, uri, bucket, SUM(hits) AS hits FROM (" + rollups + " UNION ALL " + edges + ") x " +
+                    "GROUP BY uri, app, bucket " +
+                    "ORDER BY uri, app, bucket";
+        } else {
+            sql = rawBuckets(truncate, request.isUnique() ? "COUNT(DISTINCT ip)" : "SUM(hits)",
+                    "timestamp BETWEEN :start AND :end", rawUriFilter) +
+                    " ORDER BY uri, app, bucket";
+        }
+        ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(sql);
+        String positionalSql = NamedParameterUtils.substituteNamedParameters(parsedSql, params);
+        Object[] args = NamedParameterUtils.buildValueArray(parsedSql, params, null);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(positionalSql);
+            ps.setFetchSize(FETCH_SIZE);
+            new ArgumentPreparedStatementSetter(args).setValues(ps);
+            return ps;
+        }, handler);
+    }
+
+    public static boolean usesRollups(HistogramRequest request, boolean rollupsReady) {
+        return rollupsReady && !request.isUnique()
+                && request.getInterval() != HistogramInterval.MINUTE
+                && fullStart(request).isBefore(fullEnd(request));
+    }
+
+    private static LocalDateTime fullStart(HistogramRequest request) {
+        LocalDateTime fullStart = request.getStart().truncatedTo(ChronoUnit.HOURS);
+        return fullStart.isBefore(request.getStart()) ? fullStart.plusHours(1) : fullStart;
+    }
+
+    private static LocalDateTime fullEnd(HistogramRequest request) {
+        return request.getEnd().truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private static String rawBuckets(String truncate, String aggregate, String timeFilter, String uriFilter) {
+        return "SELECT a.name AS app, u.uri AS uri, r.bucket, r.hits FROM (" +
+                "SELECT app_id, uri_id, " + truncate + "timestamp) AS bucket, " + aggregate + " AS hits FROM hits " +
+                "WHERE " + timeFilter + uriFilter +
+                " GROUP BY app_id, uri_id, " + truncate + "timestamp)) r " +
+                "JOIN hit_apps a ON a.id = r.app_id " +
+                "JOIN hit_uris u ON u.id = r.uri_id";
+    }
+}
@@ -0,0 +1,239 @@
+package ru.practicum.repository;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.model.HitFilter;
+import ru.practicum.model.HitMinute;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+public class HitJdbcRepository {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final String INSERT_HIT = "INSERT INTO hits (app_id, uri_id, ip, timestamp) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_REPEATS = "INSERT INTO hits (app_id, uri_id, ip, timestamp, hits) VALUES (?, ?, ?, ?, ?)";
+    private static final String FIND_REPEATED = "SELECT id, timestamp FROM hits " +
+            "WHERE uri_id = ? AND timestamp >= ? AND timestamp < ? AND app_id = ? AND ip = ? " +
+            "ORDER BY timestamp DESC FETCH FIRST 1 ROWS ONLY";
+    private static final String ADD_REPEATS = "UPDATE hits SET hits = hits + ? WHERE id = ? AND timestamp = ?";
+    private static final String COPY_HITS = "COPY hits (app_id, uri_id, ip, timestamp) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String SELECT_SINCE = "SELECT a.name AS app, u.uri AS uri, h.timestamp, h.hits FROM hits h " +
+            "JOIN hit_apps a ON a.id = h.app_id " +
+            "JOIN hit_uris u ON u.id = h.uri_id " +
+            "WHERE h.timestamp >= ?";
+    private static final String SELECT_ID_RANGE = "SELECT h.id, a.name AS app, u.uri AS uri, h.ip, h.timestamp, h.hits FROM hits h " +
+            "JOIN hit_apps a ON a.id = h.app_id " +
+            "JOIN hit_uris u ON u.id = h.uri_id " +
+            "WHERE h.id > ? AND h.id <= ? ORDER BY h.id LIMIT ?";
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HitDictionary hitDictionary;
+
+    @Autowired
+    public HitJdbcRepository(JdbcTemplate jdbcTemplate, HitDictionary hitDictionary) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.hitDictionary = hitDictionary;
+    }
+
+    public void saveAll(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> appIds = appIds(hits);
+        Map<String, Integer> uriIds = uriIds(hits);
+        jdbcTemplate.batchUpdate(INSERT_HIT, hits, hits.size(), (ps, hit) -> {
+            ps.setInt(1, appIds.get(hit.getApp()));
+            ps.setInt(2, uriIds.get(hit.getUri()));
+            ps.setBytes(3, IpCodec.encode(hit.getIp()));
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+    }
+
+    public void copyAll(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        Boolean copied = jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            if (!con.isWrapperFor(PGConnection.class)) {
+                return false;
+            }
+            String csv = toCsv(hits);
+            CopyManager copyManager = con.unwrap(PGConnection.class).getCopyAPI();
+            try {
+                copyManager.copyIn(COPY_HITS, new StringReader(csv));
+            } catch (IOException e) {
+                throw new SQLException("Ошибка передачи данных через COPY", e);
+            }
+            return true;
+        });
+        if (!Boolean.TRUE.equals(copied)) {
+            saveAll(hits);
+        }
+    }
+
+    public void addRepeats(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> appIds = appIds(hits);
+        Map<String, Integer> uriIds = uriIds(hits);
+        Map<HitMinute, List<EndpointHit>> repeats = new LinkedHashMap<>();
+        for (EndpointHit hit : hits) {
+            HitMinute minute = new HitMinute(hit.getApp(), hit.getUri(), hit.getIp(),
+                    hit.getTimestamp().truncatedTo(ChronoUnit.MINUTES));
+            repeats.computeIfAbsent(minute, key -> new ArrayList<>()).add(hit);
+        }
+        List<Object[]> increments = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        for (Map.Entry<HitMinute, List<EndpointHit>> entry : repeats.entrySet()) {
+            HitMinute minute = entry.getKey();
+            int appId = appIds.get(minute.getApp());
+            int uriId = uriIds.get(minute.getUri());
+            byte[] ip = IpCodec.encode(minute.getIp());
+            int count = entry.getValue().size();
+            Object[] stored = jdbcTemplate.query(FIND_REPEATED,
+                    rs -> rs.next() ? new Object[]{count, rs.getLong("id"), rs.getTimestamp("timestamp")} : null,
+                    uriId, Timestamp.valueOf(minute.getMinute()), Timestamp.valueOf(minute.getMinute().plusMinutes(1)),
+                    appId, ip);
+            if (stored != null) {
+                increments.add(stored);
+            } else {
+                inserts.add(new Object[]{appId, uriId, ip, Timestamp.valueOf(entry.getValue().get(0).getTimestamp()), count});
+            }
+        }
+        if (!increments.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_REPEATS, increments);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_REPEATS, inserts);
+        }
+    }
+
+    public void findSince(LocalDateTime from, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_SINCE);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            return ps;
+        }, handler);
+    }
+
+    public long findByIdRange(long afterId, long toId, int limit, List<EndpointHit> out) {
+        long[] lastId = {afterId};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_ID_RANGE);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, afterId);
+            ps.setLong(2, toId);
+            ps.setInt(3, limit);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            EndpointHit hit = new EndpointHit();
+            hit.setApp(rs.getString("app"));
+            hit.setUri(rs.getString("uri"));
+            hit.setIp(IpCodec.decode(rs.getBytes("ip")));
+            hit.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+            for (int i = rs.getInt("hits"); i > 0; i--) {
+                out.add(hit);
+            }
+            lastId[0] = rs.getLong("id");
+        });
+        return lastId[0];
+    }
+
+    public void findByFilter(HitFilter filter, RowCallbackHandler handler) {
+        StringBuilder sql = new StringBuilder("SELECT h.id, a.name AS app, u.uri AS uri, h.ip, h.timestamp, h.hits FROM hits h " +
+                "JOIN hit_apps a ON a.id = h.app_id " +
+                "JOIN hit_uris u ON u.id = h.uri_id " +
+                "WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (filter.getApp() != null) {
+            sql.append(" AND a.name = ?");
+            args.add(filter.getApp());
+        }
+        if (filter.getStart() != null) {
+            sql.append(" AND h.timestamp >= ?");
+            args.add(Timestamp.valueOf(filter.getStart()));
+        }
+        if (filter.getEnd() != null) {
+            sql.append(" AND h.timestamp <= ?");
+            args.add(Timestamp.valueOf(filter.getEnd()));
+        }
+        if (filter.getAfterId() != null) {
+            sql.append(" AND h.id > ?");
+            args.add(filter.getAfterId());
+        }
+        sql.append(" ORDER BY h.id");
+        if (filter.getLimit() != null) {
+            sql.append(" LIMIT ?");
+            args.add(filter.getLimit());
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            ps.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, handler);
+    }
+
+    private Map<String, Integer> appIds(List<EndpointHit> hits) {
+        Set<String> apps = new HashSet<>();
+        for (EndpointHit hit : hits) {
+            apps.add(hit.getApp());
+        }
+        return hitDictionary.appIds(apps);
+    }
+
+    private Map<String, Integer> uriIds(List<EndpointHit> hits) {
+        Set<String> uris = new HashSet<>();
+        for (EndpointHit hit : hits) {
+            uris.add(hit.getUri());
+        }
+        return hitDictionary.uriIds(uris);
+    }
+
+    private String toCsv(List<EndpointHit> hits) {
+        Map<String, Integer> appIds = appIds(hits);
+        Map<String, Integer> uriIds = uriIds(hits);
+        StringBuilder sb = new StringBuilder(hits.size() * 64);
+        for (EndpointHit hit : hits) {
+            sb.append(appIds.get(hit.getApp())).append(',');
+            sb.append(uriIds.get(hit.getUri())).append(',');
+            appendBytea(sb, IpCodec.encode(hit.getIp())).append(',');
+            sb.append(hit.getTimestamp().format(TIME_FORMAT)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static StringBuilder appendBytea(StringBuilder sb, byte[] value) {
+        sb.append("\\x");
+        for (byte b : value) {
+            sb.append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+        }
+        return sb;
+    }
+}
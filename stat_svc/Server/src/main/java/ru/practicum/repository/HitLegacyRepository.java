@@ -0,0 +1,51 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import ru.practicum.dto.EndpointHit;
+
+import java.util.List;
+
+@Repository
+public class HitLegacyRepository {
+    private static final String SCHEMA = "stats_legacy";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public HitLegacyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean exists() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.tables " +
+                "WHERE LOWER(table_schema) = ? AND LOWER(table_name) = 'hits'", Integer.class, SCHEMA);
+        return count != null && count > 0;
+    }
+
+    public long readAfter(long afterId, int limit, List<EndpointHit> out) {
+        long[] lastId = {afterId};
+        jdbcTemplate.query("SELECT id, app, uri, ip, timestamp FROM " + SCHEMA + ".hits " +
+                "WHERE id > ? ORDER BY id LIMIT ?", (RowCallbackHandler) rs -> {
+            EndpointHit hit = new EndpointHit();
+            hit.setApp(rs.getString("app"));
+            hit.setUri(rs.getString("uri"));
+            hit.setIp(rs.getString("ip"));
+            hit.setTimestamp(rs.getTimestamp("timestamp").toLocalDateTime());
+            out.add(hit);
+            lastId[0] = rs.getLong("id");
+        }, afterId, limit);
+        return lastId[0];
+    }
+
+    public void deleteUpTo(long id) {
+        jdbcTemplate.update("DELETE FROM " + SCHEMA + ".hits WHERE id <= ?", id);
+    }
+
+    public void drop() {
+        jdbcTemplate.execute("DROP TABLE " + SCHEMA + ".hits CASCADE");
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA);
+    }
+}
@@ -0,0 +1,34 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class HitLogCheckpointRepository {
+    private static final String UPSERT_POSTGRES = "INSERT INTO hit_log_checkpoint (log_id, log_offset) VALUES (?, ?) " +
+            "ON CONFLICT (log_id) DO UPDATE SET log_offset = EXCLUDED.log_offset";
+    private static final String UPSERT_MERGE = "MERGE INTO hit_log_checkpoint AS t " +
+            "USING (SELECT CAST(? AS VARCHAR(36)) AS log_id, CAST(? AS BIGINT) AS log_offset) AS s " +
+            "ON t.log_id = s.log_id " +
+            "WHEN MATCHED THEN UPDATE SET log_offset = s.log_offset " +
+            "WHEN NOT MATCHED THEN INSERT (log_id, log_offset) VALUES (s.log_id, s.log_offset)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseInfo databaseInfo;
+
+    @Autowired
+    public HitLogCheckpointRepository(JdbcTemplate jdbcTemplate, DatabaseInfo databaseInfo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseInfo = databaseInfo;
+    }
+
+    public Long find(String logId) {
+        return jdbcTemplate.query("SELECT log_offset FROM hit_log_checkpoint WHERE log_id = ?",
+                rs -> rs.next() ? rs.getLong(1) : null, logId);
+    }
+
+    public void save(String logId, long offset) {
+        jdbcTemplate.update(databaseInfo.isPostgres() ? UPSERT_POSTGRES : UPSERT_MERGE, logId, offset);
+    }
+}
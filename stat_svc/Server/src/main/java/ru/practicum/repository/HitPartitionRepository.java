@@ -0,0 +1,77 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@Repository
+public class HitPartitionRepository {
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String SELECT_RELKIND = "SELECT c.relkind FROM pg_class c " +
+            "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "WHERE c.relname = 'hits' AND n.nspname = current_schema()";
+    private static final String SELECT_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "JOIN pg_namespace n ON n.oid = p.relnamespace " +
+            "WHERE p.relname = 'hits' AND n.nspname = current_schema()";
+    private static final String DEFAULT_HAS_ROWS = "SELECT EXISTS (SELECT 1 FROM hits_default " +
+            "WHERE timestamp >= ? AND timestamp < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public HitPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isPartitioned() {
+        List<String> relkind = jdbcTemplate.queryForList(SELECT_RELKIND, String.class);
+        return !relkind.isEmpty() && "p".equals(relkind.get(0));
+    }
+
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class);
+    }
+
+    public void lockHits() {
+        jdbcTemplate.execute("LOCK TABLE hits IN SHARE ROW EXCLUSIVE MODE");
+    }
+
+    public LocalDateTime findOldestInDefault() {
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM hits_default", Timestamp.class);
+        return oldest == null ? null : oldest.toLocalDateTime();
+    }
+
+    public boolean defaultHasRows(LocalDateTime from, LocalDateTime to) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(DEFAULT_HAS_ROWS, Boolean.class,
+                Timestamp.valueOf(from), Timestamp.valueOf(to)));
+    }
+
+    public void createPartition(String name, LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF hits " +
+                "FOR VALUES FROM ('" + from.format(BOUND_FORMAT) + "') TO ('" + to.format(BOUND_FORMAT) + "')");
+    }
+
+    public void movePartitionFromDefault(String name, LocalDateTime from, LocalDateTime to) {
+        String bounds = "timestamp >= '" + from.format(BOUND_FORMAT) + "' AND timestamp < '" + to.format(BOUND_FORMAT) + "'";
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE hits INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.execute("INSERT INTO " + name + " SELECT * FROM hits_default WHERE " + bounds);
+        jdbcTemplate.execute("DELETE FROM hits_default WHERE " + bounds);
+        jdbcTemplate.execute("ALTER TABLE hits ATTACH PARTITION " + name + " " +
+                "FOR VALUES FROM ('" + from.format(BOUND_FORMAT) + "') TO ('" + to.format(BOUND_FORMAT) + "')");
+    }
+
+    public void detachPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE hits DETACH PARTITION " + name);
+    }
+
+    public void dropTable(String name) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + name);
+    }
+}
@@ -0,0 +1,116 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.model.HitBucket;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class HitRollupRepository {
+    public static final String BACKFILL = "hits_hourly";
+
+    private static final String UPSERT_POSTGRES = "INSERT INTO hits_hourly (app, uri, bucket, hits) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (uri, app, bucket) DO UPDATE SET hits = hits_hourly.hits + EXCLUDED.hits";
+    private static final String UPSERT_MERGE = "MERGE INTO hits_hourly AS t " +
+            "USING (SELECT CAST(? AS VARCHAR(100)) AS app, CAST(? AS VARCHAR(40)) AS uri, " +
+            "CAST(? AS TIMESTAMP) AS bucket, CAST(? AS BIGINT) AS hits) AS s " +
+            "ON t.uri = s.uri AND t.app = s.app AND t.bucket = s.bucket " +
+            "WHEN MATCHED THEN UPDATE SET hits = t.hits + s.hits " +
+            "WHEN NOT MATCHED THEN INSERT (app, uri, bucket, hits) VALUES (s.app, s.uri, s.bucket, s.hits)";
+    private static final String SELECT_FROM_HITS = "SELECT a.name AS app, u.uri AS uri, s.bucket, s.hits FROM (" +
+            "SELECT app_id, uri_id, DATE_TRUNC('hour', CAST(timestamp AS TIMESTAMP)) AS bucket, SUM(hits) AS hits " +
+            "FROM hits WHERE timestamp >= ? " +
+            "GROUP BY app_id, uri_id, DATE_TRUNC('hour', CAST(timestamp AS TIMESTAMP))) s " +
+            "JOIN hit_apps a ON a.id = s.app_id " +
+            "JOIN hit_uris u ON u.id = s.uri_id";
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final DatabaseInfo databaseInfo;
+
+    @Autowired
+    public HitRollupRepository(JdbcTemplate jdbcTemplate,
+                               NamedParameterJdbcTemplate namedJdbcTemplate,
+                               DatabaseInfo databaseInfo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.databaseInfo = databaseInfo;
+    }
+
+    public void incrementAll(List<Map.Entry<HitBucket, Long>> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        String sql = databaseInfo.isPostgres() ? UPSERT_POSTGRES : UPSERT_MERGE;
+        jdbcTemplate.batchUpdate(sql, increments, increments.size(), (ps, increment) -> {
+            HitBucket bucket = increment.getKey();
+            ps.setString(1, bucket.getApp());
+            ps.setString(2, bucket.getUri());
+            ps.setTimestamp(3, Timestamp.valueOf(bucket.getBucket()));
+            ps.setLong(4, increment.getValue());
+        });
+    }
+
+    public List<EndpointStats> getStats(LocalDateTime fromInclusive, LocalDateTime toExclusive, String[] uris) {
+        StringBuilder sql = new StringBuilder("SELECT app, uri, SUM(hits) AS hits FROM hits_hourly " +
+                "WHERE bucket >= :from AND bucket < :to");
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(fromInclusive))
+                .addValue("to", Timestamp.valueOf(toExclusive));
+        if (uris != null) {
+            sql.append(" AND ").append(UriConditions.uriIn("uri", uris, params));
+        }
+        sql.append(" GROUP BY app, uri");
+        return namedJdbcTemplate.query(sql.toString(), params,
+                (rs, rowNum) -> new EndpointStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    public void findAll(RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT app, uri, bucket, hits FROM hits_hourly");
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, handler);
+    }
+
+    public void findSince(LocalDateTime fromInclusive, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT app, uri, bucket, hits FROM hits_hourly WHERE bucket >= ?");
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setTimestamp(1, Timestamp.valueOf(fromInclusive));
+            return ps;
+        }, handler);
+    }
+
+    public void findAllInHits(RowCallbackHandler handler) {
+        findSinceInHits(EPOCH, handler);
+    }
+
+    public void findSinceInHits(LocalDateTime fromInclusive, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_FROM_HITS);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setTimestamp(1, Timestamp.valueOf(fromInclusive));
+            return ps;
+        }, handler);
+    }
+
+    public boolean isEmpty() {
+        Integer exists = jdbcTemplate.query("SELECT 1 FROM hits_hourly FETCH FIRST 1 ROWS ONLY",
+                rs -> rs.next() ? 1 : null);
+        return exists == null;
+    }
+}
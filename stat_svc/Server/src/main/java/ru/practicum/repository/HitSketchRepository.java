@@ -0,0 +1,85 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.HitDay;
+import ru.practicum.model.HitKey;
+import ru.practicum.sketch.HyperLogLog;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+@Repository
+public class HitSketchRepository {
+    private static final String SELECT_FOR_UPDATE = "SELECT sketch FROM hits_hll " +
+            "WHERE uri = ? AND app = ? AND hit_date = ? FOR UPDATE";
+    private static final String INSERT_POSTGRES = "INSERT INTO hits_hll (app, uri, hit_date, sketch) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (uri, app, hit_date) DO NOTHING";
+    private static final String INSERT_MERGE = "MERGE INTO hits_hll AS t " +
+            "USING (SELECT CAST(? AS VARCHAR(100)) AS app, CAST(? AS VARCHAR(40)) AS uri, " +
+            "CAST(? AS DATE) AS hit_date, CAST(? AS VARBINARY) AS sketch) AS s " +
+            "ON t.uri = s.uri AND t.app = s.app AND t.hit_date = s.hit_date " +
+            "WHEN NOT MATCHED THEN INSERT (app, uri, hit_date, sketch) VALUES (s.app, s.uri, s.hit_date, s.sketch)";
+    private static final String UPDATE = "UPDATE hits_hll SET sketch = ? WHERE uri = ? AND app = ? AND hit_date = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final DatabaseInfo databaseInfo;
+
+    @Autowired
+    public HitSketchRepository(JdbcTemplate jdbcTemplate,
+                               NamedParameterJdbcTemplate namedJdbcTemplate,
+                               DatabaseInfo databaseInfo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.databaseInfo = databaseInfo;
+    }
+
+    public byte[] findForUpdate(HitDay day) {
+        return jdbcTemplate.query(SELECT_FOR_UPDATE, rs -> rs.next() ? rs.getBytes(1) : null,
+                day.getUri(), day.getApp(), Date.valueOf(day.getDate()));
+    }
+
+    public boolean insertIfAbsent(HitDay day, byte[] sketch) {
+        String sql = databaseInfo.isPostgres() ? INSERT_POSTGRES : INSERT_MERGE;
+        return jdbcTemplate.update(sql, day.getApp(), day.getUri(), Date.valueOf(day.getDate()), sketch) > 0;
+    }
+
+    public void update(HitDay day, byte[] sketch) {
+        jdbcTemplate.update(UPDATE, sketch, day.getUri(), day.getApp(), Date.valueOf(day.getDate()));
+    }
+
+    public Map<HitKey, HyperLogLog> mergeSketches(LocalDate from, LocalDate to, String[] uris) {
+        StringBuilder sql = new StringBuilder("SELECT app, uri, sketch FROM hits_hll " +
+                "WHERE hit_date >= :from AND hit_date <= :to");
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Date.valueOf(from))
+                .addValue("to", Date.valueOf(to));
+        if (uris != null) {
+            sql.append(" AND ").append(UriConditions.uriIn("uri", uris, params));
+        }
+
+        Map<HitKey, HyperLogLog> merged = new HashMap<>();
+        namedJdbcTemplate.query(sql.toString(), params, (RowCallbackHandler) rs -> {
+            HitKey key = new HitKey(rs.getString("app"), rs.getString("uri"));
+            HyperLogLog sketch = HyperLogLog.fromBytes(rs.getBytes("sketch"));
+            HyperLogLog current = merged.putIfAbsent(key, sketch);
+            if (current != null) {
+                current.merge(sketch);
+            }
+        });
+        return merged;
+    }
+
+    public boolean isEmpty() {
+        Integer exists = jdbcTemplate.query("SELECT 1 FROM hits_hll FETCH FIRST 1 ROWS ONLY",
+                rs -> rs.next() ? 1 : null);
+        return exists == null;
+    }
+}
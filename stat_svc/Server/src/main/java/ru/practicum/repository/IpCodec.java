@@ -0,0 +1,107 @@
+package ru.practicum.repository;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public final class IpCodec {
+    private static final byte TAG_TEXT = (byte) 0xFF;
+    private static final byte TAG_PADDED_TEXT = (byte) 0xFE;
+
+    private IpCodec() {
+    }
+
+    public static byte[] encode(String ip) {
+        byte[] v4 = parseIpv4(ip);
+        if (v4 != null) {
+            return v4;
+        }
+        byte[] v6 = parseIpv6(ip);
+        if (v6 != null) {
+            return v6;
+        }
+        return encodeText(ip);
+    }
+
+    public static String decode(byte[] bytes) {
+        if (bytes.length == 4) {
+            return (bytes[0] & 0xFF) + "." + (bytes[1] & 0xFF) + "." + (bytes[2] & 0xFF) + "." + (bytes[3] & 0xFF);
+        }
+        if (bytes.length == 16) {
+            return formatIpv6(bytes);
+        }
+        if (bytes.length > 0 && bytes[0] == TAG_PADDED_TEXT) {
+            return new String(bytes, 1, bytes.length - 2, StandardCharsets.UTF_8);
+        }
+        return new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        byte[] result = new byte[4];
+        int part = 0;
+        int value = 0;
+        int digits = 0;
+        for (int i = 0; i <= ip.length(); i++) {
+            char c = i < ip.length() ? ip.charAt(i) : '.';
+            if (c == '.') {
+                if (digits == 0 || part == 4) {
+                    return null;
+                }
+                result[part++] = (byte) value;
+                value = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (digits > 0 && value == 0) {
+                    return null;
+                }
+                value = value * 10 + (c - '0');
+                digits++;
+                if (value > 255) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        return part == 4 ? result : null;
+    }
+
+    private static byte[] parseIpv6(String ip) {
+        if (ip.indexOf(':') < 0) {
+            return null;
+        }
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            boolean hex = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+            if (!hex && c != ':' && c != '.') {
+                return null;
+            }
+        }
+        try {
+            byte[] bytes = InetAddress.getByName(ip).getAddress();
+            if (bytes.length != 16 || !formatIpv6(bytes).equals(ip)) {
+                return null;
+            }
+            return bytes;
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static String formatIpv6(byte[] bytes) {
+        try {
+            return InetAddress.getByAddress(bytes).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Некорректный IPv6-адрес", e);
+        }
+    }
+
+    private static byte[] encodeText(String ip) {
+        byte[] text = ip.getBytes(StandardCharsets.UTF_8);
+        boolean padded = text.length + 1 == 4 || text.length + 1 == 16;
+        byte[] result = Arrays.copyOf(new byte[]{padded ? TAG_PADDED_TEXT : TAG_TEXT}, text.length + (padded ? 2 : 1));
+        System.arraycopy(text, 0, result, 1, text.length);
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.dto.EndpointStats;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public class StatsJdbcRepository {
+    private static final String BETWEEN = "h.timestamp BETWEEN :start AND :end";
+    private static final String EXCLUSIVE_END = "h.timestamp >= :start AND h.timestamp < :end";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    public StatsJdbcRepository(NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    public List<EndpointStats> getStatsNotUnique(LocalDateTime start, LocalDateTime end) {
+        return query("SUM(h.hits)", BETWEEN, start, end, null, true);
+    }
+
+    public List<EndpointStats> getStatsUnique(LocalDateTime start, LocalDateTime end) {
+        return query("COUNT(DISTINCT h.ip)", BETWEEN, start, end, null, true);
+    }
+
+    public List<EndpointStats> getStatsNotUniqueWithUris(LocalDateTime start, LocalDateTime end, String[] uris) {
+        return query("SUM(h.hits)", BETWEEN, start, end, uris, true);
+    }
+
+    public List<EndpointStats> getStatsUniqueWithUris(LocalDateTime start, LocalDateTime end, String[] uris) {
+        return query("COUNT(DISTINCT h.ip)", BETWEEN, start, end, uris, true);
+    }
+
+    public List<EndpointStats> getStatsNotUniqueExclusiveEnd(LocalDateTime start, LocalDateTime end) {
+        return query("SUM(h.hits)", EXCLUSIVE_END, start, end, null, false);
+    }
+
+    public List<EndpointStats> getStatsNotUniqueWithUrisExclusiveEnd(LocalDateTime start, LocalDateTime end, String[] uris) {
+        return query("SUM(h.hits)", EXCLUSIVE_END, start, end, uris, false);
+    }
+
+    private List<EndpointStats> query(String aggregate, String timeFilter, LocalDateTime start, LocalDateTime end,
+                                      String[] uris, boolean ordered) {
+        StringBuilder sql = new StringBuilder("SELECT a.name AS app, u.uri AS uri, s.hits FROM (" +
+                "SELECT h.app_id, h.uri_id, " + aggregate + " AS hits, SUM(h.hits) AS total FROM hits h " +
+                "WHERE " + timeFilter);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        if (uris != null) {
+            sql.append(" AND ").append(UriConditions.uriIdIn("h.uri_id", uris, params));
+        }
+        sql.append(" GROUP BY h.uri_id, h.app_id) s " +
+                "JOIN hit_apps a ON a.id = s.app_id " +
+                "JOIN hit_uris u ON u.id = s.uri_id");
+        if (ordered) {
+            sql.append(" ORDER BY s.total DESC");
+        }
+        return namedJdbcTemplate.query(sql.toString(), params,
+                (rs, rowNum) -> new EndpointStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+}
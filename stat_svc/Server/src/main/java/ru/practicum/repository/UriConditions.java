@@ -0,0 +1,44 @@
+package ru.practicum.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import ru.practicum.model.UriPattern;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class UriConditions {
+
+    private UriConditions() {
+    }
+
+    public static String uriIdIn(String column, String[] uris, MapSqlParameterSource params) {
+        return column + " IN (SELECT id FROM hit_uris WHERE " + matching(uris, params) + ")";
+    }
+
+    public static String uriIn(String column, String[] uris, MapSqlParameterSource params) {
+        return column + " IN (SELECT uri FROM hit_uris WHERE " + matching(uris, params) + ")";
+    }
+
+    private static String matching(String[] uris, MapSqlParameterSource params) {
+        List<String> exact = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        for (String uri : uris) {
+            if (UriPattern.isPrefix(uri)) {
+                String name = "uriPrefix" + conditions.size();
+                params.addValue(name, escapeLike(UriPattern.prefixOf(uri)) + "%");
+                conditions.add("uri LIKE :" + name + " ESCAPE '\\'");
+            } else {
+                exact.add(uri);
+            }
+        }
+        if (!exact.isEmpty()) {
+            params.addValue("uris", exact);
+            conditions.add("uri IN (:uris)");
+        }
+        return conditions.size() == 1 ? conditions.get(0) : "(" + String.join(" OR ", conditions) + ")";
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
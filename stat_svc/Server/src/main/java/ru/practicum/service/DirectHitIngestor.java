@@ -0,0 +1,24 @@
+package ru.practicum.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.dto.EndpointHit;
+
+import java.util.List;
+
+@Service
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "sync", matchIfMissing = true)
+public class DirectHitIngestor implements HitIngestor {
+    private final HitWriter hitWriter;
+
+    @Autowired
+    public DirectHitIngestor(HitWriter hitWriter) {
+        this.hitWriter = hitWriter;
+    }
+
+    @Override
+    public void ingest(EndpointHit hit) {
+        hitWriter.write(List.of(hit));
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.model.HitBackfill;
+import ru.practicum.repository.HitBackfillRepository;
+import ru.practicum.repository.HitJdbcRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+@DependsOn("hitLegacyMigration")
+public class HitBackfillService {
+    private final HitBackfillRepository hitBackfillRepository;
+    private final HitJdbcRepository hitJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Map<String, Consumer<List<EndpointHit>>> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public HitBackfillService(HitBackfillRepository hitBackfillRepository,
+                              HitJdbcRepository hitJdbcRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${stats.backfill.batch-size:10000}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("stats.backfill.batch-size должен быть больше 0");
+        }
+        this.hitBackfillRepository = hitBackfillRepository;
+        this.hitJdbcRepository = hitJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public boolean register(String name, boolean filled, Consumer<List<EndpointHit>> writer) {
+        long cutoffId = hitBackfillRepository.findMaxHitId();
+        boolean created = hitBackfillRepository.insertIfAbsent(name, cutoffId, filled ? cutoffId : 0);
+        HitBackfill backfill = hitBackfillRepository.find(name);
+        if (backfill.getBackfilledId() < backfill.getCutoffId()) {
+            pending.put(name, writer);
+            log.info("Дозаполнение {}: обработано до id {}, отсечка {}",
+                    name, backfill.getBackfilledId(), backfill.getCutoffId());
+        }
+        return created && !filled;
+    }
+
+    public boolean resume(String name, Consumer<List<EndpointHit>> writer) {
+        long cutoffId = hitBackfillRepository.findMaxHitId();
+        boolean created = hitBackfillRepository.insertIfAbsent(name, cutoffId, 0);
+        if (!created) {
+            hitBackfillRepository.extendCutoff(name, cutoffId);
+        }
+        HitBackfill backfill = hitBackfillRepository.find(name);
+        if (backfill.getBackfilledId() < backfill.getCutoffId()) {
+            pending.put(name, writer);
+            log.info("Дозаполнение {}: обработано до id {}, отсечка {}",
+                    name, backfill.getBackfilledId(), backfill.getCutoffId());
+        }
+        return created;
+    }
+
+    public long findMaxHitId() {
+        return hitBackfillRepository.findMaxHitId();
+    }
+
+    public void markCovered(String name, long hitId) {
+        if (isComplete(name)) {
+            hitBackfillRepository.advanceCovered(name, hitId);
+        }
+    }
+
+    public boolean isComplete(String name) {
+        return !pending.containsKey(name);
+    }
+
+    public boolean isIdle() {
+        return pending.isEmpty();
+    }
+
+    @Scheduled(fixedDelayString = "${stats.backfill.interval-ms:100}")
+    public void backfill() {
+        for (Map.Entry<String, Consumer<List<EndpointHit>>> entry : pending.entrySet()) {
+            try {
+                if (backfillBatch(entry.getKey(), entry.getValue())) {
+                    pending.remove(entry.getKey());
+                    log.info("Дозаполнение {} завершено", entry.getKey());
+                }
+            } catch (RuntimeException e) {
+                log.error("Не удалось дозаполнить {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean backfillBatch(String name, Consumer<List<EndpointHit>> writer) {
+        Boolean complete = transactionTemplate.execute(status -> {
+            HitBackfill backfill = hitBackfillRepository.findForUpdate(name);
+            if (backfill.getBackfilledId() >= backfill.getCutoffId()) {
+                return true;
+            }
+            List<EndpointHit> hits = new ArrayList<>(batchSize);
+            long lastId = hitJdbcRepository.findByIdRange(backfill.getBackfilledId(), backfill.getCutoffId(),
+                    batchSize, hits);
+            long backfilledId = hits.size() < batchSize ? backfill.getCutoffId() : lastId;
+            if (!hits.isEmpty()) {
+                writer.accept(hits);
+            }
+            hitBackfillRepository.updateBackfilled(name, backfilledId);
+            return backfilledId >= backfill.getCutoffId();
+        });
+        return Boolean.TRUE.equals(complete);
+    }
+}
@@ -0,0 +1,177 @@
+package ru.practicum.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.EndpointHitMapper;
+import ru.practicum.dto.HitBatchResult;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class HitBatchService {
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private final HitWriter hitWriter;
+    private final RealtimeCounters realtimeCounters;
+    private final Optional<HitDeduplicator> hitDeduplicator;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+
+    @Autowired
+    public HitBatchService(HitWriter hitWriter,
+                           RealtimeCounters realtimeCounters,
+                           Optional<HitDeduplicator> hitDeduplicator,
+                           ObjectMapper objectMapper,
+                           Validator validator,
+                           @Value("${stats.ingest.batch.chunk-size:5000}") int chunkSize) {
+        this.hitWriter = hitWriter;
+        this.realtimeCounters = realtimeCounters;
+        this.hitDeduplicator = hitDeduplicator;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    public HitBatchResult saveHitBatch(InputStream body) {
+        long accepted = 0;
+        long rejected = 0;
+        long position = 0;
+        List<String> errors = new ArrayList<>();
+        List<EndpointHit> chunk = new ArrayList<>(chunkSize);
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            HitJsonParser hitParser = new HitJsonParser(parser);
+            while (hitParser.next()) {
+                position++;
+                EndpointHit hit = hitParser.getHit();
+                if (hit == null) {
+                    rejected++;
+                    addError(errors, "Запрос №" + position + ": " + hitParser.getError());
+                    continue;
+                }
+                chunk.add(hit);
+                if (chunk.size() >= chunkSize) {
+                    accepted += writeChunk(chunk);
+                }
+            }
+        } catch (IOException e) {
+            rejected++;
+            addError(errors, "Запрос №" + position + ": некорректный JSON, обработка прервана. " + e.getMessage());
+        }
+        accepted += writeChunk(chunk);
+
+        log.info("Пакетное сохранение запросов: принято {}, отклонено {}", accepted, rejected);
+        return new HitBatchResult(accepted, rejected, errors);
+    }
+
+    public EndpointHit parseHit(InputStream body) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            HitJsonParser hitParser = new HitJsonParser(parser);
+            if (!hitParser.next()) {
+                throw new RuntimeException("Ошибка: пустой запрос.");
+            }
+            if (hitParser.getHit() == null) {
+                throw new RuntimeException("Ошибка: " + hitParser.getError() + ".");
+            }
+            return hitParser.getHit();
+        } catch (IOException e) {
+            throw new RuntimeException("Ошибка: некорректный JSON. " + e.getMessage());
+        }
+    }
+
+    public HitBatchResult saveHits(List<EndpointHitDto> hitDtos) {
+        long accepted = 0;
+        long rejected = 0;
+        List<String> errors = new ArrayList<>();
+        List<EndpointHit> chunk = new ArrayList<>(Math.min(chunkSize, hitDtos.size()));
+        for (int i = 0; i < hitDtos.size(); i++) {
+            String error = add(hitDtos.get(i), chunk);
+            if (error != null) {
+                rejected++;
+                addError(errors, "Запрос №" + (i + 1) + ": " + error);
+                continue;
+            }
+            if (chunk.size() >= chunkSize) {
+                accepted += writeChunk(chunk);
+            }
+        }
+        accepted += writeChunk(chunk);
+        return new HitBatchResult(accepted, rejected, errors);
+    }
+
+    private String add(EndpointHitDto hitDto, List<EndpointHit> chunk) {
+        String error = validate(hitDto);
+        if (error != null) {
+            return error;
+        }
+        try {
+            chunk.add(EndpointHitMapper.toHit(hitDto));
+            return null;
+        } catch (DateTimeParseException e) {
+            return "timestamp имеет неверный формат";
+        }
+    }
+
+    public void writeHits(List<EndpointHit> hits) {
+        for (int from = 0; from < hits.size(); from += chunkSize) {
+            List<EndpointHit> chunk = hits.subList(from, Math.min(hits.size(), from + chunkSize));
+            write(chunk);
+        }
+    }
+
+    private int writeChunk(List<EndpointHit> chunk) {
+        int size = chunk.size();
+        if (size > 0) {
+            write(chunk);
+            chunk.clear();
+        }
+        return size;
+    }
+
+    private void write(List<EndpointHit> chunk) {
+        if (hitDeduplicator.isEmpty()) {
+            hitWriter.bulkWrite(chunk);
+        } else {
+            List<EndpointHit> collapsed = new ArrayList<>();
+            hitWriter.bulkWrite(hitDeduplicator.get().acceptAll(chunk, collapsed), collapsed);
+        }
+        realtimeCounters.recordAll(chunk);
+    }
+
+    private String validate(EndpointHitDto hitDto) {
+        if (hitDto == null) {
+            return "пустой запрос";
+        }
+        Set<ConstraintViolation<EndpointHitDto>> violations = validator.validate(hitDto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static void addError(List<String> errors, String error) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(error);
+        }
+    }
+}
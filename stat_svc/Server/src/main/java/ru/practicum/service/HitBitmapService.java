@@ -0,0 +1,276 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.model.HitDay;
+import ru.practicum.model.HitKey;
+import ru.practicum.model.UriPattern;
+import ru.practicum.repository.HitBitmapRepository;
+import ru.practicum.repository.HitDictionary;
+import ru.practicum.repository.StatsJdbcRepository;
+import ru.practicum.sketch.RoaringBitmap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Slf4j
+@Service
+@DependsOn("hitLegacyMigration")
+@ConditionalOnProperty(name = "stats.unique.bitmaps.enabled", havingValue = "true", matchIfMissing = true)
+public class HitBitmapService implements HitIngestListener {
+    private static final String BACKFILL = "hits_ip_bitmaps";
+    private static final LocalTime LAST_SECOND = LocalTime.of(23, 59, 59);
+    private static final Comparator<HitDay> LOCK_ORDER = Comparator.comparing(HitDay::getUri)
+            .thenComparing(HitDay::getApp)
+            .thenComparing(HitDay::getDate);
+
+    private final Map<HitDay, RoaringBitmap> buffer = new HashMap<>();
+    private final HitBitmapRepository hitBitmapRepository;
+    private final HitDictionary hitDictionary;
+    private final StatsJdbcRepository statsJdbcRepository;
+    private final HitBackfillService hitBackfillService;
+    private final TransactionTemplate transactionTemplate;
+    private final Optional<HitCompactionService> hitCompactionService;
+    private final Optional<ParallelStatsExecutor> parallelStatsExecutor;
+    private Map<HitDay, RoaringBitmap> flushing = Map.of();
+    private long coveredId;
+
+    @Autowired
+    public HitBitmapService(HitBitmapRepository hitBitmapRepository,
+                            HitDictionary hitDictionary,
+                            StatsJdbcRepository statsJdbcRepository,
+                            HitBackfillService hitBackfillService,
+                            TransactionTemplate transactionTemplate,
+                            Optional<HitCompactionService> hitCompactionService,
+                            Optional<ParallelStatsExecutor> parallelStatsExecutor) {
+        this.hitBitmapRepository = hitBitmapRepository;
+        this.hitDictionary = hitDictionary;
+        this.statsJdbcRepository = statsJdbcRepository;
+        this.hitBackfillService = hitBackfillService;
+        this.transactionTemplate = transactionTemplate;
+        this.hitCompactionService = hitCompactionService;
+        this.parallelStatsExecutor = parallelStatsExecutor;
+    }
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (hitBackfillService.resume(BACKFILL, hits -> mergeIntoStored(toBitmaps(hits)))) {
+                int days = mergeCompactedDays();
+                log.info("Дневные битовые карты IP-адресов будут восстановлены по сохраненным запросам в фоне, " +
+                        "по сжатым дням восстановлено {}", days);
+            }
+        });
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        Map<HitDay, RoaringBitmap> bitmaps = toBitmaps(hits);
+        AfterCommit.run(() -> buffer(bitmaps));
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${stats.unique.bitmaps.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        long maxId = hitBackfillService.findMaxHitId();
+        Map<HitDay, RoaringBitmap> pending;
+        synchronized (buffer) {
+            pending = new HashMap<>(buffer);
+            buffer.clear();
+            flushing = pending;
+        }
+        try {
+            if (!pending.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> mergeIntoStored(pending));
+            }
+            if (coveredId > 0) {
+                hitBackfillService.markCovered(BACKFILL, coveredId);
+            }
+            coveredId = maxId;
+        } catch (RuntimeException e) {
+            log.error("Не удалось сохранить битовые карты IP-адресов, повтор при следующем сбросе: {}", e.getMessage());
+            buffer(pending);
+        } finally {
+            synchronized (buffer) {
+                flushing = Map.of();
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return hitBackfillService.isComplete(BACKFILL);
+    }
+
+    public List<EndpointStats> getStatsUnique(LocalDateTime start, LocalDateTime end, String[] uris) {
+        LocalDate firstFullDay = start.toLocalTime().equals(LocalTime.MIDNIGHT) || isCompacted(start)
+                ? start.toLocalDate()
+                : start.toLocalDate().plusDays(1);
+        LocalDate lastFullDay = !end.toLocalTime().isBefore(LAST_SECOND) || isCompacted(end)
+                ? end.toLocalDate()
+                : end.toLocalDate().minusDays(1);
+        if (firstFullDay.isAfter(lastFullDay)) {
+            return uris == null
+                    ? statsJdbcRepository.getStatsUnique(start, end)
+                    : statsJdbcRepository.getStatsUniqueWithUris(start, end, uris);
+        }
+
+        Map<HitKey, RoaringBitmap> buffered = findBuffered(firstFullDay, lastFullDay, uris);
+        Map<HitKey, RoaringBitmap> merged = mergeBitmaps(firstFullDay, lastFullDay, uris);
+        mergeInto(merged, buffered);
+        LocalDateTime fullStart = firstFullDay.atStartOfDay();
+        LocalDateTime fullEnd = lastFullDay.plusDays(1).atStartOfDay();
+        if (start.isBefore(fullStart)) {
+            hitBitmapRepository.addRawIpIds(start, fullStart, false, uris, merged);
+        }
+        if (!end.isBefore(fullEnd)) {
+            hitBitmapRepository.addRawIpIds(fullEnd, end, true, uris, merged);
+        }
+
+        StatsAccumulator accumulator = new StatsAccumulator();
+        for (Map.Entry<HitKey, RoaringBitmap> entry : merged.entrySet()) {
+            accumulator.add(entry.getKey().getApp(), entry.getKey().getUri(), entry.getValue().cardinality());
+        }
+        return accumulator.toList();
+    }
+
+    private Map<HitKey, RoaringBitmap> mergeBitmaps(LocalDate from, LocalDate to, String[] uris) {
+        if (parallelStatsExecutor.isEmpty()) {
+            return hitBitmapRepository.mergeBitmaps(from, to, uris);
+        }
+        Map<HitKey, RoaringBitmap> merged = new HashMap<>();
+        for (Map<HitKey, RoaringBitmap> partial : parallelStatsExecutor.get()
+                .splitByDays(from, to, (chunkFrom, chunkTo) -> hitBitmapRepository.mergeBitmaps(chunkFrom, chunkTo, uris))) {
+            mergeInto(merged, partial);
+        }
+        return merged;
+    }
+
+    private static void mergeInto(Map<HitKey, RoaringBitmap> merged, Map<HitKey, RoaringBitmap> partial) {
+        for (Map.Entry<HitKey, RoaringBitmap> entry : partial.entrySet()) {
+            RoaringBitmap current = merged.putIfAbsent(entry.getKey(), entry.getValue());
+            if (current != null) {
+                current.merge(entry.getValue());
+            }
+        }
+    }
+
+    private boolean isCompacted(LocalDateTime dateTime) {
+        return hitCompactionService.isPresent() && hitCompactionService.get().isCompacted(dateTime);
+    }
+
+    private Map<HitKey, RoaringBitmap> findBuffered(LocalDate from, LocalDate to, String[] uris) {
+        List<String> patterns = uris == null ? null : Arrays.asList(uris);
+        Map<HitKey, RoaringBitmap> found = new HashMap<>();
+        synchronized (buffer) {
+            for (Map<HitDay, RoaringBitmap> bitmaps : List.of(flushing, buffer)) {
+                for (Map.Entry<HitDay, RoaringBitmap> entry : bitmaps.entrySet()) {
+                    HitDay day = entry.getKey();
+                    if (day.getDate().isBefore(from) || day.getDate().isAfter(to)
+                            || patterns != null && !UriPattern.matchesAny(patterns, day.getUri())) {
+                        continue;
+                    }
+                    found.computeIfAbsent(new HitKey(day.getApp(), day.getUri()), key -> new RoaringBitmap())
+                            .merge(entry.getValue());
+                }
+            }
+        }
+        return found;
+    }
+
+    private Map<HitDay, RoaringBitmap> toBitmaps(List<EndpointHit> hits) {
+        Map<HitDay, Set<String>> ipsByDay = new HashMap<>();
+        Set<String> ips = new HashSet<>();
+        for (EndpointHit hit : hits) {
+            HitDay day = new HitDay(hit.getApp(), hit.getUri(), hit.getTimestamp().toLocalDate());
+            ipsByDay.computeIfAbsent(day, d -> new HashSet<>()).add(hit.getIp());
+            ips.add(hit.getIp());
+        }
+        Map<String, Integer> ipIds = hitDictionary.ipIds(ips);
+        Map<HitDay, RoaringBitmap> bitmaps = new HashMap<>();
+        for (Map.Entry<HitDay, Set<String>> entry : ipsByDay.entrySet()) {
+            RoaringBitmap bitmap = new RoaringBitmap();
+            for (String ip : entry.getValue()) {
+                bitmap.add(ipIds.get(ip));
+            }
+            bitmaps.put(entry.getKey(), bitmap);
+        }
+        return bitmaps;
+    }
+
+    private void buffer(Map<HitDay, RoaringBitmap> bitmaps) {
+        synchronized (buffer) {
+            for (Map.Entry<HitDay, RoaringBitmap> entry : bitmaps.entrySet()) {
+                RoaringBitmap current = buffer.putIfAbsent(entry.getKey(), entry.getValue());
+                if (current != null) {
+                    current.merge(entry.getValue());
+                }
+            }
+        }
+    }
+
+    private void mergeIntoStored(Map<HitDay, RoaringBitmap> bitmaps) {
+        Map<HitDay, RoaringBitmap> sorted = new TreeMap<>(LOCK_ORDER);
+        sorted.putAll(bitmaps);
+        for (Map.Entry<HitDay, RoaringBitmap> entry : sorted.entrySet()) {
+            mergeIntoStored(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void mergeIntoStored(HitDay day, RoaringBitmap bitmap) {
+        byte[] stored = hitBitmapRepository.findForUpdate(day);
+        if (stored == null) {
+            if (hitBitmapRepository.insertIfAbsent(day, bitmap.toBytes())) {
+                return;
+            }
+            stored = hitBitmapRepository.findForUpdate(day);
+        }
+        RoaringBitmap current = RoaringBitmap.fromBytes(stored);
+        if (current.merge(bitmap)) {
+            hitBitmapRepository.update(day, current.toBytes());
+        }
+    }
+
+    private int mergeCompactedDays() {
+        hitBitmapRepository.internDailyIps();
+        int[] days = new int[1];
+        HitDay[] currentDay = new HitDay[1];
+        RoaringBitmap[] currentBitmap = new RoaringBitmap[1];
+
+        hitBitmapRepository.findDailyIpIds(rs -> {
+            HitDay day = new HitDay(rs.getString("app"), rs.getString("uri"), rs.getDate("hit_date").toLocalDate());
+            if (!day.equals(currentDay[0])) {
+                if (currentDay[0] != null) {
+                    mergeIntoStored(currentDay[0], currentBitmap[0]);
+                    days[0]++;
+                }
+                currentDay[0] = day;
+                currentBitmap[0] = new RoaringBitmap();
+            }
+            currentBitmap[0].add(rs.getInt("ip_id"));
+        });
+        if (currentDay[0] != null) {
+            mergeIntoStored(currentDay[0], currentBitmap[0]);
+            days[0]++;
+        }
+        return days[0];
+    }
+}
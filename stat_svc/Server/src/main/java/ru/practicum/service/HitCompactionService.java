@@ -0,0 +1,130 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.repository.HitCompactionRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Service
+@DependsOn("hitLegacyMigration")
+@ConditionalOnProperty(name = "stats.compaction.enabled", havingValue = "true")
+public class HitCompactionService {
+    private final HitCompactionRepository hitCompactionRepository;
+    private final HitBackfillService hitBackfillService;
+    private final TransactionTemplate transactionTemplate;
+    private final int afterDays;
+    private final int deleteBatchSize;
+    private volatile LocalDate watermark = LocalDate.EPOCH;
+
+    @Autowired
+    public HitCompactionService(HitCompactionRepository hitCompactionRepository,
+                                HitBackfillService hitBackfillService,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${stats.compaction.after-days:90}") int afterDays,
+                                @Value("${stats.compaction.delete-batch-size:10000}") int deleteBatchSize) {
+        if (afterDays < 1) {
+            throw new IllegalArgumentException("stats.compaction.after-days должен быть больше 0");
+        }
+        if (deleteBatchSize < 1) {
+            throw new IllegalArgumentException("stats.compaction.delete-batch-size должен быть больше 0");
+        }
+        this.hitCompactionRepository = hitCompactionRepository;
+        this.hitBackfillService = hitBackfillService;
+        this.transactionTemplate = transactionTemplate;
+        this.afterDays = afterDays;
+        this.deleteBatchSize = deleteBatchSize;
+    }
+
+    @PostConstruct
+    public void init() {
+        hitCompactionRepository.insertWatermarkIfAbsent(HitCompactionRepository.DAILY_IPS, LocalDate.EPOCH);
+        refreshWatermark();
+    }
+
+    @Scheduled(fixedDelayString = "${stats.compaction.watermark-refresh-ms:60000}")
+    public void refreshWatermark() {
+        LocalDate stored = hitCompactionRepository.findWatermark(HitCompactionRepository.DAILY_IPS);
+        if (stored != null) {
+            advanceWatermark(stored);
+        }
+    }
+
+    @Scheduled(cron = "${stats.compaction.cron:0 30 3 * * *}")
+    public void compact() {
+        if (!hitBackfillService.isIdle()) {
+            log.info("Сжатие запросов отложено до завершения дозаполнения производных таблиц");
+            return;
+        }
+        LocalDate cutoff = LocalDate.now().minusDays(afterDays);
+        while (true) {
+            refreshWatermark();
+            if (!watermark.isBefore(cutoff)) {
+                return;
+            }
+            LocalDateTime oldest = hitCompactionRepository.findOldestHit(watermark, cutoff);
+            if (oldest == null) {
+                refreshWatermark();
+                return;
+            }
+            try {
+                compactDay(oldest.toLocalDate());
+            } catch (RuntimeException e) {
+                log.error("Не удалось сжать запросы за {}: {}", oldest.toLocalDate(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    public LocalDate getWatermark() {
+        return watermark;
+    }
+
+    public boolean isCompacted(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().isBefore(watermark);
+    }
+
+    public List<EndpointStats> getStatsUnique(LocalDateTime start, LocalDateTime end, String[] uris) {
+        return hitCompactionRepository.getStatsUnique(HitCompactionRepository.DAILY_IPS, start, end, uris);
+    }
+
+    private synchronized void advanceWatermark(LocalDate compactedBefore) {
+        if (watermark.isBefore(compactedBefore)) {
+            watermark = compactedBefore;
+        }
+    }
+
+    private void compactDay(LocalDate day) {
+        long startNanos = System.nanoTime();
+        LocalDate next = day.plusDays(1);
+        long maxId = hitCompactionRepository.findMaxId(day);
+        Integer ips = transactionTemplate.execute(status -> {
+            LocalDate stored = hitCompactionRepository.findWatermarkForUpdate(HitCompactionRepository.DAILY_IPS);
+            int inserted = hitCompactionRepository.compactDay(day, maxId);
+            if (stored.isBefore(next)) {
+                hitCompactionRepository.saveWatermark(HitCompactionRepository.DAILY_IPS, next);
+            }
+            return inserted;
+        });
+        advanceWatermark(next);
+        long deleted = 0;
+        int batch;
+        do {
+            batch = hitCompactionRepository.deleteHits(day, maxId, deleteBatchSize);
+            deleted += batch;
+        } while (batch > 0);
+        log.info("Запросы за {} сжаты: {} уникальных IP, удалено {} строк за {} мс",
+                day, ips, deleted, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+}
@@ -0,0 +1,252 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.model.UriPattern;
+import ru.practicum.repository.HitJdbcRepository;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.StatsJdbcRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Service
+@DependsOn({"hitLegacyMigration", "hitRollupService"})
+@ConditionalOnProperty(name = "stats.counters.enabled", havingValue = "true")
+public class HitCounterIndex implements HitIngestListener {
+    private static final long SECONDS_IN_HOUR = 3600;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, CounterSeries>> seriesByUri = new ConcurrentHashMap<>();
+    private final HitJdbcRepository hitJdbcRepository;
+    private final HitRollupRepository hitRollupRepository;
+    private final HitBackfillService hitBackfillService;
+    private final StatsJdbcRepository statsJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long bucketSeconds;
+    private final long fineRetentionSeconds;
+    private volatile long fineWatermark;
+
+    @Autowired
+    public HitCounterIndex(HitJdbcRepository hitJdbcRepository,
+                           HitRollupRepository hitRollupRepository,
+                           HitBackfillService hitBackfillService,
+                           StatsJdbcRepository statsJdbcRepository,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${stats.counters.bucket-seconds:1}") long bucketSeconds,
+                           @Value("${stats.counters.fine-retention-hours:48}") long fineRetentionHours) {
+        if (bucketSeconds < 1 || SECONDS_IN_HOUR % bucketSeconds != 0) {
+            throw new IllegalArgumentException("stats.counters.bucket-seconds должен быть делителем 3600");
+        }
+        this.hitJdbcRepository = hitJdbcRepository;
+        this.hitRollupRepository = hitRollupRepository;
+        this.hitBackfillService = hitBackfillService;
+        this.statsJdbcRepository = statsJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.bucketSeconds = bucketSeconds;
+        this.fineRetentionSeconds = fineRetentionHours * SECONDS_IN_HOUR;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        long startNanos = System.nanoTime();
+        fineWatermark = alignToHour(nowSeconds() - fineRetentionSeconds);
+        LocalDateTime fineFrom = LocalDateTime.ofEpochSecond(fineWatermark, 0, ZoneOffset.UTC);
+        transactionTemplate.executeWithoutResult(status -> {
+            RowCallbackHandler hourHandler = rs -> series(rs.getString("app"), rs.getString("uri"))
+                    .addHours(toSeconds(rs.getTimestamp("bucket").toLocalDateTime()) / SECONDS_IN_HOUR, rs.getLong("hits"));
+            if (hitBackfillService.isComplete(HitRollupRepository.BACKFILL)) {
+                hitRollupRepository.findAll(hourHandler);
+            } else {
+                hitRollupRepository.findAllInHits(hourHandler);
+            }
+            hitJdbcRepository.findSince(fineFrom, rs -> series(rs.getString("app"), rs.getString("uri"))
+                    .addFine(toSeconds(rs.getTimestamp("timestamp").toLocalDateTime()) / bucketSeconds, rs.getLong("hits")));
+        });
+        log.info("Счетчики запросов в памяти восстановлены за {} мс",
+                (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        AfterCommit.run(() -> {
+            for (EndpointHit hit : hits) {
+                long seconds = toSeconds(hit.getTimestamp());
+                CounterSeries series = series(hit.getApp(), hit.getUri());
+                series.addHours(seconds / SECONDS_IN_HOUR, 1);
+                series.addFine(seconds / bucketSeconds, 1);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${stats.counters.eviction-interval-ms:60000}")
+    public void evictFineBuckets() {
+        long watermark = alignToHour(nowSeconds() - fineRetentionSeconds);
+        if (watermark <= fineWatermark) {
+            return;
+        }
+        fineWatermark = watermark;
+        long bucket = watermark / bucketSeconds;
+        for (ConcurrentMap<String, CounterSeries> byApp : seriesByUri.values()) {
+            for (CounterSeries series : byApp.values()) {
+                series.fine.headMap(bucket).clear();
+            }
+        }
+    }
+
+    public List<EndpointStats> getStatsNotUnique(LocalDateTime start, LocalDateTime end, String[] uris) {
+        List<Map.Entry<String, CounterSeries>> selected = select(uris);
+        List<long[]> rawRanges = new ArrayList<>();
+        long from = toSeconds(start);
+        long to = toSeconds(end) + 1;
+        long watermark = fineWatermark;
+
+        long[] totals = new long[selected.size()];
+        long fullHoursFrom = ceilDiv(from, SECONDS_IN_HOUR);
+        long fullHoursTo = Math.floorDiv(to, SECONDS_IN_HOUR);
+        if (fullHoursFrom < fullHoursTo) {
+            for (int i = 0; i < selected.size(); i++) {
+                totals[i] += selected.get(i).getValue().sumHours(fullHoursFrom, fullHoursTo);
+            }
+            addFine(selected, totals, from, fullHoursFrom * SECONDS_IN_HOUR, watermark, rawRanges);
+            addFine(selected, totals, fullHoursTo * SECONDS_IN_HOUR, to, watermark, rawRanges);
+        } else {
+            addFine(selected, totals, from, to, watermark, rawRanges);
+        }
+
+        StatsAccumulator accumulator = new StatsAccumulator();
+        for (int i = 0; i < selected.size(); i++) {
+            if (totals[i] > 0) {
+                accumulator.add(selected.get(i).getKey(), selected.get(i).getValue().uri, totals[i]);
+            }
+        }
+        for (long[] range : rawRanges) {
+            LocalDateTime rangeStart = LocalDateTime.ofEpochSecond(range[0], 0, ZoneOffset.UTC);
+            LocalDateTime rangeEnd = LocalDateTime.ofEpochSecond(range[1], 0, ZoneOffset.UTC);
+            accumulator.addAll(uris == null
+                    ? statsJdbcRepository.getStatsNotUniqueExclusiveEnd(rangeStart, rangeEnd)
+                    : statsJdbcRepository.getStatsNotUniqueWithUrisExclusiveEnd(rangeStart, rangeEnd, uris));
+        }
+        return accumulator.toList();
+    }
+
+    private void addFine(List<Map.Entry<String, CounterSeries>> selected, long[] totals,
+                         long from, long to, long watermark, List<long[]> rawRanges) {
+        if (from >= to) {
+            return;
+        }
+        if (from < watermark) {
+            rawRanges.add(new long[]{from, to});
+            return;
+        }
+        long bucketsFrom = ceilDiv(from, bucketSeconds);
+        long bucketsTo = Math.floorDiv(to, bucketSeconds);
+        if (bucketsFrom >= bucketsTo) {
+            rawRanges.add(new long[]{from, to});
+            return;
+        }
+        if (from < bucketsFrom * bucketSeconds) {
+            rawRanges.add(new long[]{from, bucketsFrom * bucketSeconds});
+        }
+        if (bucketsTo * bucketSeconds < to) {
+            rawRanges.add(new long[]{bucketsTo * bucketSeconds, to});
+        }
+        for (int i = 0; i < selected.size(); i++) {
+            totals[i] += selected.get(i).getValue().sumFine(bucketsFrom, bucketsTo);
+        }
+    }
+
+    private List<Map.Entry<String, CounterSeries>> select(String[] uris) {
+        List<Map.Entry<String, CounterSeries>> selected = new ArrayList<>();
+        if (uris != null && !UriPattern.hasPrefix(uris)) {
+            for (String uri : new HashSet<>(Arrays.asList(uris))) {
+                ConcurrentMap<String, CounterSeries> byApp = seriesByUri.get(uri);
+                if (byApp != null) {
+                    selected.addAll(byApp.entrySet());
+                }
+            }
+            return selected;
+        }
+        List<String> patterns = uris == null ? null : Arrays.asList(uris);
+        for (Map.Entry<String, ConcurrentMap<String, CounterSeries>> entry : seriesByUri.entrySet()) {
+            if (patterns == null || UriPattern.matchesAny(patterns, entry.getKey())) {
+                selected.addAll(entry.getValue().entrySet());
+            }
+        }
+        return selected;
+    }
+
+    private CounterSeries series(String app, String uri) {
+        return seriesByUri.computeIfAbsent(uri, u -> new ConcurrentHashMap<>())
+                .computeIfAbsent(app, a -> new CounterSeries(uri));
+    }
+
+    private static long toSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long nowSeconds() {
+        return toSeconds(LocalDateTime.now());
+    }
+
+    private static long alignToHour(long seconds) {
+        return Math.floorDiv(seconds, SECONDS_IN_HOUR) * SECONDS_IN_HOUR;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    private static class CounterSeries {
+        private final String uri;
+        private final ConcurrentSkipListMap<Long, LongAdder> hours = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListMap<Long, LongAdder> fine = new ConcurrentSkipListMap<>();
+
+        CounterSeries(String uri) {
+            this.uri = uri;
+        }
+
+        void addHours(long hour, long hits) {
+            hours.computeIfAbsent(hour, h -> new LongAdder()).add(hits);
+        }
+
+        void addFine(long bucket, long hits) {
+            fine.computeIfAbsent(bucket, b -> new LongAdder()).add(hits);
+        }
+
+        long sumHours(long from, long to) {
+            return sum(hours, from, to);
+        }
+
+        long sumFine(long from, long to) {
+            return sum(fine, from, to);
+        }
+
+        private static long sum(ConcurrentSkipListMap<Long, LongAdder> buckets, long from, long to) {
+            long total = 0;
+            for (LongAdder adder : buckets.subMap(from, to).values()) {
+                total += adder.sum();
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.hitlog.HitLog;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+@Slf4j
+@Service
+public class HitDeadLetter {
+    private final String directory;
+    private final int segmentBytes;
+    private final Counter parkedCounter;
+    private final Counter lostCounter;
+    private HitLog hitLog;
+
+    @Autowired
+    public HitDeadLetter(MeterRegistry meterRegistry,
+                         @Value("${stats.ingest.dead-letter.dir:./data/hit-dead-letter}") String directory,
+                         @Value("${stats.ingest.dead-letter.segment-bytes:16777216}") int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.parkedCounter = Counter.builder("stats.ingest.dead-letter")
+                .tag("result", "parked")
+                .register(meterRegistry);
+        this.lostCounter = Counter.builder("stats.ingest.dead-letter")
+                .tag("result", "lost")
+                .register(meterRegistry);
+    }
+
+    public synchronized void park(List<EndpointHit> hits) {
+        try {
+            if (hitLog == null) {
+                hitLog = HitLog.open(Paths.get(directory), segmentBytes);
+            }
+            long offset = 0;
+            for (EndpointHit hit : hits) {
+                offset = hitLog.append(hit);
+            }
+            hitLog.awaitDurable(offset);
+            parkedCounter.increment(hits.size());
+            log.warn("{} запросов отложено в журнал недоставленных {}", hits.size(), directory);
+        } catch (IOException | RuntimeException e) {
+            lostCounter.increment(hits.size());
+            log.error("Не удалось отложить {} запросов в журнал недоставленных: {}", hits.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (hitLog != null) {
+            hitLog.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.sketch.BloomFilter;
+import ru.practicum.sketch.Hashing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats.dedup.enabled", havingValue = "true")
+public class HitDeduplicator {
+    private final long windowNanos;
+    private final Counter acceptedCounter;
+    private final Counter collapsedCounter;
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+    private volatile long generation;
+
+    @Autowired
+    public HitDeduplicator(MeterRegistry meterRegistry,
+                           @Value("${stats.dedup.window-ms:10000}") long windowMs,
+                           @Value("${stats.dedup.expected-insertions:1000000}") long expectedInsertions,
+                           @Value("${stats.dedup.false-positive-rate:0.001}") double falsePositiveRate) {
+        if (windowMs < 1) {
+            throw new IllegalArgumentException("stats.dedup.window-ms должен быть больше 0");
+        }
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.current = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.previous = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.generation = System.nanoTime() / windowNanos;
+        this.acceptedCounter = Counter.builder("stats.dedup.hits")
+                .tag("result", "accepted")
+                .register(meterRegistry);
+        this.collapsedCounter = Counter.builder("stats.dedup.hits")
+                .tag("result", "collapsed")
+                .register(meterRegistry);
+        log.info("Фильтр повторных просмотров: окно {} мс, {} бит, {} хеш-функций",
+                windowMs, current.getBitCount(), current.getHashCount());
+    }
+
+    public boolean accept(EndpointHit hit) {
+        return accept(hit, System.nanoTime());
+    }
+
+    boolean accept(EndpointHit hit, long nanoTime) {
+        rotateIfNeeded(nanoTime);
+        long hash = Hashing.hash64(hit.getApp() + '\n' + hit.getUri() + '\n' + hit.getIp());
+        boolean seenPreviously = previous.mightContain(hash);
+        boolean seenCurrently = !current.put(hash);
+        if (seenPreviously || seenCurrently) {
+            collapsedCounter.increment();
+            return false;
+        }
+        acceptedCounter.increment();
+        return true;
+    }
+
+    public List<EndpointHit> acceptAll(List<EndpointHit> hits, List<EndpointHit> collapsed) {
+        List<EndpointHit> accepted = new ArrayList<>(hits.size());
+        for (EndpointHit hit : hits) {
+            if (accept(hit)) {
+                accepted.add(hit);
+            } else {
+                collapsed.add(hit);
+            }
+        }
+        return accepted;
+    }
+
+    private void rotateIfNeeded(long nanoTime) {
+        long now = nanoTime / windowNanos;
+        if (now == generation) {
+            return;
+        }
+        synchronized (this) {
+            if (now == generation) {
+                return;
+            }
+            BloomFilter expired = previous;
+            expired.clear();
+            if (now == generation + 1) {
+                previous = current;
+            } else {
+                current.clear();
+                previous = current;
+            }
+            current = expired;
+            generation = now;
+        }
+    }
+}
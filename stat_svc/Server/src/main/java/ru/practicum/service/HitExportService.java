@@ -0,0 +1,111 @@
+package ru.practicum.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.model.HitFilter;
+import ru.practicum.repository.HitJdbcRepository;
+import ru.practicum.repository.IpCodec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+@Service
+public class HitExportService {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final HitJdbcRepository hitJdbcRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Optional<HitCompactionService> hitCompactionService;
+
+    @Autowired
+    public HitExportService(HitJdbcRepository hitJdbcRepository,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            Optional<HitCompactionService> hitCompactionService) {
+        this.hitJdbcRepository = hitJdbcRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.hitCompactionService = hitCompactionService;
+    }
+
+    public HitFilter toFilter(String app, String start, String end, Long afterId, Integer limit) {
+        LocalDateTime startTime = parseTime(start);
+        LocalDateTime endTime = parseTime(end);
+        if (startTime != null && endTime != null && startTime.isAfter(endTime)) {
+            throw new RuntimeException("Ошибка: время начала задано позже времени окончания.");
+        }
+        if (limit != null && limit < 1) {
+            throw new RuntimeException("Ошибка: limit должен быть больше 0.");
+        }
+        if (hitCompactionService.isPresent()) {
+            LocalDate watermark = hitCompactionService.get().getWatermark();
+            if (startTime == null ? watermark.isAfter(LocalDate.EPOCH) : startTime.toLocalDate().isBefore(watermark)) {
+                throw new RuntimeException("Ошибка: запросы до " + watermark + " сжаты и не выгружаются, " +
+                        "укажите start не раньше этой даты.");
+            }
+        }
+        return new HitFilter(app, startTime, endTime, afterId, limit);
+    }
+
+    public void writeJsonArray(HitFilter filter, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            streamHits(filter, generator, false);
+            generator.writeEndArray();
+        }
+    }
+
+    public void writeNdjson(HitFilter filter, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+            streamHits(filter, generator, true);
+        }
+    }
+
+    private void streamHits(HitFilter filter, JsonGenerator generator, boolean lineDelimited) {
+        readOnlyTransaction.executeWithoutResult(status -> hitJdbcRepository.findByFilter(filter, rs -> {
+            try {
+                writeHit(generator, rs);
+                if (lineDelimited) {
+                    generator.writeRaw('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    private static void writeHit(JsonGenerator generator, ResultSet rs) throws IOException, SQLException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", rs.getLong("id"));
+        generator.writeStringField("app", rs.getString("app"));
+        generator.writeStringField("uri", rs.getString("uri"));
+        generator.writeStringField("ip", IpCodec.decode(rs.getBytes("ip")));
+        generator.writeStringField("timestamp", rs.getTimestamp("timestamp").toLocalDateTime().format(TIME_FORMAT));
+        generator.writeNumberField("hits", rs.getInt("hits"));
+        generator.writeEndObject();
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        return LocalDateTime.parse(URLDecoder.decode(value, StandardCharsets.UTF_8), TIME_FORMAT);
+    }
+}
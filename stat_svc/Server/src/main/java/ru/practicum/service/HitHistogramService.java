@@ -0,0 +1,130 @@
+package ru.practicum.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ru.practicum.model.HistogramInterval;
+import ru.practicum.model.HistogramRequest;
+import ru.practicum.model.HitBucket;
+import ru.practicum.model.HitKey;
+import ru.practicum.repository.HitHistogramRepository;
+import ru.practicum.repository.HitRollupRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+public class HitHistogramService {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Duration ROLLUP_EDGES = Duration.ofHours(2);
+
+    private final HitHistogramRepository hitHistogramRepository;
+    private final HitBackfillService hitBackfillService;
+    private final StatsAdmission statsAdmission;
+    private final ObjectMapper objectMapper;
+    private final Optional<HitCompactionService> hitCompactionService;
+
+    @Autowired
+    public HitHistogramService(HitHistogramRepository hitHistogramRepository,
+                               HitBackfillService hitBackfillService,
+                               StatsAdmission statsAdmission,
+                               ObjectMapper objectMapper,
+                               Optional<HitCompactionService> hitCompactionService) {
+        this.hitHistogramRepository = hitHistogramRepository;
+        this.hitBackfillService = hitBackfillService;
+        this.statsAdmission = statsAdmission;
+        this.objectMapper = objectMapper;
+        this.hitCompactionService = hitCompactionService;
+    }
+
+    public HistogramRequest toRequest(String start, String end, String[] uris, String interval, boolean unique) {
+        LocalDateTime startTime = LocalDateTime.parse(URLDecoder.decode(start, StandardCharsets.UTF_8), TIME_FORMAT);
+        LocalDateTime endTime = LocalDateTime.parse(URLDecoder.decode(end, StandardCharsets.UTF_8), TIME_FORMAT);
+        if (startTime.isAfter(endTime)) {
+            throw new RuntimeException("Ошибка: время начала задано позже времени окончания.");
+        }
+        return new HistogramRequest(startTime, endTime, uris, HistogramInterval.fromUnit(interval), unique);
+    }
+
+    public void writeHistogram(HistogramRequest request, OutputStream out) throws IOException {
+        boolean rollupsReady = hitBackfillService.isComplete(HitRollupRepository.BACKFILL);
+        checkCompacted(request, rollupsReady);
+        Duration full = Duration.between(request.getStart(), request.getEnd());
+        Duration rawScan = HitHistogramRepository.usesRollups(request, rollupsReady) && full.compareTo(ROLLUP_EDGES) > 0
+                ? ROLLUP_EDGES
+                : full;
+        if (request.getUris() != null && request.getUris().length == 0) {
+            writeArray(List.of(), out);
+            return;
+        }
+        List<Map.Entry<HitBucket, Long>> series = statsAdmission.execute(
+                statsAdmission.estimateCost(rawScan, request.getUris()), () -> loadSeries(request, rollupsReady));
+        writeArray(series, out);
+    }
+
+    private void checkCompacted(HistogramRequest request, boolean rollupsReady) {
+        if (hitCompactionService.isEmpty() || !hitCompactionService.get().isCompacted(request.getStart())) {
+            return;
+        }
+        HitCompactionService compaction = hitCompactionService.get();
+        boolean rawEdges = !HitHistogramRepository.usesRollups(request, rollupsReady)
+                || !request.getStart().equals(request.getStart().truncatedTo(ChronoUnit.HOURS))
+                || compaction.isCompacted(request.getEnd())
+                && !request.getEnd().equals(request.getEnd().truncatedTo(ChronoUnit.HOURS));
+        if (rawEdges) {
+            throw new RuntimeException("Ошибка: запросы до " + compaction.getWatermark() + " сжаты, для этого периода " +
+                    "доступна только гистограмма общего числа запросов по целым часам.");
+        }
+    }
+
+    private List<Map.Entry<HitBucket, Long>> loadSeries(HistogramRequest request, boolean rollupsReady) {
+        List<Map.Entry<HitBucket, Long>> series = new ArrayList<>();
+        hitHistogramRepository.findHistogram(request, rollupsReady, rs -> series.add(Map.entry(
+                new HitBucket(rs.getString("app"), rs.getString("uri"), rs.getTimestamp("bucket").toLocalDateTime()),
+                rs.getLong("hits"))));
+        return series;
+    }
+
+    private void writeArray(List<Map.Entry<HitBucket, Long>> series, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            HitKey current = null;
+            for (Map.Entry<HitBucket, Long> entry : series) {
+                HitBucket bucket = entry.getKey();
+                HitKey key = new HitKey(bucket.getApp(), bucket.getUri());
+                if (!key.equals(current)) {
+                    if (current != null) {
+                        generator.writeEndArray();
+                        generator.writeEndObject();
+                    }
+                    current = key;
+                    generator.writeStartObject();
+                    generator.writeStringField("app", key.getApp());
+                    generator.writeStringField("uri", key.getUri());
+                    generator.writeArrayFieldStart("buckets");
+                }
+                generator.writeStartObject();
+                generator.writeStringField("start", bucket.getBucket().format(TIME_FORMAT));
+                generator.writeNumberField("hits", entry.getValue());
+                generator.writeEndObject();
+            }
+            if (current != null) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+}
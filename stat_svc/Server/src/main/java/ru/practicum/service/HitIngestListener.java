@@ -0,0 +1,9 @@
+package ru.practicum.service;
+
+import ru.practicum.dto.EndpointHit;
+
+import java.util.List;
+
+public interface HitIngestListener {
+    void onHits(List<EndpointHit> hits);
+}
@@ -0,0 +1,7 @@
+package ru.practicum.service;
+
+import ru.practicum.dto.EndpointHit;
+
+public interface HitIngestor {
+    void ingest(EndpointHit hit);
+}
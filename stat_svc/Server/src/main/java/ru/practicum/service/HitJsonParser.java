@@ -0,0 +1,231 @@
+package ru.practicum.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import ru.practicum.dto.EndpointHit;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class HitJsonParser {
+    public static final int MAX_APP_LENGTH = 100;
+    public static final int MAX_URI_LENGTH = 40;
+    public static final int MAX_IP_LENGTH = 40;
+    public static final int MAX_TIMESTAMP_LENGTH = 40;
+
+    private static final int TIMESTAMP_LENGTH = 19;
+    private static final int APP = 1;
+    private static final int URI = 2;
+    private static final int IP = 4;
+    private static final int TIMESTAMP = 8;
+
+    private final JsonParser parser;
+    private final List<String> violations = new ArrayList<>(4);
+    private boolean started;
+    private boolean array;
+    private String lastApp;
+    private EndpointHit hit;
+    private String error;
+
+    public HitJsonParser(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    public boolean next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (!started) {
+            started = true;
+            if (token == JsonToken.START_ARRAY) {
+                array = true;
+                token = parser.nextToken();
+            }
+        }
+        if (token == null || array && token == JsonToken.END_ARRAY) {
+            return false;
+        }
+        hit = read(token);
+        error = hit == null ? String.join(", ", violations) : null;
+        return true;
+    }
+
+    public EndpointHit getHit() {
+        return hit;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    private EndpointHit read(JsonToken token) throws IOException {
+        violations.clear();
+        if (token == JsonToken.VALUE_NULL) {
+            violations.add("пустой запрос");
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            violations.add("ожидался объект");
+            return null;
+        }
+        String app = null;
+        String uri = null;
+        String ip = null;
+        LocalDateTime timestamp = null;
+        int seen = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "app":
+                    seen |= APP;
+                    app = app(value);
+                    break;
+                case "uri":
+                    seen |= URI;
+                    uri = text(value, "uri", MAX_URI_LENGTH);
+                    break;
+                case "ip":
+                    seen |= IP;
+                    ip = text(value, "ip", MAX_IP_LENGTH);
+                    break;
+                case "timestamp":
+                    seen |= TIMESTAMP;
+                    timestamp = timestamp(value);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (seen != (APP | URI | IP | TIMESTAMP)) {
+            addMissing(seen, APP, "app");
+            addMissing(seen, URI, "uri");
+            addMissing(seen, IP, "ip");
+            addMissing(seen, TIMESTAMP, "timestamp");
+        }
+        if (!violations.isEmpty()) {
+            Collections.sort(violations);
+            return null;
+        }
+        EndpointHit hit = new EndpointHit();
+        hit.setApp(app);
+        hit.setUri(uri);
+        hit.setIp(ip);
+        hit.setTimestamp(timestamp);
+        return hit;
+    }
+
+    private void addMissing(int seen, int flag, String field) {
+        if ((seen & flag) == 0) {
+            violations.add(field + " не должно быть пустым");
+        }
+    }
+
+    private String app(JsonToken value) throws IOException {
+        if (!checkText(value, "app", MAX_APP_LENGTH)) {
+            return null;
+        }
+        if (lastApp != null && sameText(lastApp)) {
+            return lastApp;
+        }
+        lastApp = parser.getText();
+        return lastApp;
+    }
+
+    private String text(JsonToken value, String field, int maxLength) throws IOException {
+        return checkText(value, field, maxLength) ? parser.getText() : null;
+    }
+
+    private LocalDateTime timestamp(JsonToken value) throws IOException {
+        if (!checkText(value, "timestamp", MAX_TIMESTAMP_LENGTH)) {
+            return null;
+        }
+        LocalDateTime timestamp = parseTimestamp(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        if (timestamp == null) {
+            violations.add("timestamp имеет неверный формат");
+        }
+        return timestamp;
+    }
+
+    private boolean checkText(JsonToken value, String field, int maxLength) throws IOException {
+        if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            violations.add(field + " имеет неверный тип");
+            return false;
+        }
+        if (value == JsonToken.VALUE_NULL) {
+            violations.add(field + " не должно быть пустым");
+            return false;
+        }
+        int length = parser.getTextLength();
+        if (length > maxLength) {
+            violations.add(field + " размер должен находиться в диапазоне от 1 до " + maxLength);
+            return false;
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        for (int i = offset; i < offset + length; i++) {
+            if (!Character.isWhitespace(chars[i])) {
+                return true;
+            }
+        }
+        violations.add(field + " не должно быть пустым");
+        return false;
+    }
+
+    private boolean sameText(String text) throws IOException {
+        int length = parser.getTextLength();
+        if (length != text.length()) {
+            return false;
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static LocalDateTime parseTimestamp(char[] chars, int from, int length) {
+        if (length != TIMESTAMP_LENGTH
+                || chars[from + 4] != '-' || chars[from + 7] != '-' || chars[from + 10] != ' '
+                || chars[from + 13] != ':' || chars[from + 16] != ':') {
+            return null;
+        }
+        int year = digits(chars, from, 4);
+        int month = digits(chars, from + 5, 2);
+        int day = digits(chars, from + 8, 2);
+        int hour = digits(chars, from + 11, 2);
+        int minute = digits(chars, from + 14, 2);
+        int second = digits(chars, from + 17, 2);
+        if ((year | month | day | hour | minute | second) < 0
+                || month < 1 || month > 12 || day < 1 || day > 31) {
+            return null;
+        }
+        day = Math.min(day, Month.of(month).length(Year.isLeap(year)));
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(char[] chars, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
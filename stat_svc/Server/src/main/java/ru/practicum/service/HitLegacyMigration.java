@@ -0,0 +1,62 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.repository.HitJdbcRepository;
+import ru.practicum.repository.HitLegacyRepository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Service
+public class HitLegacyMigration {
+    private final HitLegacyRepository hitLegacyRepository;
+    private final HitJdbcRepository hitJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    @Autowired
+    public HitLegacyMigration(HitLegacyRepository hitLegacyRepository,
+                              HitJdbcRepository hitJdbcRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${stats.migration.batch-size:5000}") int batchSize) {
+        this.hitLegacyRepository = hitLegacyRepository;
+        this.hitJdbcRepository = hitJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        if (!hitLegacyRepository.exists()) {
+            return;
+        }
+        log.info("Найдена таблица запросов в старом формате, перенос в новый формат");
+        List<EndpointHit> batch = new ArrayList<>(batchSize);
+        long migrated = 0;
+        long lastId = 0;
+        while (true) {
+            long afterId = lastId;
+            lastId = transactionTemplate.execute(status -> {
+                long last = hitLegacyRepository.readAfter(afterId, batchSize, batch);
+                hitJdbcRepository.copyAll(batch);
+                hitLegacyRepository.deleteUpTo(last);
+                return last;
+            });
+            if (batch.isEmpty()) {
+                break;
+            }
+            migrated += batch.size();
+            batch.clear();
+            log.info("Перенесено {} запросов из старой таблицы", migrated);
+        }
+        hitLegacyRepository.drop();
+        log.info("Перенос запросов завершен, всего {}, старая таблица удалена", migrated);
+    }
+}
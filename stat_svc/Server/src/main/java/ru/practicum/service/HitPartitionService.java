@@ -0,0 +1,181 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.repository.DatabaseInfo;
+import ru.practicum.repository.HitPartitionRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@Slf4j
+@Service
+@DependsOn("hitLegacyMigration")
+@ConditionalOnProperty(name = "stats.partition.enabled", havingValue = "true", matchIfMissing = true)
+public class HitPartitionService {
+    private static final String PARTITION_PREFIX = "hits_p";
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter DAY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final HitPartitionRepository hitPartitionRepository;
+    private final DatabaseInfo databaseInfo;
+    private final TransactionTemplate transactionTemplate;
+    private final ChronoUnit interval;
+    private final int precreate;
+    private final int retention;
+    private final boolean dropExpired;
+
+    @Autowired
+    public HitPartitionService(HitPartitionRepository hitPartitionRepository,
+                               DatabaseInfo databaseInfo,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${stats.partition.interval:month}") String interval,
+                               @Value("${stats.partition.precreate:3}") int precreate,
+                               @Value("${stats.partition.retention:12}") int retention,
+                               @Value("${stats.partition.retention-action:detach}") String retentionAction) {
+        this.hitPartitionRepository = hitPartitionRepository;
+        this.databaseInfo = databaseInfo;
+        this.transactionTemplate = transactionTemplate;
+        this.interval = parseInterval(interval);
+        this.precreate = precreate;
+        this.retention = retention;
+        this.dropExpired = parseDropExpired(retentionAction);
+    }
+
+    @PostConstruct
+    public void init() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${stats.partition.maintenance-cron:0 5 * * * *}")
+    public void maintainPartitions() {
+        if (!databaseInfo.isPostgres() || !hitPartitionRepository.isPartitioned()) {
+            return;
+        }
+        LocalDate current = periodStart(LocalDate.now());
+        List<String> existing = hitPartitionRepository.findPartitionNames();
+        for (int i = 0; i <= precreate; i++) {
+            LocalDate periodStart = current.plus(i, interval);
+            if (!existing.contains(partitionName(periodStart, interval))) {
+                createPartition(periodStart);
+            }
+        }
+        moveDefaultRows();
+        if (retention > 0) {
+            expirePartitions(hitPartitionRepository.findPartitionNames(), current.minus(retention, interval));
+        }
+    }
+
+    private void moveDefaultRows() {
+        LocalDateTime oldest;
+        while ((oldest = hitPartitionRepository.findOldestInDefault()) != null) {
+            if (!createPartition(periodStart(oldest.toLocalDate()))) {
+                return;
+            }
+        }
+    }
+
+    private boolean createPartition(LocalDate periodStart) {
+        String name = partitionName(periodStart, interval);
+        LocalDateTime from = periodStart.atStartOfDay();
+        LocalDateTime to = periodStart.plus(1, interval).atStartOfDay();
+        try {
+            Boolean created = transactionTemplate.execute(status -> {
+                hitPartitionRepository.lockHits();
+                if (hitPartitionRepository.findPartitionNames().contains(name)) {
+                    return false;
+                }
+                if (hitPartitionRepository.defaultHasRows(from, to)) {
+                    hitPartitionRepository.movePartitionFromDefault(name, from, to);
+                    log.info("Секция {} создана, запросы перенесены из секции по умолчанию", name);
+                } else {
+                    hitPartitionRepository.createPartition(name, from, to);
+                    log.info("Секция {} создана", name);
+                }
+                return true;
+            });
+            return Boolean.TRUE.equals(created);
+        } catch (RuntimeException e) {
+            log.error("Не удалось создать секцию {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private void expirePartitions(List<String> partitions, LocalDate cutoff) {
+        for (String name : partitions) {
+            LocalDate periodEnd = partitionEnd(name);
+            if (periodEnd == null || periodEnd.isAfter(cutoff)) {
+                continue;
+            }
+            try {
+                hitPartitionRepository.detachPartition(name);
+                if (dropExpired) {
+                    hitPartitionRepository.dropTable(name);
+                    log.info("Секция {} удалена по сроку хранения", name);
+                } else {
+                    log.info("Секция {} отсоединена по сроку хранения", name);
+                }
+            } catch (RuntimeException e) {
+                log.error("Не удалось удалить секцию {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private LocalDate periodStart(LocalDate date) {
+        return interval == ChronoUnit.MONTHS ? date.withDayOfMonth(1) : date;
+    }
+
+    private static String partitionName(LocalDate periodStart, ChronoUnit interval) {
+        DateTimeFormatter suffix = interval == ChronoUnit.MONTHS ? MONTH_SUFFIX : DAY_SUFFIX;
+        return PARTITION_PREFIX + periodStart.format(suffix);
+    }
+
+    private static LocalDate partitionEnd(String name) {
+        if (!name.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        String suffix = name.substring(PARTITION_PREFIX.length());
+        if (!suffix.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        if (suffix.length() == 6) {
+            return LocalDate.parse(suffix + "01", DAY_SUFFIX).plusMonths(1);
+        }
+        if (suffix.length() == 8) {
+            return LocalDate.parse(suffix, DAY_SUFFIX).plusDays(1);
+        }
+        return null;
+    }
+
+    private static ChronoUnit parseInterval(String interval) {
+        switch (interval.toLowerCase()) {
+            case "day":
+                return ChronoUnit.DAYS;
+            case "month":
+                return ChronoUnit.MONTHS;
+            default:
+                throw new IllegalArgumentException("Неизвестный интервал секционирования: " + interval);
+        }
+    }
+
+    private static boolean parseDropExpired(String retentionAction) {
+        switch (retentionAction.toLowerCase()) {
+            case "drop":
+                return true;
+            case "detach":
+                return false;
+            default:
+                throw new IllegalArgumentException("Неизвестное действие по сроку хранения: " + retentionAction);
+        }
+    }
+}
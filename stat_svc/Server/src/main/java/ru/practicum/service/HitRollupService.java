@@ -0,0 +1,113 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.model.HitBucket;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.StatsJdbcRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Slf4j
+@Service
+@DependsOn("hitLegacyMigration")
+public class HitRollupService implements HitIngestListener {
+    private static final Comparator<HitBucket> LOCK_ORDER = Comparator.comparing(HitBucket::getUri)
+            .thenComparing(HitBucket::getApp)
+            .thenComparing(HitBucket::getBucket);
+
+    private final HitRollupRepository hitRollupRepository;
+    private final StatsJdbcRepository statsJdbcRepository;
+    private final HitBackfillService hitBackfillService;
+    private final Optional<HitCompactionService> hitCompactionService;
+
+    @Autowired
+    public HitRollupService(HitRollupRepository hitRollupRepository,
+                            StatsJdbcRepository statsJdbcRepository,
+                            HitBackfillService hitBackfillService,
+                            Optional<HitCompactionService> hitCompactionService) {
+        this.hitRollupRepository = hitRollupRepository;
+        this.statsJdbcRepository = statsJdbcRepository;
+        this.hitBackfillService = hitBackfillService;
+        this.hitCompactionService = hitCompactionService;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (hitBackfillService.register(HitRollupRepository.BACKFILL, !hitRollupRepository.isEmpty(), this::onHits)) {
+            log.info("Почасовая статистика будет восстановлена по сохраненным запросам в фоне");
+        }
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        Map<HitBucket, Long> increments = new HashMap<>();
+        for (EndpointHit hit : hits) {
+            HitBucket bucket = new HitBucket(hit.getApp(), hit.getUri(), hit.getTimestamp().truncatedTo(ChronoUnit.HOURS));
+            increments.merge(bucket, 1L, Long::sum);
+        }
+        List<Map.Entry<HitBucket, Long>> sorted = new ArrayList<>(increments.entrySet());
+        sorted.sort(Map.Entry.comparingByKey(LOCK_ORDER));
+        hitRollupRepository.incrementAll(sorted);
+    }
+
+    public boolean isReady() {
+        return hitBackfillService.isComplete(HitRollupRepository.BACKFILL);
+    }
+
+    public List<EndpointStats> getStatsNotUnique(LocalDateTime start, LocalDateTime end, String[] uris) {
+        if (!isReady()) {
+            return getRawStats(start, end, uris);
+        }
+        LocalDateTime fullStart = start.truncatedTo(ChronoUnit.HOURS);
+        if (fullStart.isBefore(start) && !isCompacted(start)) {
+            fullStart = fullStart.plusHours(1);
+        }
+        LocalDateTime fullEnd = end.truncatedTo(ChronoUnit.HOURS);
+        if (isCompacted(end)) {
+            fullEnd = fullEnd.plusHours(1);
+            end = fullEnd;
+        }
+        if (!fullStart.isBefore(fullEnd)) {
+            return getRawStats(start, end, uris);
+        }
+
+        StatsAccumulator accumulator = new StatsAccumulator();
+        if (start.isBefore(fullStart)) {
+            accumulator.addAll(getRawStatsExclusiveEnd(start, fullStart, uris));
+        }
+        accumulator.addAll(hitRollupRepository.getStats(fullStart, fullEnd, uris));
+        accumulator.addAll(getRawStats(fullEnd, end, uris));
+        return accumulator.toList();
+    }
+
+    private boolean isCompacted(LocalDateTime dateTime) {
+        return hitCompactionService.isPresent() && hitCompactionService.get().isCompacted(dateTime);
+    }
+
+    private List<EndpointStats> getRawStats(LocalDateTime start, LocalDateTime end, String[] uris) {
+        if (uris == null) {
+            return statsJdbcRepository.getStatsNotUnique(start, end);
+        }
+        return statsJdbcRepository.getStatsNotUniqueWithUris(start, end, uris);
+    }
+
+    private List<EndpointStats> getRawStatsExclusiveEnd(LocalDateTime start, LocalDateTime end, String[] uris) {
+        if (uris == null) {
+            return statsJdbcRepository.getStatsNotUniqueExclusiveEnd(start, end);
+        }
+        return statsJdbcRepository.getStatsNotUniqueWithUrisExclusiveEnd(start, end, uris);
+    }
+}
@@ -0,0 +1,203 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.model.HitDay;
+import ru.practicum.model.HitKey;
+import ru.practicum.model.UriPattern;
+import ru.practicum.repository.HitSketchRepository;
+import ru.practicum.repository.StatsJdbcRepository;
+import ru.practicum.sketch.HyperLogLog;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+@Slf4j
+@Service
+@DependsOn("hitLegacyMigration")
+public class HitSketchService implements HitIngestListener {
+    public static final int PRECISION = 12;
+    private static final String BACKFILL = "hits_hll";
+    private static final LocalTime LAST_SECOND = LocalTime.of(23, 59, 59);
+    private static final Comparator<HitDay> LOCK_ORDER = Comparator.comparing(HitDay::getUri)
+            .thenComparing(HitDay::getApp)
+            .thenComparing(HitDay::getDate);
+
+    private final Map<HitDay, HyperLogLog> buffer = new HashMap<>();
+    private final HitSketchRepository hitSketchRepository;
+    private final StatsJdbcRepository statsJdbcRepository;
+    private final HitBackfillService hitBackfillService;
+    private final TransactionTemplate transactionTemplate;
+    private final Optional<ParallelStatsExecutor> parallelStatsExecutor;
+    private Map<HitDay, HyperLogLog> flushing = Map.of();
+
+    @Autowired
+    public HitSketchService(HitSketchRepository hitSketchRepository,
+                            StatsJdbcRepository statsJdbcRepository,
+                            HitBackfillService hitBackfillService,
+                            TransactionTemplate transactionTemplate,
+                            Optional<ParallelStatsExecutor> parallelStatsExecutor) {
+        this.hitSketchRepository = hitSketchRepository;
+        this.statsJdbcRepository = statsJdbcRepository;
+        this.hitBackfillService = hitBackfillService;
+        this.transactionTemplate = transactionTemplate;
+        this.parallelStatsExecutor = parallelStatsExecutor;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (hitBackfillService.register(BACKFILL, !hitSketchRepository.isEmpty(), hits -> mergeIntoStored(toSketches(hits)))) {
+            log.info("Дневные HyperLogLog-скетчи будут восстановлены по сохраненным запросам в фоне");
+        }
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        Map<HitDay, HyperLogLog> sketches = toSketches(hits);
+        AfterCommit.run(() -> buffer(sketches));
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${stats.sketch.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<HitDay, HyperLogLog> pending;
+        synchronized (buffer) {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            pending = new HashMap<>(buffer);
+            buffer.clear();
+            flushing = pending;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> mergeIntoStored(pending));
+        } catch (RuntimeException e) {
+            log.error("Не удалось сохранить HyperLogLog-скетчи, повтор при следующем сбросе: {}", e.getMessage());
+            buffer(pending);
+        } finally {
+            synchronized (buffer) {
+                flushing = Map.of();
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return hitBackfillService.isComplete(BACKFILL);
+    }
+
+    public List<EndpointStats> getStatsUnique(LocalDate from, LocalDate to, String[] uris) {
+        if (!isReady()) {
+            LocalDateTime start = from.atStartOfDay();
+            LocalDateTime end = to.atTime(LAST_SECOND);
+            return uris == null
+                    ? statsJdbcRepository.getStatsUnique(start, end)
+                    : statsJdbcRepository.getStatsUniqueWithUris(start, end, uris);
+        }
+        Map<HitKey, HyperLogLog> buffered = findBuffered(from, to, uris);
+        Map<HitKey, HyperLogLog> merged = mergeSketches(from, to, uris);
+        mergeInto(merged, buffered);
+        StatsAccumulator accumulator = new StatsAccumulator();
+        for (Map.Entry<HitKey, HyperLogLog> entry : merged.entrySet()) {
+            accumulator.add(entry.getKey().getApp(), entry.getKey().getUri(), entry.getValue().estimate());
+        }
+        return accumulator.toList();
+    }
+
+    private Map<HitKey, HyperLogLog> mergeSketches(LocalDate from, LocalDate to, String[] uris) {
+        if (parallelStatsExecutor.isEmpty()) {
+            return hitSketchRepository.mergeSketches(from, to, uris);
+        }
+        Map<HitKey, HyperLogLog> merged = new HashMap<>();
+        for (Map<HitKey, HyperLogLog> partial : parallelStatsExecutor.get()
+                .splitByDays(from, to, (chunkFrom, chunkTo) -> hitSketchRepository.mergeSketches(chunkFrom, chunkTo, uris))) {
+            mergeInto(merged, partial);
+        }
+        return merged;
+    }
+
+    private static void mergeInto(Map<HitKey, HyperLogLog> merged, Map<HitKey, HyperLogLog> partial) {
+        for (Map.Entry<HitKey, HyperLogLog> entry : partial.entrySet()) {
+            HyperLogLog current = merged.putIfAbsent(entry.getKey(), entry.getValue());
+            if (current != null) {
+                current.merge(entry.getValue());
+            }
+        }
+    }
+
+    private Map<HitKey, HyperLogLog> findBuffered(LocalDate from, LocalDate to, String[] uris) {
+        List<String> patterns = uris == null ? null : Arrays.asList(uris);
+        Map<HitKey, HyperLogLog> found = new HashMap<>();
+        synchronized (buffer) {
+            for (Map<HitDay, HyperLogLog> sketches : List.of(flushing, buffer)) {
+                for (Map.Entry<HitDay, HyperLogLog> entry : sketches.entrySet()) {
+                    HitDay day = entry.getKey();
+                    if (day.getDate().isBefore(from) || day.getDate().isAfter(to)
+                            || patterns != null && !UriPattern.matchesAny(patterns, day.getUri())) {
+                        continue;
+                    }
+                    found.computeIfAbsent(new HitKey(day.getApp(), day.getUri()), key -> new HyperLogLog(PRECISION))
+                            .merge(entry.getValue());
+                }
+            }
+        }
+        return found;
+    }
+
+    private Map<HitDay, HyperLogLog> toSketches(List<EndpointHit> hits) {
+        Map<HitDay, HyperLogLog> sketches = new HashMap<>();
+        for (EndpointHit hit : hits) {
+            HitDay day = new HitDay(hit.getApp(), hit.getUri(), hit.getTimestamp().toLocalDate());
+            sketches.computeIfAbsent(day, d -> new HyperLogLog(PRECISION)).add(hit.getIp());
+        }
+        return sketches;
+    }
+
+    private void buffer(Map<HitDay, HyperLogLog> sketches) {
+        synchronized (buffer) {
+            for (Map.Entry<HitDay, HyperLogLog> entry : sketches.entrySet()) {
+                HyperLogLog current = buffer.putIfAbsent(entry.getKey(), entry.getValue());
+                if (current != null) {
+                    current.merge(entry.getValue());
+                }
+            }
+        }
+    }
+
+    private void mergeIntoStored(Map<HitDay, HyperLogLog> sketches) {
+        Map<HitDay, HyperLogLog> sorted = new TreeMap<>(LOCK_ORDER);
+        sorted.putAll(sketches);
+        for (Map.Entry<HitDay, HyperLogLog> entry : sorted.entrySet()) {
+            mergeIntoStored(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void mergeIntoStored(HitDay day, HyperLogLog sketch) {
+        byte[] stored = hitSketchRepository.findForUpdate(day);
+        if (stored == null) {
+            if (hitSketchRepository.insertIfAbsent(day, sketch.toBytes())) {
+                return;
+            }
+            stored = hitSketchRepository.findForUpdate(day);
+        }
+        HyperLogLog current = HyperLogLog.fromBytes(stored);
+        if (current.merge(sketch)) {
+            hitSketchRepository.update(day, current.toBytes());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.repository.HitJdbcRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class HitWriter {
+    private final HitJdbcRepository hitJdbcRepository;
+    private final HitBackfillService hitBackfillService;
+    private final List<HitIngestListener> listeners;
+
+    @Autowired
+    public HitWriter(HitJdbcRepository hitJdbcRepository,
+                     HitBackfillService hitBackfillService,
+                     List<HitIngestListener> listeners) {
+        this.hitJdbcRepository = hitJdbcRepository;
+        this.hitBackfillService = hitBackfillService;
+        this.listeners = listeners;
+    }
+
+    @Transactional
+    public void write(List<EndpointHit> hits) {
+        hitJdbcRepository.saveAll(hits);
+        notifyListeners(hits);
+    }
+
+    @Transactional
+    public void bulkWrite(List<EndpointHit> hits) {
+        hitJdbcRepository.copyAll(hits);
+        notifyListeners(hits);
+    }
+
+    @Transactional
+    public void bulkWrite(List<EndpointHit> hits, List<EndpointHit> collapsed) {
+        hitJdbcRepository.copyAll(hits);
+        saveCollapsed(collapsed);
+        if (collapsed.isEmpty()) {
+            notifyListeners(hits);
+            return;
+        }
+        List<EndpointHit> all = new ArrayList<>(hits.size() + collapsed.size());
+        all.addAll(hits);
+        all.addAll(collapsed);
+        notifyListeners(all);
+    }
+
+    @Transactional
+    public void writeCollapsed(List<EndpointHit> hits) {
+        saveCollapsed(hits);
+        notifyListeners(hits);
+    }
+
+    private void saveCollapsed(List<EndpointHit> hits) {
+        if (hitBackfillService.isIdle()) {
+            hitJdbcRepository.addRepeats(hits);
+        } else {
+            hitJdbcRepository.saveAll(hits);
+        }
+    }
+
+    private void notifyListeners(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        for (HitIngestListener listener : listeners) {
+            listener.onHits(hits);
+        }
+    }
+}
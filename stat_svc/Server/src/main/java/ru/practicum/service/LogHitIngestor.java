@@ -0,0 +1,186 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.hitlog.HitLog;
+import ru.practicum.repository.HitLogCheckpointRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "log")
+public class LogHitIngestor implements HitIngestor {
+    private final HitWriter hitWriter;
+    private final HitLogCheckpointRepository checkpointRepository;
+    private final HitDeadLetter hitDeadLetter;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String directory;
+    private final int segmentBytes;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long retryDelayMs;
+    private final int maxRetries;
+    private final boolean fsync;
+    private final Timer loadTimer;
+    private final Counter failedCounter;
+    private final Thread loader;
+    private HitLog hitLog;
+    private volatile long checkpoint;
+    private volatile boolean running = true;
+
+    @Autowired
+    public LogHitIngestor(HitWriter hitWriter,
+                          HitLogCheckpointRepository checkpointRepository,
+                          HitDeadLetter hitDeadLetter,
+                          TransactionTemplate transactionTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${stats.ingest.log.dir:./data/hit-log}") String directory,
+                          @Value("${stats.ingest.log.segment-bytes:67108864}") int segmentBytes,
+                          @Value("${stats.ingest.log.batch-size:5000}") int batchSize,
+                          @Value("${stats.ingest.log.poll-interval-ms:200}") long pollIntervalMs,
+                          @Value("${stats.ingest.log.retry-delay-ms:5000}") long retryDelayMs,
+                          @Value("${stats.ingest.log.max-retries:3}") int maxRetries,
+                          @Value("${stats.ingest.log.fsync:true}") boolean fsync) {
+        this.hitWriter = hitWriter;
+        this.checkpointRepository = checkpointRepository;
+        this.hitDeadLetter = hitDeadLetter;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.retryDelayMs = retryDelayMs;
+        this.maxRetries = maxRetries;
+        this.fsync = fsync;
+        this.loadTimer = Timer.builder("stats.ingest.log.load")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("stats.ingest.log.load.failed")
+                .register(meterRegistry);
+        this.loader = new Thread(this::runLoader, "stats-ingest-log-loader");
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        hitLog = HitLog.open(Paths.get(directory), segmentBytes);
+        Long saved = checkpointRepository.find(hitLog.getLogId());
+        checkpoint = Math.max(saved == null ? 0 : saved, hitLog.getFirstOffset());
+        Gauge.builder("stats.ingest.log.lag.bytes", this, ingestor -> ingestor.hitLog.getWriteOffset() - ingestor.checkpoint)
+                .register(meterRegistry);
+        log.info("Журнал запросов {} открыт, не загружено {} байт",
+                directory, hitLog.getWriteOffset() - checkpoint);
+        loader.start();
+    }
+
+    @Override
+    public void ingest(EndpointHit hit) {
+        try {
+            long offset = hitLog.append(hit);
+            if (fsync) {
+                hitLog.awaitDurable(offset);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать запрос в журнал", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        running = false;
+        loader.interrupt();
+        loader.join();
+        hitLog.close();
+        log.info("Журнал запросов закрыт, не загружено {} байт", hitLog.getWriteOffset() - checkpoint);
+    }
+
+    private void runLoader() {
+        List<EndpointHit> batch = new ArrayList<>(batchSize);
+        int failures = 0;
+        while (running) {
+            try {
+                long next = hitLog.read(checkpoint, batchSize, batch);
+                if (batch.isEmpty()) {
+                    TimeUnit.MILLISECONDS.sleep(pollIntervalMs);
+                    continue;
+                }
+                RuntimeException failure = load(batch, next);
+                if (failure == null) {
+                    failures = 0;
+                    checkpoint = next;
+                    hitLog.deleteBefore(next);
+                } else if (isUnavailable(failure) || ++failures <= maxRetries) {
+                    log.warn("Не удалось загрузить {} запросов из журнала, повтор через {} мс: {}",
+                            batch.size(), retryDelayMs, failure.getMessage());
+                    TimeUnit.MILLISECONDS.sleep(retryDelayMs);
+                } else {
+                    log.error("Не удалось загрузить {} запросов из журнала за {} попыток, пакет отложен: {}",
+                            batch.size(), failures, failure.getMessage());
+                    failures = 0;
+                    hitDeadLetter.park(batch);
+                    skip(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Не удалось удалить загруженные сегменты журнала: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private RuntimeException load(List<EndpointHit> batch, long next) {
+        long startNanos = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                hitWriter.bulkWrite(batch);
+                checkpointRepository.save(hitLog.getLogId(), next);
+            });
+            return null;
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            return e;
+        } finally {
+            loadTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void skip(long next) {
+        checkpoint = next;
+        try {
+            checkpointRepository.save(hitLog.getLogId(), next);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сохранить позицию журнала после пропуска пакета: {}", e.getMessage());
+        }
+    }
+
+    private static boolean isUnavailable(RuntimeException e) {
+        return e instanceof CannotCreateTransactionException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException;
+    }
+}
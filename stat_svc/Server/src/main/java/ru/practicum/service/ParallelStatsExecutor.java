@@ -0,0 +1,182 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.exceptions.ServiceUnavailableException;
+import ru.practicum.model.HitKey;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats.parallel.enabled", havingValue = "true")
+public class ParallelStatsExecutor {
+    private final StatsAdmission statsAdmission;
+    private final ThreadPoolExecutor executor;
+    private final int poolSize;
+    private final int uriSplitThreshold;
+    private final int splitDays;
+
+    @Autowired
+    public ParallelStatsExecutor(StatsAdmission statsAdmission,
+                                 @Value("${stats.parallel.pool-size:4}") int poolSize,
+                                 @Value("${stats.parallel.uri-split-threshold:20}") int uriSplitThreshold,
+                                 @Value("${stats.parallel.split-days:31}") int splitDays) {
+        if (poolSize < 1 || uriSplitThreshold < 1 || splitDays < 1) {
+            throw new IllegalArgumentException("Параметры stats.parallel должны быть больше 0");
+        }
+        this.statsAdmission = statsAdmission;
+        this.poolSize = poolSize;
+        this.uriSplitThreshold = uriSplitThreshold;
+        this.splitDays = splitDays;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "stats-parallel-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public List<EndpointStats> splitByUris(String[] uris, Function<String[], List<EndpointStats>> query) {
+        if (uris == null || uris.length < uriSplitThreshold || poolSize == 1) {
+            return query.apply(uris);
+        }
+        int chunkSize = (uris.length + poolSize - 1) / poolSize;
+        List<Supplier<List<EndpointStats>>> tasks = new ArrayList<>();
+        for (int from = 0; from < uris.length; from += chunkSize) {
+            String[] chunk = Arrays.copyOfRange(uris, from, Math.min(uris.length, from + chunkSize));
+            tasks.add(() -> query.apply(chunk));
+        }
+        Map<HitKey, EndpointStats> merged = new LinkedHashMap<>();
+        for (List<EndpointStats> partial : invokeAll(tasks)) {
+            for (EndpointStats stat : partial) {
+                merged.putIfAbsent(new HitKey(stat.getApp(), stat.getUri()), stat);
+            }
+        }
+        return merged.values().stream()
+                .sorted(Comparator.comparingLong(EndpointStats::getHits).reversed())
+                .collect(Collectors.toList());
+    }
+
+    public <T> List<T> splitByDays(LocalDate from, LocalDate to, BiFunction<LocalDate, LocalDate, T> query) {
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days <= splitDays) {
+            return List.of(query.apply(from, to));
+        }
+        List<Supplier<T>> tasks = new ArrayList<>();
+        for (LocalDate chunkFrom = from; !chunkFrom.isAfter(to); chunkFrom = chunkFrom.plusDays(splitDays)) {
+            LocalDate start = chunkFrom;
+            LocalDate end = chunkFrom.plusDays(splitDays - 1L).isAfter(to) ? to : chunkFrom.plusDays(splitDays - 1L);
+            tasks.add(() -> query.apply(start, end));
+        }
+        return invokeAll(tasks);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> List<T> invokeAll(List<Supplier<T>> tasks) {
+        long deadline = statsAdmission.deadline();
+        Chunks<T> chunks = new Chunks<>(tasks);
+        int workers = statsAdmission.tryAcquireWorkers(Math.min(poolSize, tasks.size()) - 1);
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            try {
+                futures.add(executor.submit(() -> {
+                    try {
+                        chunks.drain(task -> statsAdmission.executeChunk(deadline, task));
+                    } finally {
+                        statsAdmission.releaseWorker();
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                statsAdmission.releaseWorker();
+            }
+        }
+        try {
+            chunks.drain(Supplier::get);
+            for (Future<?> future : futures) {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("Ошибка: время выполнения запроса статистики истекло.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Ошибка: выполнение запроса статистики прервано.", e);
+        } finally {
+            chunks.stop();
+        }
+        return chunks.results();
+    }
+
+    private static class Chunks<T> {
+        private final List<Supplier<T>> tasks;
+        private final AtomicReferenceArray<T> results;
+        private final AtomicInteger next = new AtomicInteger();
+        private volatile boolean stopped;
+
+        private Chunks(List<Supplier<T>> tasks) {
+            this.tasks = tasks;
+            this.results = new AtomicReferenceArray<>(tasks.size());
+        }
+
+        private void drain(Function<Supplier<T>, T> runner) {
+            int index;
+            while (!stopped && (index = next.getAndIncrement()) < tasks.size()) {
+                try {
+                    results.set(index, runner.apply(tasks.get(index)));
+                } catch (RuntimeException e) {
+                    stopped = true;
+                    throw e;
+                }
+            }
+        }
+
+        private void stop() {
+            stopped = true;
+        }
+
+        private List<T> results() {
+            List<T> list = new ArrayList<>(tasks.size());
+            for (int i = 0; i < tasks.size(); i++) {
+                list.add(results.get(i));
+            }
+            return list;
+        }
+    }
+}
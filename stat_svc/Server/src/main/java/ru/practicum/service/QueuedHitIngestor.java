@@ -0,0 +1,198 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.dto.EndpointHit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "queue")
+public class QueuedHitIngestor implements HitIngestor {
+    private final HitWriter hitWriter;
+    private final HitDeadLetter hitDeadLetter;
+    private final BlockingQueue<EndpointHit> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long shutdownTimeoutMs;
+    private final int maxRetries;
+    private final long retryDelayMs;
+    private final Timer flushTimer;
+    private final Counter overflowCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+    private final Thread flusher;
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+    private boolean closed;
+
+    @Autowired
+    public QueuedHitIngestor(HitWriter hitWriter,
+                             HitDeadLetter hitDeadLetter,
+                             MeterRegistry meterRegistry,
+                             @Value("${stats.ingest.queue.capacity:10000}") int capacity,
+                             @Value("${stats.ingest.queue.batch-size:500}") int batchSize,
+                             @Value("${stats.ingest.queue.flush-interval-ms:200}") long flushIntervalMs,
+                             @Value("${stats.ingest.queue.shutdown-timeout-ms:10000}") long shutdownTimeoutMs,
+                             @Value("${stats.ingest.queue.max-retries:3}") int maxRetries,
+                             @Value("${stats.ingest.queue.retry-delay-ms:500}") long retryDelayMs) {
+        this.hitWriter = hitWriter;
+        this.hitDeadLetter = hitDeadLetter;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.maxRetries = maxRetries;
+        this.retryDelayMs = retryDelayMs;
+        Gauge.builder("stats.ingest.queue.depth", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("stats.ingest.flush")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("stats.ingest.queue.overflow")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("stats.ingest.failed")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("stats.ingest.retried")
+                .register(meterRegistry);
+        this.flusher = new Thread(this::runFlusher, "stats-ingest-flusher");
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.start();
+    }
+
+    @Override
+    public void ingest(EndpointHit hit) {
+        closeLock.readLock().lock();
+        try {
+            if (!closed) {
+                if (queue.offer(hit)) {
+                    return;
+                }
+                overflowCounter.increment();
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        hitWriter.write(List.of(hit));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        running = false;
+        flusher.join(shutdownTimeoutMs);
+        if (flusher.isAlive()) {
+            log.warn("Поток сохранения запросов не завершился за {} мс, прерывание", shutdownTimeoutMs);
+            flusher.interrupt();
+            flusher.join();
+        }
+        List<EndpointHit> left = new ArrayList<>();
+        closeLock.writeLock().lock();
+        try {
+            queue.drainTo(left);
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        if (!left.isEmpty()) {
+            failedCounter.increment(left.size());
+            log.error("{} запросов не сохранено до остановки, откладываются в журнал недоставленных", left.size());
+            hitDeadLetter.park(left);
+        }
+        log.info("Очередь запросов на сохранение статистики освобождена");
+    }
+
+    private void runFlusher() {
+        List<EndpointHit> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                EndpointHit first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void fillBatch(List<EndpointHit> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            EndpointHit next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<EndpointHit> batch) {
+        long startNanos = System.nanoTime();
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    hitWriter.write(batch);
+                    return;
+                } catch (RuntimeException e) {
+                    boolean interrupted = attempt < maxRetries && !pause(attempt);
+                    if (attempt >= maxRetries || interrupted) {
+                        failedCounter.increment(batch.size());
+                        log.error("Не удалось сохранить пакет из {} запросов после {} попыток: {}",
+                                batch.size(), attempt + 1, e.getMessage());
+                        hitDeadLetter.park(batch);
+                        if (interrupted) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return;
+                    }
+                    retriedCounter.increment();
+                    log.warn("Не удалось сохранить пакет из {} запросов, повтор: {}", batch.size(), e.getMessage());
+                }
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            batch.clear();
+        }
+    }
+
+    private boolean pause(int attempt) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(retryDelayMs << Math.min(attempt, 10));
+            return true;
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
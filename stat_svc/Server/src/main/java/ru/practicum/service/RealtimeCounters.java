@@ -0,0 +1,130 @@
+package ru.practicum.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.model.HitKey;
+import ru.practicum.model.UriPattern;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Service
+public class RealtimeCounters {
+    public static final int SECOND_SLOTS = 300;
+    public static final int MINUTE_SLOTS = 60;
+    public static final int MAX_WINDOW_SECONDS = MINUTE_SLOTS * 60;
+
+    private final ConcurrentMap<HitKey, Series> series = new ConcurrentHashMap<>();
+
+    public void record(EndpointHit hit) {
+        long seconds = hit.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+        if (seconds <= nowSeconds() - MAX_WINDOW_SECONDS) {
+            return;
+        }
+        series.computeIfAbsent(new HitKey(hit.getApp(), hit.getUri()), key -> new Series())
+                .record(seconds);
+    }
+
+    public void recordAll(List<EndpointHit> hits) {
+        for (EndpointHit hit : hits) {
+            record(hit);
+        }
+    }
+
+    public List<EndpointStats> getStats(String[] uris, int windowSeconds) {
+        if (windowSeconds < 1 || windowSeconds > MAX_WINDOW_SECONDS) {
+            throw new RuntimeException("Ошибка: окно должно быть в диапазоне 1.." + MAX_WINDOW_SECONDS + " секунд.");
+        }
+        List<String> patterns = uris == null ? null : Arrays.asList(uris);
+        long now = nowSeconds();
+        StatsAccumulator accumulator = new StatsAccumulator();
+        for (Map.Entry<HitKey, Series> entry : series.entrySet()) {
+            HitKey key = entry.getKey();
+            if (patterns != null && !UriPattern.matchesAny(patterns, key.getUri())) {
+                continue;
+            }
+            long hits = entry.getValue().sum(now, windowSeconds);
+            if (hits > 0) {
+                accumulator.add(key.getApp(), key.getUri(), hits);
+            }
+        }
+        return accumulator.toList();
+    }
+
+    @Scheduled(fixedDelayString = "${stats.realtime.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long minute = Math.floorDiv(nowSeconds(), 60);
+        series.values().removeIf(s -> s.lastMinute() <= minute - MINUTE_SLOTS);
+    }
+
+    private static long nowSeconds() {
+        return LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static class Series {
+        private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+        private final AtomicLongArray seconds = new AtomicLongArray(SECOND_SLOTS);
+        private final AtomicLongArray minutes = new AtomicLongArray(MINUTE_SLOTS);
+
+        private void record(long epochSecond) {
+            increment(seconds, epochSecond);
+            increment(minutes, Math.floorDiv(epochSecond, 60));
+        }
+
+        private long sum(long now, int windowSeconds) {
+            if (windowSeconds <= SECOND_SLOTS) {
+                return sum(seconds, now - windowSeconds + 1, now);
+            }
+            long nowMinute = Math.floorDiv(now, 60);
+            return sum(minutes, nowMinute - (windowSeconds + 59) / 60 + 1, nowMinute);
+        }
+
+        private long lastMinute() {
+            long last = 0;
+            for (int i = 0; i < minutes.length(); i++) {
+                last = Math.max(last, minutes.get(i) >>> 32);
+            }
+            return last;
+        }
+
+        private static void increment(AtomicLongArray ring, long stamp) {
+            int index = (int) Math.floorMod(stamp, (long) ring.length());
+            while (true) {
+                long current = ring.get(index);
+                long currentStamp = current >>> 32;
+                long next;
+                if (currentStamp == stamp) {
+                    next = current + 1;
+                } else if (currentStamp < stamp) {
+                    next = (stamp << 32) | 1;
+                } else {
+                    return;
+                }
+                if (ring.compareAndSet(index, current, next)) {
+                    return;
+                }
+            }
+        }
+
+        private static long sum(AtomicLongArray ring, long fromStamp, long toStamp) {
+            long total = 0;
+            for (int i = 0; i < ring.length(); i++) {
+                long value = ring.get(i);
+                long stamp = value >>> 32;
+                if (stamp >= fromStamp && stamp <= toStamp) {
+                    total += value & COUNT_MASK;
+                }
+            }
+            return total;
+        }
+    }
+}
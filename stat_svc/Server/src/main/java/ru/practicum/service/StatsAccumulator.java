@@ -0,0 +1,34 @@
+package ru.practicum.service;
+
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.model.HitKey;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class StatsAccumulator {
+    private final Map<HitKey, Long> totals = new HashMap<>();
+
+    public StatsAccumulator add(String app, String uri, long hits) {
+        totals.merge(new HitKey(app, uri), hits, Long::sum);
+        return this;
+    }
+
+    public StatsAccumulator addAll(Collection<EndpointStats> stats) {
+        for (EndpointStats stat : stats) {
+            add(stat.getApp(), stat.getUri(), stat.getHits());
+        }
+        return this;
+    }
+
+    public List<EndpointStats> toList() {
+        return totals.entrySet().stream()
+                .map(entry -> new EndpointStats(entry.getKey().getApp(), entry.getKey().getUri(), entry.getValue()))
+                .sorted(Comparator.comparingLong(EndpointStats::getHits).reversed())
+                .collect(Collectors.toList());
+    }
+}
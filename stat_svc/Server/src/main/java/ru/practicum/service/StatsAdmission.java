@@ -0,0 +1,216 @@
+package ru.practicum.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.exceptions.ServiceUnavailableException;
+import ru.practicum.exceptions.TooManyRequestsException;
+import ru.practicum.model.UriPattern;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class StatsAdmission {
+    private static final long HOURS_IN_DAY = 24;
+    private static final String QUERY_CANCELED = "57014";
+
+    private final Semaphore slots;
+    private final Semaphore budget;
+    private final int capacity;
+    private final long costUnit;
+    private final int allUrisWeight;
+    private final int prefixWeight;
+    private final long maxWaitNanos;
+    private final long retryAfterSeconds;
+    private final long queryTimeoutNanos;
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionTemplate queryTransaction;
+    private final ThreadLocal<Long> queryDeadline = new ThreadLocal<>();
+    private final Counter admittedCounter;
+    private final Counter rejectedCounter;
+    private final Counter timedOutCounter;
+
+    @Autowired
+    public StatsAdmission(PlatformTransactionManager transactionManager,
+                          DataSource dataSource,
+                          MeterRegistry meterRegistry,
+                          @Value("${stats.admission.max-concurrent:4}") int maxConcurrent,
+                          @Value("${stats.admission.capacity:100}") int capacity,
+                          @Value("${stats.admission.cost-unit-uri-days:30}") long costUnit,
+                          @Value("${stats.admission.all-uris-weight:20}") int allUrisWeight,
+                          @Value("${stats.admission.prefix-weight:5}") int prefixWeight,
+                          @Value("${stats.admission.max-wait-ms:2000}") long maxWaitMs,
+                          @Value("${stats.admission.query-timeout-seconds:10}") int queryTimeoutSeconds) {
+        if (maxConcurrent < 1 || capacity < 1 || costUnit < 1) {
+            throw new IllegalArgumentException("Параметры stats.admission должны быть больше 0");
+        }
+        this.slots = new Semaphore(maxConcurrent, true);
+        this.budget = new Semaphore(capacity, true);
+        this.capacity = capacity;
+        this.costUnit = costUnit;
+        this.allUrisWeight = allUrisWeight;
+        this.prefixWeight = prefixWeight;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxWaitMs));
+        this.queryTimeoutNanos = TimeUnit.SECONDS.toNanos(queryTimeoutSeconds);
+        this.transactionManager = transactionManager;
+        this.queryTransaction = new TransactionTemplate(transactionManager);
+        this.queryTransaction.setReadOnly(true);
+        this.queryTransaction.setTimeout(queryTimeoutSeconds);
+        this.admittedCounter = Counter.builder("stats.admission.queries")
+                .tag("result", "admitted")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("stats.admission.queries")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+        this.timedOutCounter = Counter.builder("stats.admission.queries")
+                .tag("result", "timed_out")
+                .register(meterRegistry);
+        Gauge.builder("stats.admission.budget.available", budget, Semaphore::availablePermits)
+                .register(meterRegistry);
+        for (HikariDataSource pool : findPools(dataSource)) {
+            if (pool.getMaximumPoolSize() <= maxConcurrent) {
+                log.warn("stats.admission.max-concurrent={} не оставляет соединений для сохранения запросов: " +
+                        "пул {} размером {}", maxConcurrent, pool.getPoolName(), pool.getMaximumPoolSize());
+            }
+        }
+    }
+
+    public int estimateCost(Duration rawScan, String[] uris) {
+        long days = Math.max(1, (rawScan.toHours() + HOURS_IN_DAY - 1) / HOURS_IN_DAY);
+        long uriWeight;
+        if (uris == null) {
+            uriWeight = allUrisWeight;
+        } else {
+            uriWeight = 0;
+            for (String uri : uris) {
+                uriWeight += UriPattern.isPrefix(uri) ? prefixWeight : 1;
+            }
+        }
+        double cost = Math.ceil((double) days * uriWeight / costUnit);
+        return (int) Math.max(1, Math.min(capacity, cost));
+    }
+
+    public <T> T execute(int cost, Supplier<T> query) {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        acquire(slots, 1, deadline);
+        try {
+            acquire(budget, cost, deadline);
+            try {
+                admittedCounter.increment();
+                queryDeadline.set(System.nanoTime() + queryTimeoutNanos);
+                return inTransaction(queryTransaction, query);
+            } finally {
+                queryDeadline.remove();
+                budget.release(cost);
+            }
+        } finally {
+            slots.release();
+        }
+    }
+
+    public long deadline() {
+        Long deadline = queryDeadline.get();
+        return deadline == null ? System.nanoTime() + queryTimeoutNanos : deadline;
+    }
+
+    public int tryAcquireWorkers(int wanted) {
+        int acquired = 0;
+        while (acquired < wanted && slots.tryAcquire()) {
+            acquired++;
+        }
+        return acquired;
+    }
+
+    public void releaseWorker() {
+        slots.release();
+    }
+
+    public <T> T executeChunk(long deadline, Supplier<T> query) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw timedOut(null);
+        }
+        TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+        chunkTransaction.setReadOnly(true);
+        chunkTransaction.setTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining)));
+        return inTransaction(chunkTransaction, query);
+    }
+
+    private <T> T inTransaction(TransactionTemplate transaction, Supplier<T> query) {
+        try {
+            return transaction.execute(status -> query.get());
+        } catch (TransactionTimedOutException e) {
+            throw timedOut(e);
+        } catch (DataAccessException e) {
+            if (isTimeout(e)) {
+                throw timedOut(e);
+            }
+            throw e;
+        }
+    }
+
+    private ServiceUnavailableException timedOut(RuntimeException e) {
+        timedOutCounter.increment();
+        return new ServiceUnavailableException("Ошибка: время выполнения запроса статистики истекло.", e);
+    }
+
+    private static boolean isTimeout(DataAccessException e) {
+        if (e instanceof QueryTimeoutException) {
+            return true;
+        }
+        Throwable cause = e.getMostSpecificCause();
+        return cause instanceof SQLTimeoutException
+                || cause instanceof SQLException && QUERY_CANCELED.equals(((SQLException) cause).getSQLState());
+    }
+
+    private void acquire(Semaphore semaphore, int permits, long deadline) {
+        try {
+            if (semaphore.tryAcquire(permits, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejectedCounter.increment();
+        throw new TooManyRequestsException("Ошибка: слишком много запросов статистики, повторите позже.", retryAfterSeconds);
+    }
+
+    private static List<HikariDataSource> findPools(DataSource dataSource) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        if (dataSource instanceof HikariDataSource) {
+            pools.add((HikariDataSource) dataSource);
+        } else if (dataSource instanceof DelegatingDataSource) {
+            DataSource target = ((DelegatingDataSource) dataSource).getTargetDataSource();
+            if (target != null) {
+                pools.addAll(findPools(target));
+            }
+        } else if (dataSource instanceof AbstractRoutingDataSource) {
+            for (DataSource target : ((AbstractRoutingDataSource) dataSource).getResolvedDataSources().values()) {
+                pools.addAll(findPools(target));
+            }
+        }
+        return pools;
+    }
+}
@@ -0,0 +1,202 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.model.StatsCacheKey;
+import ru.practicum.model.UriPattern;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Service
+@ConditionalOnProperty(name = "stats.cache.enabled", havingValue = "true")
+public class StatsResultCache implements HitIngestListener {
+    private final Map<StatsCacheKey, CachedStats> entries;
+    private final Map<String, Set<StatsCacheKey>> keysByUri = new HashMap<>();
+    private final Map<String, Set<StatsCacheKey>> keysByPrefix = new HashMap<>();
+    private final Set<StatsCacheKey> allUrisKeys = new HashSet<>();
+    private final long granularitySeconds;
+    private final long ttlNanos;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+    private final Counter invalidationCounter;
+
+    @Autowired
+    public StatsResultCache(MeterRegistry meterRegistry,
+                            @Value("${stats.cache.max-size:10000}") int maxSize,
+                            @Value("${stats.cache.granularity-seconds:60}") long granularitySeconds,
+                            @Value("${stats.cache.ttl-ms:60000}") long ttlMs) {
+        if (granularitySeconds < 1) {
+            throw new IllegalArgumentException("stats.cache.granularity-seconds должен быть больше 0");
+        }
+        this.granularitySeconds = granularitySeconds;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.hitCounter = Counter.builder("stats.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("stats.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.evictionCounter = Counter.builder("stats.cache.evictions")
+                .register(meterRegistry);
+        this.invalidationCounter = Counter.builder("stats.cache.invalidations")
+                .register(meterRegistry);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StatsCacheKey, CachedStats> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                unindex(eldest.getKey());
+                evictionCounter.increment();
+                return true;
+            }
+        };
+        Gauge.builder("stats.cache.size", this, StatsResultCache::entryCount)
+                .register(meterRegistry);
+    }
+
+    public StatsCacheKey key(String[] uris, boolean unique, boolean approx, LocalDateTime start, LocalDateTime end) {
+        List<String> sortedUris = uris == null ? null : Arrays.stream(uris)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toUnmodifiableList());
+        long endSeconds = end.toEpochSecond(ZoneOffset.UTC);
+        LocalDateTime endBucket = LocalDateTime.ofEpochSecond(
+                Math.floorDiv(endSeconds, granularitySeconds) * granularitySeconds, 0, ZoneOffset.UTC);
+        return new StatsCacheKey(sortedUris, unique, approx, start, endBucket);
+    }
+
+    public List<EndpointStats> get(StatsCacheKey key, Supplier<List<EndpointStats>> loader) {
+        CachedStats loading = new CachedStats(null, 0);
+        synchronized (this) {
+            CachedStats cached = entries.get(key);
+            if (cached != null && cached.stats != null && System.nanoTime() - cached.expiresAtNanos < 0) {
+                hitCounter.increment();
+                return cached.stats;
+            }
+            if (cached == null) {
+                index(key);
+            }
+            entries.put(key, loading);
+        }
+        missCounter.increment();
+        List<EndpointStats> stats;
+        try {
+            stats = List.copyOf(loader.get());
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                if (entries.get(key) == loading) {
+                    entries.remove(key);
+                    unindex(key);
+                }
+            }
+            throw e;
+        }
+        synchronized (this) {
+            if (entries.get(key) == loading) {
+                entries.put(key, new CachedStats(stats, System.nanoTime() + ttlNanos));
+            }
+        }
+        return stats;
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        Set<String> uris = new HashSet<>();
+        for (EndpointHit hit : hits) {
+            uris.add(hit.getUri());
+        }
+        AfterCommit.run(() -> invalidate(uris));
+    }
+
+    private synchronized void invalidate(Set<String> uris) {
+        Set<StatsCacheKey> affected = new HashSet<>(allUrisKeys);
+        for (String uri : uris) {
+            addAll(affected, keysByUri.get(uri));
+            if (!keysByPrefix.isEmpty()) {
+                for (int length = 0; length <= uri.length(); length++) {
+                    addAll(affected, keysByPrefix.get(uri.substring(0, length)));
+                }
+            }
+        }
+        for (StatsCacheKey key : affected) {
+            entries.remove(key);
+            unindex(key);
+        }
+        invalidationCounter.increment(affected.size());
+    }
+
+    private void index(StatsCacheKey key) {
+        if (key.getUris() == null) {
+            allUrisKeys.add(key);
+            return;
+        }
+        for (String pattern : key.getUris()) {
+            if (UriPattern.isPrefix(pattern)) {
+                keysByPrefix.computeIfAbsent(UriPattern.prefixOf(pattern), p -> new HashSet<>()).add(key);
+            } else {
+                keysByUri.computeIfAbsent(pattern, p -> new HashSet<>()).add(key);
+            }
+        }
+    }
+
+    private void unindex(StatsCacheKey key) {
+        if (key.getUris() == null) {
+            allUrisKeys.remove(key);
+            return;
+        }
+        for (String pattern : key.getUris()) {
+            if (UriPattern.isPrefix(pattern)) {
+                removeKey(keysByPrefix, UriPattern.prefixOf(pattern), key);
+            } else {
+                removeKey(keysByUri, pattern, key);
+            }
+        }
+    }
+
+    private static void removeKey(Map<String, Set<StatsCacheKey>> index, String value, StatsCacheKey key) {
+        Set<StatsCacheKey> keys = index.get(value);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            index.remove(value);
+        }
+    }
+
+    private static void addAll(Set<StatsCacheKey> target, Set<StatsCacheKey> keys) {
+        if (keys != null) {
+            target.addAll(keys);
+        }
+    }
+
+    private synchronized int entryCount() {
+        return entries.size();
+    }
+
+    private static class CachedStats {
+        private final List<EndpointStats> stats;
+        private final long expiresAtNanos;
+
+        private CachedStats(List<EndpointStats> stats, long expiresAtNanos) {
+            this.stats = stats;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -2,38 +2,86 @@ package ru.practicum.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import ru.practicum.dto.EndpointHit;
 import ru.practicum.dto.EndpointHitDto;
 import ru.practicum.dto.EndpointHitMapper;
 import ru.practicum.dto.EndpointStats;
 import ru.practicum.dto.RequestParamDto;
-import ru.practicum.repository.StatsJpaRepository;
+import ru.practicum.model.UriPattern;
+import ru.practicum.repository.StatsJdbcRepository;
 
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 public class StatsService {
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final LocalTime LAST_SECOND = LocalTime.of(23, 59, 59);
+    private static final Duration BITMAP_EDGES = Duration.ofDays(2);
+    private static final Duration ROLLUP_EDGES = Duration.ofHours(2);
 
-    private final StatsJpaRepository statsJpaRepository;
+    private final StatsJdbcRepository statsJdbcRepository;
+    private final HitIngestor hitIngestor;
+    private final HitWriter hitWriter;
+    private final HitRollupService hitRollupService;
+    private final HitSketchService hitSketchService;
+    private final Optional<HitCounterIndex> hitCounterIndex;
+    private final Optional<StatsResultCache> statsResultCache;
+    private final RealtimeCounters realtimeCounters;
+    private final Optional<HitDeduplicator> hitDeduplicator;
+    private final Optional<HitCompactionService> hitCompactionService;
+    private final StatsAdmission statsAdmission;
+    private final Optional<HitBitmapService> hitBitmapService;
+    private final Optional<ParallelStatsExecutor> parallelStatsExecutor;
 
     @Autowired
-    public StatsService(StatsJpaRepository statsJpaRepository) {
-        this.statsJpaRepository = statsJpaRepository;
+    public StatsService(StatsJdbcRepository statsJdbcRepository,
+                        HitIngestor hitIngestor,
+                        HitWriter hitWriter,
+                        HitRollupService hitRollupService,
+                        HitSketchService hitSketchService,
+                        Optional<HitCounterIndex> hitCounterIndex,
+                        Optional<StatsResultCache> statsResultCache,
+                        RealtimeCounters realtimeCounters,
+                        Optional<HitDeduplicator> hitDeduplicator,
+                        Optional<HitCompactionService> hitCompactionService,
+                        StatsAdmission statsAdmission,
+                        Optional<HitBitmapService> hitBitmapService,
+                        Optional<ParallelStatsExecutor> parallelStatsExecutor) {
+        this.statsJdbcRepository = statsJdbcRepository;
+        this.hitIngestor = hitIngestor;
+        this.hitWriter = hitWriter;
+        this.hitRollupService = hitRollupService;
+        this.hitSketchService = hitSketchService;
+        this.hitCounterIndex = hitCounterIndex;
+        this.statsResultCache = statsResultCache;
+        this.realtimeCounters = realtimeCounters;
+        this.hitDeduplicator = hitDeduplicator;
+        this.hitCompactionService = hitCompactionService;
+        this.statsAdmission = statsAdmission;
+        this.hitBitmapService = hitBitmapService;
+        this.parallelStatsExecutor = parallelStatsExecutor;
     }
 
     public void saveHit(EndpointHitDto hitDto) {
-        statsJpaRepository.save(EndpointHitMapper.toHit(hitDto));
+        saveHit(EndpointHitMapper.toHit(hitDto));
     }
 
-    public List<EndpointHitDto> getAllHits() {
-        return statsJpaRepository.findAll().stream()
-                .map(EndpointHitMapper::toDto)
-                .collect(Collectors.toList());
+    public void saveHit(EndpointHit hit) {
+        if (hitDeduplicator.isPresent() && !hitDeduplicator.get().accept(hit)) {
+            hitWriter.writeCollapsed(List.of(hit));
+            realtimeCounters.record(hit);
+            return;
+        }
+        hitIngestor.ingest(hit);
+        realtimeCounters.record(hit);
     }
 
     public List<EndpointStats> getStats(RequestParamDto requestParamDto) {
@@ -48,19 +96,86 @@ public class StatsService {
         }
 
         String[] uris = requestParamDto.getUris();
+        if (uris != null && uris.length == 0) {
+            return List.of();
+        }
+
+        boolean unique = requestParamDto.isUnique();
+        boolean approx = requestParamDto.isApprox();
+        if (unique && approx && (!start.toLocalTime().equals(LocalTime.MIDNIGHT) || !end.toLocalTime().equals(LAST_SECOND))) {
+            throw new RuntimeException("Ошибка: приближенный подсчет уникальных IP ведется по целым суткам, " +
+                    "задайте start с временем 00:00:00 и end с временем 23:59:59.");
+        }
+        List<EndpointStats> stats;
+        int cost = statsAdmission.estimateCost(rawScan(start, end, unique, approx), uris);
+        Supplier<List<EndpointStats>> loader = () -> statsAdmission.execute(cost,
+                () -> loadStats(start, end, uris, unique, approx));
+        if (statsResultCache.isEmpty()) {
+            stats = loader.get();
+        } else {
+            StatsResultCache cache = statsResultCache.get();
+            stats = cache.get(cache.key(uris, unique, approx, start, end), loader);
+        }
+        if (requestParamDto.isGroupByPrefix() && uris != null && UriPattern.hasPrefix(uris)) {
+            return groupByPrefix(stats, uris);
+        }
+        return stats;
+    }
+
+    private List<EndpointStats> groupByPrefix(List<EndpointStats> stats, String[] uris) {
+        StatsAccumulator accumulator = new StatsAccumulator();
+        for (EndpointStats stat : stats) {
+            accumulator.add(stat.getApp(), UriPattern.groupOf(uris, stat.getUri()), stat.getHits());
+        }
+        return accumulator.toList();
+    }
+
+    private Duration rawScan(LocalDateTime start, LocalDateTime end, boolean unique, boolean approx) {
+        Duration full = Duration.between(start, end);
+        if (unique) {
+            if (approx) {
+                return hitSketchService.isReady() ? Duration.ZERO : full;
+            }
+            if (hitBitmapService.isPresent() && hitBitmapService.get().isReady()) {
+                return min(full, BITMAP_EDGES);
+            }
+            return full;
+        }
+        if (hitCounterIndex.isPresent() || hitRollupService.isReady()) {
+            return min(full, ROLLUP_EDGES);
+        }
+        return full;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
 
-        if (requestParamDto.isUnique()) {
+    private List<EndpointStats> loadStats(LocalDateTime start, LocalDateTime end, String[] uris,
+                                          boolean unique, boolean approx) {
+        if (unique) {
+            if (approx) {
+                return hitSketchService.getStatsUnique(start.toLocalDate(), end.toLocalDate(), uris);
+            }
+            if (hitBitmapService.isPresent() && hitBitmapService.get().isReady()) {
+                return hitBitmapService.get().getStatsUnique(start, end, uris);
+            }
+            if (hitCompactionService.isPresent() && hitCompactionService.get().isCompacted(start)) {
+                return hitCompactionService.get().getStatsUnique(start, end, uris);
+            }
             if (uris == null) {
-                return statsJpaRepository.getStatsUnique(start, end);
+                return statsJdbcRepository.getStatsUnique(start, end);
+            } else if (parallelStatsExecutor.isPresent()) {
+                return parallelStatsExecutor.get().splitByUris(uris,
+                        chunk -> statsJdbcRepository.getStatsUniqueWithUris(start, end, chunk));
             } else {
-                return statsJpaRepository.getStatsUniqueWithUris(start, end, uris);
+                return statsJdbcRepository.getStatsUniqueWithUris(start, end, uris);
             }
         } else {
-            if (uris == null) {
-                return statsJpaRepository.getStatsNotUnique(start, end);
-            } else {
-                return statsJpaRepository.getStatsNotUniqueWithUris(start, end, uris);
+            if (hitCounterIndex.isPresent()) {
+                return hitCounterIndex.get().getStatsNotUnique(start, end, uris);
             }
+            return hitRollupService.getStatsNotUnique(start, end, uris);
         }
     }
 }
\ No newline at end of file
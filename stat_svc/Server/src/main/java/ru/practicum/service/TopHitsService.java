@@ -0,0 +1,176 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.model.HitKey;
+import ru.practicum.repository.HitJdbcRepository;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.sketch.SpaceSaving;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+@DependsOn({"hitLegacyMigration", "hitRollupService"})
+public class TopHitsService implements HitIngestListener {
+    private final SlidingTop hourWindow;
+    private final SlidingTop dayWindow;
+    private final HitJdbcRepository hitJdbcRepository;
+    private final HitRollupRepository hitRollupRepository;
+    private final HitBackfillService hitBackfillService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxN;
+
+    @Autowired
+    public TopHitsService(HitJdbcRepository hitJdbcRepository,
+                          HitRollupRepository hitRollupRepository,
+                          HitBackfillService hitBackfillService,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${stats.top.capacity:1000}") int capacity,
+                          @Value("${stats.top.max-n:100}") int maxN,
+                          @Value("${stats.top.refresh-ms:1000}") long refreshMs) {
+        this.hitJdbcRepository = hitJdbcRepository;
+        this.hitRollupRepository = hitRollupRepository;
+        this.hitBackfillService = hitBackfillService;
+        this.transactionTemplate = transactionTemplate;
+        this.hourWindow = new SlidingTop(300, 12, capacity, refreshMs);
+        this.dayWindow = new SlidingTop(3600, 24, capacity, refreshMs);
+        this.maxN = Math.min(maxN, capacity);
+    }
+
+    @PostConstruct
+    public void init() {
+        long now = nowSeconds();
+        LocalDateTime hourFrom = toDateTime(hourWindow.windowStart(now));
+        LocalDateTime dayFrom = toDateTime(dayWindow.windowStart(now));
+        transactionTemplate.executeWithoutResult(status -> {
+            hitJdbcRepository.findSince(hourFrom, rs -> hourWindow.offer(
+                    new HitKey(rs.getString("app"), rs.getString("uri")),
+                    toSeconds(rs.getTimestamp("timestamp").toLocalDateTime()), rs.getLong("hits")));
+            RowCallbackHandler dayHandler = rs -> dayWindow.offer(
+                    new HitKey(rs.getString("app"), rs.getString("uri")),
+                    toSeconds(rs.getTimestamp("bucket").toLocalDateTime()), rs.getLong("hits"));
+            if (hitBackfillService.isComplete(HitRollupRepository.BACKFILL)) {
+                hitRollupRepository.findSince(dayFrom, dayHandler);
+            } else {
+                hitRollupRepository.findSinceInHits(dayFrom, dayHandler);
+            }
+        });
+        log.info("Окна самых посещаемых адресов восстановлены");
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        AfterCommit.run(() -> {
+            for (EndpointHit hit : hits) {
+                HitKey key = new HitKey(hit.getApp(), hit.getUri());
+                long seconds = toSeconds(hit.getTimestamp());
+                hourWindow.offer(key, seconds, 1);
+                dayWindow.offer(key, seconds, 1);
+            }
+        });
+    }
+
+    public List<EndpointStats> getTop(int n, String window) {
+        if (n < 1 || n > maxN) {
+            throw new RuntimeException("Ошибка: n должно быть в диапазоне 1.." + maxN + ".");
+        }
+        SlidingTop sliding;
+        if ("hour".equals(window)) {
+            sliding = hourWindow;
+        } else if ("day".equals(window)) {
+            sliding = dayWindow;
+        } else {
+            throw new RuntimeException("Ошибка: неизвестное окно " + window + ", допустимы hour и day.");
+        }
+        List<EndpointStats> result = new ArrayList<>(n);
+        for (SpaceSaving.Counter<HitKey> counter : sliding.top(n, nowSeconds())) {
+            result.add(new EndpointStats(counter.getItem().getApp(), counter.getItem().getUri(), counter.getCount()));
+        }
+        return result;
+    }
+
+    private static long toSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    private static long nowSeconds() {
+        return toSeconds(LocalDateTime.now());
+    }
+
+    private static class SlidingTop {
+        private final long slotSeconds;
+        private final SpaceSaving<HitKey>[] slots;
+        private final long[] slotNumbers;
+        private final int capacity;
+        private final long refreshNanos;
+        private SpaceSaving<HitKey> merged;
+        private long mergedSlot = Long.MIN_VALUE;
+        private long mergedAtNanos;
+        private boolean dirty;
+
+        @SuppressWarnings("unchecked")
+        private SlidingTop(long slotSeconds, int slotCount, int capacity, long refreshMs) {
+            this.slotSeconds = slotSeconds;
+            this.slots = new SpaceSaving[slotCount];
+            this.slotNumbers = new long[slotCount];
+            this.capacity = capacity;
+            this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(refreshMs);
+            for (int i = 0; i < slotCount; i++) {
+                slots[i] = new SpaceSaving<>(capacity);
+                slotNumbers[i] = Long.MIN_VALUE;
+            }
+        }
+
+        private long windowStart(long nowSeconds) {
+            return (Math.floorDiv(nowSeconds, slotSeconds) - slots.length + 1) * slotSeconds;
+        }
+
+        private synchronized void offer(HitKey key, long seconds, long weight) {
+            long slotNumber = Math.floorDiv(seconds, slotSeconds);
+            int index = (int) Math.floorMod(slotNumber, (long) slots.length);
+            if (slotNumbers[index] < slotNumber) {
+                slots[index].clear();
+                slotNumbers[index] = slotNumber;
+            } else if (slotNumbers[index] > slotNumber) {
+                return;
+            }
+            slots[index].offer(key, weight);
+            dirty = true;
+        }
+
+        private synchronized List<SpaceSaving.Counter<HitKey>> top(int n, long nowSeconds) {
+            long current = Math.floorDiv(nowSeconds, slotSeconds);
+            boolean fresh = merged != null && mergedSlot == current
+                    && (!dirty || System.nanoTime() - mergedAtNanos < refreshNanos);
+            if (!fresh) {
+                merged = new SpaceSaving<>(capacity);
+                for (int i = 0; i < slots.length; i++) {
+                    if (slotNumbers[i] > current - slots.length && slotNumbers[i] <= current) {
+                        merged.merge(slots[i]);
+                    }
+                }
+                mergedSlot = current;
+                mergedAtNanos = System.nanoTime();
+                dirty = false;
+            }
+            return merged.top(n);
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package ru.practicum.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class RoaringBitmap {
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte ARRAY = 0;
+    private static final byte BITMAP = 1;
+    private static final int ARRAY_MAX_SIZE = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    public static RoaringBitmap fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.remaining() < 5 || buffer.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Некорректное представление битовой карты");
+        }
+        RoaringBitmap bitmap = new RoaringBitmap();
+        int count = buffer.getInt();
+        bitmap.keys = new char[Math.max(count, 4)];
+        bitmap.containers = new Container[Math.max(count, 4)];
+        for (int i = 0; i < count; i++) {
+            char key = buffer.getChar();
+            byte type = buffer.get();
+            int cardinality = buffer.getInt();
+            Container container;
+            if (type == ARRAY) {
+                char[] values = new char[Math.max(cardinality, 4)];
+                for (int j = 0; j < cardinality; j++) {
+                    values[j] = buffer.getChar();
+                }
+                container = new ArrayContainer(values, cardinality);
+            } else if (type == BITMAP) {
+                long[] words = new long[BITMAP_WORDS];
+                for (int j = 0; j < BITMAP_WORDS; j++) {
+                    words[j] = buffer.getLong();
+                }
+                container = new BitmapContainer(words, cardinality);
+            } else {
+                throw new IllegalArgumentException("Некорректное представление битовой карты");
+            }
+            if (i > 0 && key <= bitmap.keys[i - 1]) {
+                throw new IllegalArgumentException("Некорректное представление битовой карты");
+            }
+            bitmap.keys[i] = key;
+            bitmap.containers[i] = container;
+        }
+        bitmap.size = count;
+        return bitmap;
+    }
+
+    public byte[] toBytes() {
+        int length = 5;
+        for (int i = 0; i < size; i++) {
+            length += 7 + containers[i].serializedSize();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(FORMAT_VERSION);
+        buffer.putInt(size);
+        for (int i = 0; i < size; i++) {
+            buffer.putChar(keys[i]);
+            containers[i].write(buffer);
+        }
+        return buffer.array();
+    }
+
+    public boolean add(int value) {
+        char key = (char) (value >>> 16);
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insert(index, key, new ArrayContainer());
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        containers[index] = container.add((char) value);
+        return containers[index].cardinality() != before;
+    }
+
+    public boolean contains(int value) {
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    public boolean merge(RoaringBitmap other) {
+        boolean changed = false;
+        for (int i = 0; i < other.size; i++) {
+            char key = other.keys[i];
+            int index = indexOf(key);
+            if (index < 0) {
+                insert(-index - 1, key, other.containers[i].copy());
+                changed = true;
+            } else {
+                int before = containers[index].cardinality();
+                containers[index] = containers[index].or(other.containers[i]);
+                changed |= containers[index].cardinality() != before;
+            }
+        }
+        return changed;
+    }
+
+    public long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insert(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private interface Container {
+        Container add(char value);
+
+        boolean contains(char value);
+
+        Container or(Container other);
+
+        int cardinality();
+
+        Container copy();
+
+        int serializedSize();
+
+        void write(ByteBuffer buffer);
+    }
+
+    private static final class ArrayContainer implements Container {
+        private char[] values;
+        private int cardinality;
+
+        private ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        private ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX_SIZE) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_MAX_SIZE));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        public Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.copy().or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] merged = new char[cardinality + array.cardinality];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < cardinality && j < array.cardinality) {
+                char left = values[i];
+                char right = array.values[j];
+                if (left < right) {
+                    merged[k++] = left;
+                    i++;
+                } else if (left > right) {
+                    merged[k++] = right;
+                    j++;
+                } else {
+                    merged[k++] = left;
+                    i++;
+                    j++;
+                }
+            }
+            while (i < cardinality) {
+                merged[k++] = values[i++];
+            }
+            while (j < array.cardinality) {
+                merged[k++] = array.values[j++];
+            }
+            if (k > ARRAY_MAX_SIZE) {
+                BitmapContainer bitmap = new BitmapContainer(new long[BITMAP_WORDS], 0);
+                for (int n = 0; n < k; n++) {
+                    bitmap.add(merged[n]);
+                }
+                return bitmap;
+            }
+            values = merged;
+            cardinality = k;
+            return this;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 4)), cardinality);
+        }
+
+        @Override
+        public int serializedSize() {
+            return cardinality * 2;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer) {
+            buffer.put(ARRAY);
+            buffer.putInt(cardinality);
+            for (int i = 0; i < cardinality; i++) {
+                buffer.putChar(values[i]);
+            }
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer(new long[BITMAP_WORDS], 0);
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+        private final long[] words;
+        private int cardinality;
+
+        private BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public Container add(char value) {
+            int index = value >>> 6;
+            long mask = 1L << value;
+            if ((words[index] & mask) == 0) {
+                words[index] |= mask;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public Container or(Container other) {
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.cardinality; i++) {
+                    add(array.values[i]);
+                }
+                return this;
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                words[i] |= otherWords[i];
+                count += Long.bitCount(words[i]);
+            }
+            cardinality = count;
+            return this;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        public int serializedSize() {
+            return BITMAP_WORDS * 8;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer) {
+            buffer.put(BITMAP);
+            buffer.putInt(cardinality);
+            for (long word : words) {
+                buffer.putLong(word);
+            }
+        }
+    }
+}
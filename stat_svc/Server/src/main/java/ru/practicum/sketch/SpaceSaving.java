@@ -0,0 +1,99 @@
+package ru.practicum.sketch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+public class SpaceSaving<T> {
+    private static final Comparator<Counter<?>> ORDER = Comparator.<Counter<?>>comparingLong(c -> c.count)
+            .thenComparingLong(c -> c.sequence);
+
+    private final int capacity;
+    private final Map<T, Counter<T>> counters;
+    private final TreeSet<Counter<?>> ordered = new TreeSet<>(ORDER);
+    private long sequence;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Размер Space-Saving должен быть больше 0");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void offer(T item, long weight) {
+        Counter<T> counter = counters.get(item);
+        if (counter != null) {
+            ordered.remove(counter);
+            counter.count += weight;
+            ordered.add(counter);
+            return;
+        }
+        long error = 0;
+        if (counters.size() >= capacity) {
+            @SuppressWarnings("unchecked")
+            Counter<T> min = (Counter<T>) ordered.pollFirst();
+            counters.remove(min.item);
+            error = min.count;
+        }
+        counter = new Counter<>(item, error + weight, error, sequence++);
+        counters.put(item, counter);
+        ordered.add(counter);
+    }
+
+    public void merge(SpaceSaving<T> other) {
+        for (Counter<T> counter : other.counters.values()) {
+            offer(counter.item, counter.count);
+        }
+    }
+
+    public List<Counter<T>> top(int n) {
+        List<Counter<T>> result = new ArrayList<>(Math.min(n, counters.size()));
+        Iterator<Counter<?>> iterator = ordered.descendingIterator();
+        while (result.size() < n && iterator.hasNext()) {
+            @SuppressWarnings("unchecked")
+            Counter<T> counter = (Counter<T>) iterator.next();
+            result.add(counter);
+        }
+        return result;
+    }
+
+    public void clear() {
+        counters.clear();
+        ordered.clear();
+    }
+
+    public static class Counter<T> {
+        private final T item;
+        private final long error;
+        private final long sequence;
+        private long count;
+
+        private Counter(T item, long count, long error, long sequence) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+            this.sequence = sequence;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+    }
+}
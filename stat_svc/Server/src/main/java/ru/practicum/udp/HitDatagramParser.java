@@ -0,0 +1,161 @@
+package ru.practicum.udp;
+
+import ru.practicum.dto.EndpointHit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+public class HitDatagramParser {
+    public static final int MAX_APP_LENGTH = 100;
+    public static final int MAX_URI_LENGTH = 40;
+    public static final int MAX_IP_LENGTH = 40;
+
+    private static final byte SEPARATOR = '|';
+    private static final byte LINE_END = '\n';
+    private static final int TIMESTAMP_LENGTH = 19;
+
+    private final byte[] scratch = new byte[MAX_APP_LENGTH];
+    private byte[] lastAppBytes = new byte[0];
+    private String lastApp;
+
+    public int parse(ByteBuffer packet, List<EndpointHit> out) {
+        int malformed = 0;
+        int position = packet.position();
+        int limit = packet.limit();
+        while (position < limit) {
+            int lineEnd = indexOf(packet, LINE_END, position, limit);
+            int next = lineEnd < 0 ? limit : lineEnd + 1;
+            int end = lineEnd < 0 ? limit : lineEnd;
+            if (end > position && packet.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end > position) {
+                EndpointHit hit = parseLine(packet, position, end);
+                if (hit == null) {
+                    malformed++;
+                } else {
+                    out.add(hit);
+                }
+            }
+            position = next;
+        }
+        packet.position(limit);
+        return malformed;
+    }
+
+    private EndpointHit parseLine(ByteBuffer packet, int from, int to) {
+        int appEnd = indexOf(packet, SEPARATOR, from, to);
+        if (appEnd < 0) {
+            return null;
+        }
+        int uriEnd = indexOf(packet, SEPARATOR, appEnd + 1, to);
+        if (uriEnd < 0) {
+            return null;
+        }
+        int ipEnd = indexOf(packet, SEPARATOR, uriEnd + 1, to);
+        if (ipEnd < 0) {
+            return null;
+        }
+        String app = app(packet, from, appEnd);
+        String uri = field(packet, appEnd + 1, uriEnd, MAX_URI_LENGTH);
+        String ip = field(packet, uriEnd + 1, ipEnd, MAX_IP_LENGTH);
+        LocalDateTime timestamp = timestamp(packet, ipEnd + 1, to);
+        if (app == null || uri == null || ip == null || timestamp == null) {
+            return null;
+        }
+        EndpointHit hit = new EndpointHit();
+        hit.setApp(app);
+        hit.setUri(uri);
+        hit.setIp(ip);
+        hit.setTimestamp(timestamp);
+        return hit;
+    }
+
+    private String app(ByteBuffer packet, int from, int to) {
+        int length = to - from;
+        if (length < 1 || length > MAX_APP_LENGTH) {
+            return null;
+        }
+        copy(packet, from, length);
+        if (length == lastAppBytes.length && Arrays.equals(scratch, 0, length, lastAppBytes, 0, length)) {
+            return lastApp;
+        }
+        String app = decode(length);
+        if (app != null) {
+            lastAppBytes = Arrays.copyOf(scratch, length);
+            lastApp = app;
+        }
+        return app;
+    }
+
+    private String field(ByteBuffer packet, int from, int to, int maxLength) {
+        int length = to - from;
+        if (length < 1 || length > maxLength) {
+            return null;
+        }
+        copy(packet, from, length);
+        return decode(length);
+    }
+
+    private void copy(ByteBuffer packet, int from, int length) {
+        for (int i = 0; i < length; i++) {
+            scratch[i] = packet.get(from + i);
+        }
+    }
+
+    private String decode(int length) {
+        for (int i = 0; i < length; i++) {
+            if (scratch[i] != ' ') {
+                return new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static LocalDateTime timestamp(ByteBuffer packet, int from, int to) {
+        if (to - from != TIMESTAMP_LENGTH
+                || packet.get(from + 4) != '-' || packet.get(from + 7) != '-' || packet.get(from + 10) != ' '
+                || packet.get(from + 13) != ':' || packet.get(from + 16) != ':') {
+            return null;
+        }
+        int year = digits(packet, from, 4);
+        int month = digits(packet, from + 5, 2);
+        int day = digits(packet, from + 8, 2);
+        int hour = digits(packet, from + 11, 2);
+        int minute = digits(packet, from + 14, 2);
+        int second = digits(packet, from + 17, 2);
+        if ((year | month | day | hour | minute | second) < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(ByteBuffer packet, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = packet.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int indexOf(ByteBuffer packet, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (packet.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
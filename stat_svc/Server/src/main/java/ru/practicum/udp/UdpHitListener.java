@@ -0,0 +1,222 @@
+package ru.practicum.udp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import ru.practicum.cluster.ClusterRouter;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.service.HitBatchService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats.udp.enabled", havingValue = "true")
+public class UdpHitListener {
+    private static final int MAX_DATAGRAM_BYTES = 65536;
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+    private static final String[] PROC_NET_UDP = {"/proc/net/udp", "/proc/net/udp6"};
+    private static final int PROC_LOCAL_ADDRESS = 1;
+    private static final int PROC_DROPS = 12;
+
+    private final HitBatchService hitBatchService;
+    private final Optional<ClusterRouter> clusterRouter;
+    private final MeterRegistry meterRegistry;
+    private final String host;
+    private final int port;
+    private final int receiveBufferBytes;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final BlockingQueue<EndpointHit> queue;
+    private final Counter receivedCounter;
+    private final Counter parsedCounter;
+    private final Counter savedCounter;
+    private final Counter malformedCounter;
+    private final Counter overflowCounter;
+    private final Counter failedCounter;
+    private final Thread receiver;
+    private final Thread writer;
+    private DatagramChannel channel;
+    private int boundPort;
+    private volatile boolean running = true;
+
+    @Autowired
+    public UdpHitListener(HitBatchService hitBatchService,
+                          Optional<ClusterRouter> clusterRouter,
+                          MeterRegistry meterRegistry,
+                          @Value("${stats.udp.host:0.0.0.0}") String host,
+                          @Value("${stats.udp.port:9091}") int port,
+                          @Value("${stats.udp.receive-buffer-bytes:4194304}") int receiveBufferBytes,
+                          @Value("${stats.udp.queue-capacity:100000}") int queueCapacity,
+                          @Value("${stats.udp.batch-size:5000}") int batchSize,
+                          @Value("${stats.udp.flush-interval-ms:200}") long flushIntervalMs) {
+        this.hitBatchService = hitBatchService;
+        this.clusterRouter = clusterRouter;
+        this.meterRegistry = meterRegistry;
+        this.host = host;
+        this.port = port;
+        this.receiveBufferBytes = receiveBufferBytes;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("stats.udp.queue.depth", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        this.receivedCounter = Counter.builder("stats.udp.packets.received")
+                .register(meterRegistry);
+        this.parsedCounter = Counter.builder("stats.udp.hits.parsed")
+                .register(meterRegistry);
+        this.savedCounter = Counter.builder("stats.udp.hits.saved")
+                .register(meterRegistry);
+        this.malformedCounter = Counter.builder("stats.udp.hits.dropped")
+                .tag("reason", "malformed")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("stats.udp.hits.dropped")
+                .tag("reason", "overflow")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("stats.udp.hits.dropped")
+                .tag("reason", "failed")
+                .register(meterRegistry);
+        this.receiver = new Thread(this::runReceiver, "stats-udp-receiver");
+        this.writer = new Thread(this::runWriter, "stats-udp-writer");
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        channel = DatagramChannel.open();
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferBytes);
+        channel.bind(new InetSocketAddress(host, port));
+        boundPort = ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        Gauge.builder("stats.udp.kernel.drops", this, UdpHitListener::kernelDrops)
+                .register(meterRegistry);
+        writer.start();
+        receiver.start();
+        log.info("Прием запросов по UDP запущен на {}", channel.getLocalAddress());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        channel.close();
+        receiver.join(SHUTDOWN_TIMEOUT_MS);
+        writer.join(SHUTDOWN_TIMEOUT_MS);
+        log.info("Прием запросов по UDP остановлен, не сохранено {} запросов", queue.size());
+    }
+
+    int getPort() {
+        return boundPort;
+    }
+
+    private void runReceiver() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_BYTES);
+        HitDatagramParser parser = new HitDatagramParser();
+        List<EndpointHit> hits = new ArrayList<>();
+        while (running) {
+            try {
+                buffer.clear();
+                if (channel.receive(buffer) == null) {
+                    continue;
+                }
+                receivedCounter.increment();
+                buffer.flip();
+                int malformed = parser.parse(buffer, hits);
+                if (malformed > 0) {
+                    malformedCounter.increment(malformed);
+                }
+                enqueue(hits);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.error("Ошибка приема UDP-пакета: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void enqueue(List<EndpointHit> hits) {
+        parsedCounter.increment(hits.size());
+        for (EndpointHit hit : hits) {
+            if (!queue.offer(hit)) {
+                overflowCounter.increment();
+            }
+        }
+        hits.clear();
+    }
+
+    private void runWriter() {
+        List<EndpointHit> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                EndpointHit first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<EndpointHit> batch) {
+        try {
+            if (clusterRouter.isPresent()) {
+                clusterRouter.get().saveHits(batch);
+            } else {
+                hitBatchService.writeHits(batch);
+            }
+            savedCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            log.error("Не удалось сохранить {} запросов, полученных по UDP: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private double kernelDrops() {
+        String suffix = String.format(":%04X", boundPort);
+        long drops = 0;
+        boolean found = false;
+        for (String file : PROC_NET_UDP) {
+            Path path = Paths.get(file);
+            if (!Files.isReadable(path)) {
+                continue;
+            }
+            try {
+                for (String line : Files.readAllLines(path)) {
+                    String[] fields = line.trim().split("\\s+");
+                    if (fields.length > PROC_DROPS && fields[PROC_LOCAL_ADDRESS].endsWith(suffix)) {
+                        drops += Long.parseLong(fields[PROC_DROPS]);
+                        found = true;
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return found ? drops : Double.NaN;
+    }
+}
@@ -0,0 +1,46 @@
+CREATE TABLE IF NOT EXISTS hit_apps (
+     id INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+     name VARCHAR(100) NOT NULL,
+     CONSTRAINT pk_hit_apps PRIMARY KEY (id),
+     CONSTRAINT uq_hit_apps_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS hit_uris (
+     id INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+     uri VARCHAR(40) NOT NULL,
+     CONSTRAINT pk_hit_uris PRIMARY KEY (id),
+     CONSTRAINT uq_hit_uris_uri UNIQUE (uri)
+);
+
+CREATE TABLE IF NOT EXISTS hits (
+     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+     app_id INTEGER NOT NULL,
+     uri_id INTEGER NOT NULL,
+     ip VARBINARY(64) NOT NULL,
+     timestamp TIMESTAMP NOT NULL,
+     hits INTEGER DEFAULT 1 NOT NULL,
+     CONSTRAINT pk_hits PRIMARY KEY (id)
+);
+
+ALTER TABLE hits ADD COLUMN IF NOT EXISTS hits INTEGER DEFAULT 1 NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_hits_timestamp ON hits (timestamp);
+
+CREATE INDEX IF NOT EXISTS idx_hits_uri_timestamp ON hits (uri_id, timestamp, app_id, ip);
+
+CREATE TABLE IF NOT EXISTS hits_daily_ips (
+     uri_id INTEGER NOT NULL,
+     app_id INTEGER NOT NULL,
+     hit_date DATE NOT NULL,
+     ip VARBINARY(64) NOT NULL,
+     CONSTRAINT pk_hits_daily_ips PRIMARY KEY (uri_id, hit_date, app_id, ip)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hits_daily_ips_hit_date ON hits_daily_ips (hit_date);
+
+CREATE TABLE IF NOT EXISTS hit_ips (
+     id INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+     ip VARBINARY(64) NOT NULL,
+     CONSTRAINT pk_hit_ips PRIMARY KEY (id),
+     CONSTRAINT uq_hit_ips_ip UNIQUE (ip)
+);
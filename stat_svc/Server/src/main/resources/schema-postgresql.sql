@@ -0,0 +1,65 @@
+DO '
+DECLARE
+    child regclass;
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = ''hits'' AND column_name = ''app'')
+            AND to_regclass(''stats_legacy.hits'') IS NULL THEN
+        CREATE SCHEMA IF NOT EXISTS stats_legacy;
+        FOR child IN SELECT inhrelid::regclass FROM pg_inherits WHERE inhparent = ''hits''::regclass LOOP
+            EXECUTE format(''ALTER TABLE %s SET SCHEMA stats_legacy'', child);
+        END LOOP;
+        ALTER TABLE hits SET SCHEMA stats_legacy;
+    END IF;
+END';
+
+CREATE TABLE IF NOT EXISTS hit_apps (
+     id INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+     name VARCHAR(100) NOT NULL,
+     CONSTRAINT pk_hit_apps PRIMARY KEY (id),
+     CONSTRAINT uq_hit_apps_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS hit_uris (
+     id INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+     uri VARCHAR(40) NOT NULL,
+     CONSTRAINT pk_hit_uris PRIMARY KEY (id),
+     CONSTRAINT uq_hit_uris_uri UNIQUE (uri)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hit_uris_uri_pattern ON hit_uris (uri varchar_pattern_ops);
+
+CREATE TABLE IF NOT EXISTS hits (
+     id BIGSERIAL NOT NULL,
+     app_id INTEGER NOT NULL,
+     uri_id INTEGER NOT NULL,
+     ip BYTEA NOT NULL,
+     timestamp TIMESTAMP NOT NULL,
+     hits INTEGER DEFAULT 1 NOT NULL,
+     CONSTRAINT pk_hits PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE IF NOT EXISTS hits_default PARTITION OF hits DEFAULT;
+
+ALTER TABLE hits ADD COLUMN IF NOT EXISTS hits INTEGER DEFAULT 1 NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_hits_timestamp_brin ON hits USING BRIN (timestamp);
+
+CREATE INDEX IF NOT EXISTS idx_hits_uri_timestamp ON hits (uri_id, timestamp) INCLUDE (app_id, ip);
+
+CREATE TABLE IF NOT EXISTS hits_daily_ips (
+     uri_id INTEGER NOT NULL,
+     app_id INTEGER NOT NULL,
+     hit_date DATE NOT NULL,
+     ip BYTEA NOT NULL,
+     CONSTRAINT pk_hits_daily_ips PRIMARY KEY (uri_id, hit_date, app_id, ip)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hits_daily_ips_hit_date ON hits_daily_ips (hit_date);
+
+CREATE TABLE IF NOT EXISTS hit_ips (
+     id INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+     ip BYTEA NOT NULL,
+     CONSTRAINT pk_hit_ips PRIMARY KEY (id),
+     CONSTRAINT uq_hit_ips_ip UNIQUE (ip)
+);
@@ -1,10 +1,48 @@
-DROP TABLE IF EXISTS hits CASCADE;
+CREATE TABLE IF NOT EXISTS hits_hourly (
+     app VARCHAR(100) NOT NULL,
+     uri VARCHAR(40) NOT NULL,
+     bucket TIMESTAMP NOT NULL,
+     hits BIGINT NOT NULL,
+     CONSTRAINT pk_hits_hourly PRIMARY KEY (uri, app, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hits_hourly_bucket ON hits_hourly (bucket);
 
-CREATE TABLE IF NOT EXISTS hits (
-     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+CREATE TABLE IF NOT EXISTS hits_hll (
      app VARCHAR(100) NOT NULL,
      uri VARCHAR(40) NOT NULL,
-     ip VARCHAR(40) NOT NULL,
-     timestamp DATE NOT NULL,
-     CONSTRAINT pk_hits PRIMARY KEY (id)
-);
\ No newline at end of file
+     hit_date DATE NOT NULL,
+     sketch BYTEA NOT NULL,
+     CONSTRAINT pk_hits_hll PRIMARY KEY (uri, app, hit_date)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hits_hll_hit_date ON hits_hll (hit_date);
+
+CREATE TABLE IF NOT EXISTS hits_ip_bitmaps (
+     app VARCHAR(100) NOT NULL,
+     uri VARCHAR(40) NOT NULL,
+     hit_date DATE NOT NULL,
+     bitmap BYTEA NOT NULL,
+     CONSTRAINT pk_hits_ip_bitmaps PRIMARY KEY (uri, app, hit_date)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hits_ip_bitmaps_hit_date ON hits_ip_bitmaps (hit_date);
+
+CREATE TABLE IF NOT EXISTS hit_log_checkpoint (
+     log_id VARCHAR(36) NOT NULL,
+     log_offset BIGINT NOT NULL,
+     CONSTRAINT pk_hit_log_checkpoint PRIMARY KEY (log_id)
+);
+
+CREATE TABLE IF NOT EXISTS hit_compaction (
+     tier VARCHAR(20) NOT NULL,
+     compacted_before DATE NOT NULL,
+     CONSTRAINT pk_hit_compaction PRIMARY KEY (tier)
+);
+
+CREATE TABLE IF NOT EXISTS hit_backfill (
+     name VARCHAR(40) NOT NULL,
+     cutoff_id BIGINT NOT NULL,
+     backfilled_id BIGINT NOT NULL,
+     CONSTRAINT pk_hit_backfill PRIMARY KEY (name)
+);
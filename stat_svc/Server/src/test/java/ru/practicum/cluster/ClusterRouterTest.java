@@ -0,0 +1,199 @@
+package ru.practicum.cluster;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.EwmStatsServer;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.dto.HitBatchResult;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterRouterTest {
+    private static final int NODES = 2;
+    private static final int URIS = 10;
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private static final List<String> urls = new ArrayList<>();
+    private static final RestTemplate rest = new RestTemplate();
+    private static LocalDateTime now;
+
+    @BeforeAll
+    static void startCluster() throws IOException {
+        List<Integer> ports = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            ports.add(freePort());
+            urls.add("http://localhost:" + ports.get(i));
+        }
+        for (int i = 0; i < NODES; i++) {
+            contexts.add(new SpringApplicationBuilder(EwmStatsServer.class)
+                    .profiles("test")
+                    .run("--server.port=" + ports.get(i),
+                            "--spring.datasource.url=jdbc:h2:mem:clusterNode" + i,
+                            "--stats.cluster.enabled=true",
+                            "--stats.cluster.nodes=" + String.join(",", urls),
+                            "--stats.cluster.self-index=" + i));
+        }
+        now = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < URIS; i++) {
+            for (int hit = 0; hit <= i; hit++) {
+                postHit(urls.get(hit % NODES), "/cluster/" + i, "10.6.0." + hit);
+            }
+        }
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void storesEachUriOnItsOwnerOnly() {
+        ClusterTopology topology = contexts.get(0).getBean(ClusterTopology.class);
+        int total = 0;
+        for (int node = 0; node < NODES; node++) {
+            Map<String, Long> local = toMap(stats(urls.get(node), true));
+            assertFalse(local.isEmpty(), urls.get(node));
+            for (String uri : local.keySet()) {
+                assertEquals(node, topology.ownerOf("cluster-app", uri), uri);
+            }
+            total += local.size();
+        }
+        assertEquals(URIS, total);
+    }
+
+    @Test
+    void mergesStatsFromAllNodes() {
+        for (String url : urls) {
+            Map<String, Long> merged = toMap(stats(url, false));
+            assertEquals(URIS, merged.size());
+            for (int i = 0; i < URIS; i++) {
+                assertEquals(i + 1, merged.get("/cluster/" + i));
+            }
+        }
+    }
+
+    @Test
+    void mergesRealtimeCountersFromAllNodes() {
+        EndpointStats[] stats = get(urls.get(1) + "/stats/realtime?uris={uris}&window=3600", false, "/cluster/*");
+
+        Map<String, Long> merged = toMap(stats);
+        assertEquals(URIS, merged.size());
+        assertEquals(URIS, merged.get("/cluster/" + (URIS - 1)));
+    }
+
+    @Test
+    void mergesTopFromAllNodes() {
+        EndpointStats[] top = get(urls.get(0) + "/stats/top?n={n}&window=hour", false, 3);
+
+        assertEquals(3, top.length);
+        for (int i = 0; i < top.length; i++) {
+            assertEquals("/cluster/" + (URIS - 1 - i), top[i].getUri());
+            assertEquals(URIS - i, top[i].getHits());
+        }
+    }
+
+    @Test
+    void rejectsNodeLocalEndpointsWithoutLocalHeader() {
+        String histogram = "/stats/histogram?start={start}&end={end}&uris={uris}";
+        String start = now.minusHours(1).format(FORMATTER);
+        String end = now.plusHours(1).format(FORMATTER);
+
+        HttpServerErrorException e = assertThrows(HttpServerErrorException.class,
+                () -> exchange(urls.get(0) + histogram, false, String.class, start, end, "/cluster/*"));
+        assertEquals(HttpStatus.NOT_IMPLEMENTED, e.getStatusCode());
+        e = assertThrows(HttpServerErrorException.class,
+                () -> exchange(urls.get(0) + "/hits", false, String.class));
+        assertEquals(HttpStatus.NOT_IMPLEMENTED, e.getStatusCode());
+
+        assertEquals(HttpStatus.OK,
+                exchange(urls.get(0) + histogram, true, String.class, start, end, "/cluster/*").getStatusCode());
+        assertEquals(HttpStatus.OK, exchange(urls.get(1) + "/hits", true, String.class).getStatusCode());
+    }
+
+    @Test
+    void routesValidBatchElementsPastInvalidOnes() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < URIS; i++) {
+            body.append(hitJson("/cluster-batch/" + i, "10.6.1.1")).append('\n');
+            if (i == 2) {
+                body.append("{\"app\":\"cluster-app\",\"uri\":\"/cluster-batch/x\"}\n");
+            }
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+
+        HitBatchResult result = rest.postForObject(urls.get(0) + "/hit/batch",
+                new HttpEntity<>(body.toString(), headers), HitBatchResult.class);
+
+        assertEquals(URIS, result.getAccepted());
+        assertEquals(1, result.getRejected());
+        EndpointStats[] stats = get(urls.get(1) + "/stats?start={start}&end={end}&uris={uris}", false,
+                now.minusDays(1).format(FORMATTER), now.plusDays(1).format(FORMATTER), "/cluster-batch/*");
+        assertEquals(URIS, stats.length);
+    }
+
+    private static EndpointStats[] stats(String url, boolean local) {
+        return get(url + "/stats?start={start}&end={end}&uris={uris}", local,
+                now.minusDays(1).format(FORMATTER), now.plusDays(1).format(FORMATTER), "/cluster/*");
+    }
+
+    private static EndpointStats[] get(String url, boolean local, Object... variables) {
+        return exchange(url, local, EndpointStats[].class, variables).getBody();
+    }
+
+    private static <T> ResponseEntity<T> exchange(String url, boolean local, Class<T> type, Object... variables) {
+        HttpHeaders headers = new HttpHeaders();
+        if (local) {
+            headers.set(ClusterClient.LOCAL_HEADER, "true");
+        }
+        return rest.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), type, variables);
+    }
+
+    private static void postHit(String url, String uri, String ip) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        rest.postForEntity(url + "/hit", new HttpEntity<>(hitJson(uri, ip), headers), String.class);
+    }
+
+    private static String hitJson(String uri, String ip) {
+        return "{\"app\":\"cluster-app\",\"uri\":\"" + uri + "\",\"ip\":\"" + ip + "\"," +
+                "\"timestamp\":\"" + now.format(FORMATTER) + "\"}";
+    }
+
+    private static Map<String, Long> toMap(EndpointStats[] stats) {
+        Map<String, Long> byUri = new HashMap<>();
+        Arrays.stream(stats).forEach(stat -> byUri.put(stat.getUri(), stat.getHits()));
+        return byUri;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReplicaRoutingDataSourceTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HikariDataSource replica;
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @AfterEach
+    void tearDown() {
+        routingDataSource.close();
+    }
+
+    @Test
+    void routesReadOnlyTransactionsToReplica() {
+        connect(5000);
+
+        assertEquals("replica", readOnlyTransaction.execute(status -> currentNode()));
+        assertEquals(0.0, meterRegistry.get("stats.replica.lag.ms").gauge().value());
+    }
+
+    @Test
+    void keepsWritesOnPrimary() {
+        connect(5000);
+
+        assertEquals("primary", writeTransaction.execute(status -> currentNode()));
+        assertEquals("primary", currentNode());
+    }
+
+    @Test
+    void fallsBackToPrimaryWhenReplicaIsDown() {
+        connect(5000);
+        replica.close();
+        routingDataSource.checkLag();
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> currentNode()));
+        assertEquals(1.0, meterRegistry.get("stats.replica.fallback").counter().count());
+        assertEquals((double) Long.MAX_VALUE, meterRegistry.get("stats.replica.lag.ms").gauge().value());
+    }
+
+    @Test
+    void excludesReplicaLaggingBeyondLimit() {
+        connect(-1);
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> currentNode()));
+        assertEquals(1.0, meterRegistry.get("stats.replica.fallback").counter().count());
+    }
+
+    private void connect(long maxLagMs) {
+        HikariDataSource primary = dataSource("replicaRoutingPrimary", "primary");
+        replica = dataSource("replicaRoutingReplica", "replica");
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), maxLagMs, meterRegistry);
+        routingDataSource.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static HikariDataSource dataSource(String database, String node) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(database);
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(2);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20) PRIMARY KEY)");
+        jdbcTemplate.update("MERGE INTO node KEY (name) VALUES (?)", node);
+        return dataSource;
+    }
+}
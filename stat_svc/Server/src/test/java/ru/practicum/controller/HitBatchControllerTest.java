@@ -0,0 +1,57 @@
+package ru.practicum.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class HitBatchControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void savesValidHitsFromNdjsonBatchAndReportsRejectedOnes() throws Exception {
+        String body = "{\"app\":\"batch-app\",\"uri\":\"/batch/1\",\"ip\":\"10.0.0.1\",\"timestamp\":\"2024-02-01 10:00:00\"}\n" +
+                "{\"app\":\"batch-app\",\"uri\":\"/batch/1\",\"ip\":\"10.0.0.2\",\"timestamp\":\"2024-02-01 11:00:00\"}\n" +
+                "{\"uri\":\"/batch/1\",\"ip\":\"10.0.0.3\",\"timestamp\":\"2024-02-01 12:00:00\"}\n" +
+                "{\"app\":\"batch-app\",\"uri\":\"/batch/1\",\"ip\":\"10.0.0.1\",\"timestamp\":\"2024-02-01 13:00:00\"}\n";
+
+        mockMvc.perform(post("/hit/batch").contentType("application/x-ndjson").content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.accepted").value(3))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors", hasSize(1)))
+                .andExpect(jsonPath("$.errors[0]", startsWith("Запрос №3")));
+
+        mockMvc.perform(get("/stats")
+                        .param("start", "2024-02-01 00:00:00")
+                        .param("end", "2024-02-02 00:00:00")
+                        .param("uris", "/batch/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].uri").value("/batch/1"))
+                .andExpect(jsonPath("$[0].hits").value(3));
+    }
+
+    @Test
+    void acceptsJsonArrayBatch() throws Exception {
+        String body = "[{\"app\":\"batch-app\",\"uri\":\"/batch/array\",\"ip\":\"10.0.0.1\",\"timestamp\":\"2024-02-01 10:00:00\"}," +
+                "{\"app\":\"batch-app\",\"uri\":\"/batch/array\",\"ip\":\"10.0.0.2\",\"timestamp\":\"2024-02-01 10:30:00\"}]";
+
+        mockMvc.perform(post("/hit/batch").contentType("application/json").content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(0));
+    }
+}
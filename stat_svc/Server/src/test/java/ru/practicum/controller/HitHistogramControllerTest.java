@@ -0,0 +1,107 @@
+package ru.practicum.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class HitHistogramControllerTest {
+    private static boolean seeded;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void seed() throws Exception {
+        if (seeded) {
+            return;
+        }
+        postHit("/histogram/1", "10.4.0.1", "2024-03-01 10:15:00");
+        postHit("/histogram/1", "10.4.0.2", "2024-03-01 10:45:00");
+        postHit("/histogram/1", "10.4.0.1", "2024-03-01 11:20:00");
+        postHit("/histogram/1", "10.4.0.1", "2024-03-01 11:40:00");
+        postHit("/histogram/1", "10.4.0.3", "2024-03-01 12:05:00");
+        postHit("/histogram/2", "10.4.0.1", "2024-03-01 11:30:00");
+        seeded = true;
+    }
+
+    @Test
+    void combinesHourlyRollupsWithRawEdges() throws Exception {
+        histogram("2024-03-01 10:30:00", "2024-03-01 12:10:00", "hour", false, "/histogram/1")
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].uri").value("/histogram/1"))
+                .andExpect(jsonPath("$[0].buckets", hasSize(3)))
+                .andExpect(jsonPath("$[0].buckets[0].start").value("2024-03-01 10:00:00"))
+                .andExpect(jsonPath("$[0].buckets[0].hits").value(1))
+                .andExpect(jsonPath("$[0].buckets[1].start").value("2024-03-01 11:00:00"))
+                .andExpect(jsonPath("$[0].buckets[1].hits").value(2))
+                .andExpect(jsonPath("$[0].buckets[2].start").value("2024-03-01 12:00:00"))
+                .andExpect(jsonPath("$[0].buckets[2].hits").value(1));
+    }
+
+    @Test
+    void countsUniqueIpsPerBucket() throws Exception {
+        histogram("2024-03-01 00:00:00", "2024-03-01 23:59:59", "day", true, "/histogram/1")
+                .andExpect(jsonPath("$[0].buckets", hasSize(1)))
+                .andExpect(jsonPath("$[0].buckets[0].start").value("2024-03-01 00:00:00"))
+                .andExpect(jsonPath("$[0].buckets[0].hits").value(3));
+    }
+
+    @Test
+    void streamsOneSeriesPerUriForPrefix() throws Exception {
+        histogram("2024-03-01 11:00:00", "2024-03-01 11:59:59", "minute", false, "/histogram/*")
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].uri").value("/histogram/1"))
+                .andExpect(jsonPath("$[0].buckets", hasSize(2)))
+                .andExpect(jsonPath("$[0].buckets[0].start").value("2024-03-01 11:20:00"))
+                .andExpect(jsonPath("$[1].uri").value("/histogram/2"))
+                .andExpect(jsonPath("$[1].buckets[0].start").value("2024-03-01 11:30:00"));
+    }
+
+    @Test
+    void rejectsUnknownInterval() throws Exception {
+        mockMvc.perform(get("/stats/histogram")
+                        .param("start", "2024-03-01 00:00:00")
+                        .param("end", "2024-03-02 00:00:00")
+                        .param("interval", "week"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions histogram(String start, String end, String interval, boolean unique, String uri)
+            throws Exception {
+        MvcResult result = mockMvc.perform(get("/stats/histogram")
+                        .param("start", start)
+                        .param("end", end)
+                        .param("interval", interval)
+                        .param("unique", String.valueOf(unique))
+                        .param("uris", uri))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+    }
+
+    private void postHit(String uri, String ip, String timestamp) throws Exception {
+        String body = "{\"app\":\"histogram-app\",\"uri\":\"" + uri + "\",\"ip\":\"" + ip + "\"," +
+                "\"timestamp\":\"" + timestamp + "\"}";
+        mockMvc.perform(post("/hit").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "stats.cache.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StatsCacheReadYourWritesTest {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void viewsIncludeHitPostedRightBeforeRead() throws Exception {
+        getViews().andExpect(jsonPath("$", hasSize(0)));
+
+        postHit("10.3.0.1");
+        getViews().andExpect(jsonPath("$[0].hits").value(1));
+
+        postHit("10.3.0.2");
+        getViews().andExpect(jsonPath("$[0].hits").value(2));
+    }
+
+    private void postHit(String ip) throws Exception {
+        String body = "{\"app\":\"ewm-main-service\",\"uri\":\"/events/9001\",\"ip\":\"" + ip + "\"," +
+                "\"timestamp\":\"" + LocalDateTime.now().minusSeconds(1).format(TIME_FORMAT) + "\"}";
+        mockMvc.perform(post("/hit").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated());
+    }
+
+    private ResultActions getViews() throws Exception {
+        return mockMvc.perform(get("/stats")
+                        .param("start", "1970-01-01 00:00:00")
+                        .param("end", LocalDateTime.now().format(TIME_FORMAT))
+                        .param("uris", "/events/9001")
+                        .param("unique", "true"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UriPatternTest {
+    @Test
+    void treatsOnlyTrailingWildcardAsPrefix() {
+        assertTrue(UriPattern.isPrefix("/events/*"));
+        assertFalse(UriPattern.isPrefix("/events/*/comments"));
+        assertFalse(UriPattern.isPrefix("/events/1"));
+        assertEquals("/events/", UriPattern.prefixOf("/events/*"));
+        assertEquals("", UriPattern.prefixOf("*"));
+    }
+
+    @Test
+    void matchesSqlWildcardCharactersLiterally() {
+        assertTrue(UriPattern.matches("/a_b/*", "/a_b/1"));
+        assertFalse(UriPattern.matches("/a_b/*", "/axb/1"));
+        assertTrue(UriPattern.matches("/100%/*", "/100%/x"));
+        assertFalse(UriPattern.matches("/100%/*", "/1000/x"));
+        assertTrue(UriPattern.matches("/back\\slash/*", "/back\\slash/1"));
+        assertFalse(UriPattern.matches("/events/1", "/events/10"));
+    }
+
+    @Test
+    void matchesAnyPatternAndGroupsByLongestPrefix() {
+        String[] patterns = {"/events/*", "/events/1*", "/users/7"};
+
+        assertTrue(UriPattern.matchesAny(List.of(patterns), "/users/7"));
+        assertFalse(UriPattern.matchesAny(List.of(patterns), "/users/8"));
+        assertTrue(UriPattern.hasPrefix(patterns));
+        assertFalse(UriPattern.hasPrefix(new String[]{"/users/7"}));
+        assertEquals("/events/1*", UriPattern.groupOf(patterns, "/events/12"));
+        assertEquals("/events/*", UriPattern.groupOf(patterns, "/events/2"));
+        assertEquals("/users/7", UriPattern.groupOf(patterns, "/users/7"));
+    }
+
+    @Test
+    void wildcardAloneMatchesEveryUri() {
+        assertTrue(UriPattern.matches("*", "/anything"));
+        assertEquals("*", UriPattern.groupOf(new String[]{"*"}, "/anything"));
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.EndpointHit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HitDictionaryTest {
+    @Autowired
+    private HitDictionary hitDictionary;
+    @Autowired
+    private HitJdbcRepository hitJdbcRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void doesNotCacheIdsFromRolledBackTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            hitDictionary.uriIds(List.of("/dictionary/rollback"));
+            status.setRollbackOnly();
+        });
+
+        int id = transactionTemplate.execute(status -> hitDictionary.uriIds(List.of("/dictionary/rollback")))
+                .get("/dictionary/rollback");
+
+        assertEquals("/dictionary/rollback",
+                jdbcTemplate.queryForObject("SELECT uri FROM hit_uris WHERE id = ?", String.class, id));
+    }
+
+    @Test
+    void internsNewValuesInsideCallerTransactionWithoutSecondConnection() {
+        int writers = 20;
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+            ExecutorService executor = Executors.newFixedThreadPool(writers);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < writers; i++) {
+                    String uri = "/dictionary/concurrent/" + i;
+                    futures.add(executor.submit(() -> transactionTemplate.executeWithoutResult(
+                            status -> hitJdbcRepository.saveAll(List.of(hit("dictionary-app-" + uri, uri))))));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        });
+
+        assertEquals(writers, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM hits h " +
+                "JOIN hit_uris u ON u.id = h.uri_id WHERE u.uri LIKE '/dictionary/concurrent/%'", Integer.class));
+    }
+
+    private static EndpointHit hit(String app, String uri) {
+        EndpointHit hit = new EndpointHit();
+        hit.setApp(app);
+        hit.setUri(uri);
+        hit.setIp("192.168.0.1");
+        hit.setTimestamp(LocalDateTime.of(2024, 1, 1, 12, 0));
+        return hit;
+    }
+}
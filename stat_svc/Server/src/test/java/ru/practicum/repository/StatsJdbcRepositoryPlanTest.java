@@ -0,0 +1,107 @@
+package ru.practicum.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StatsJdbcRepositoryPlanTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 4, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2024, 4, 2, 0, 0);
+    private static final String[] URIS = {"/plan/1", "/plan/2"};
+    private static final String[] PREFIX = {"/plan/*"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<String> plans = new ArrayList<>();
+    private StatsJdbcRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        plans.clear();
+        repository = new StatsJdbcRepository(new ExplainingJdbcTemplate(jdbcTemplate, plans));
+    }
+
+    @Test
+    void notUniqueUsesIndex() {
+        repository.getStatsNotUnique(START, END);
+        assertIndexScan();
+    }
+
+    @Test
+    void uniqueUsesIndex() {
+        repository.getStatsUnique(START, END);
+        assertIndexScan();
+    }
+
+    @Test
+    void notUniqueWithUrisUsesIndex() {
+        repository.getStatsNotUniqueWithUris(START, END, URIS);
+        assertIndexScan();
+        repository.getStatsNotUniqueWithUris(START, END, PREFIX);
+        assertIndexScan();
+    }
+
+    @Test
+    void uniqueWithUrisUsesIndex() {
+        repository.getStatsUniqueWithUris(START, END, URIS);
+        assertIndexScan();
+        repository.getStatsUniqueWithUris(START, END, PREFIX);
+        assertIndexScan();
+    }
+
+    @Test
+    void notUniqueExclusiveEndUsesIndex() {
+        repository.getStatsNotUniqueExclusiveEnd(START, END);
+        assertIndexScan();
+    }
+
+    @Test
+    void notUniqueWithUrisExclusiveEndUsesIndex() {
+        repository.getStatsNotUniqueWithUrisExclusiveEnd(START, END, URIS);
+        assertIndexScan();
+        repository.getStatsNotUniqueWithUrisExclusiveEnd(START, END, PREFIX);
+        assertIndexScan();
+    }
+
+    private void assertIndexScan() {
+        assertEquals(1, plans.size());
+        String plan = plans.remove(0);
+        assertFalse(plan.contains("PUBLIC.HITS.tableScan"), plan);
+        assertTrue(plan.contains("PUBLIC.IDX_HITS_"), plan);
+    }
+
+    private static class ExplainingJdbcTemplate extends NamedParameterJdbcTemplate {
+        private final List<String> plans;
+
+        ExplainingJdbcTemplate(JdbcTemplate jdbcTemplate, List<String> plans) {
+            super(jdbcTemplate);
+            this.plans = plans;
+        }
+
+        @Override
+        public <T> List<T> query(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper) {
+            if (sql.startsWith("EXPLAIN ")) {
+                return super.query(sql, paramSource, rowMapper);
+            }
+            plans.add(queryForObject("EXPLAIN " + sql, paramSource, String.class));
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package ru.practicum.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = "jdbc:postgresql:.*")
+class StatsJdbcRepositoryPostgresPlanTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 4, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2024, 4, 2, 0, 0);
+    private static final String[] URIS = {"/plan/1", "/plan/2"};
+    private static final String[] PREFIX = {"/plan/*"};
+    private static final String PARTITIONS = "SELECT relid::regclass::text FROM pg_partition_tree(?::regclass) " +
+            "WHERE isleaf";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<String> plans = new ArrayList<>();
+    private StatsJdbcRepository repository;
+    private List<String> hitPartitions;
+    private List<String> timeIndexes;
+    private List<String> uriIndexes;
+
+    @BeforeEach
+    void setUp() {
+        plans.clear();
+        repository = new StatsJdbcRepository(new ExplainingJdbcTemplate(jdbcTemplate, plans));
+        hitPartitions = jdbcTemplate.queryForList(PARTITIONS, String.class, "hits");
+        timeIndexes = jdbcTemplate.queryForList(PARTITIONS, String.class, "idx_hits_timestamp_brin");
+        uriIndexes = jdbcTemplate.queryForList(PARTITIONS, String.class, "idx_hits_uri_timestamp");
+    }
+
+    @Test
+    void notUniqueUsesBrinIndex() {
+        explain(() -> repository.getStatsNotUnique(START, END));
+        assertIndexScan(timeIndexes);
+    }
+
+    @Test
+    void uniqueUsesBrinIndex() {
+        explain(() -> repository.getStatsUnique(START, END));
+        assertIndexScan(timeIndexes);
+    }
+
+    @Test
+    void notUniqueExclusiveEndUsesBrinIndex() {
+        explain(() -> repository.getStatsNotUniqueExclusiveEnd(START, END));
+        assertIndexScan(timeIndexes);
+    }
+
+    @Test
+    void notUniqueWithUrisUsesUriIndex() {
+        explain(() -> repository.getStatsNotUniqueWithUris(START, END, URIS));
+        assertIndexScan(uriIndexes);
+        explain(() -> repository.getStatsNotUniqueWithUris(START, END, PREFIX));
+        assertIndexScan(uriIndexes);
+    }
+
+    @Test
+    void uniqueWithUrisUsesUriIndex() {
+        explain(() -> repository.getStatsUniqueWithUris(START, END, URIS));
+        assertIndexScan(uriIndexes);
+        explain(() -> repository.getStatsUniqueWithUris(START, END, PREFIX));
+        assertIndexScan(uriIndexes);
+    }
+
+    @Test
+    void notUniqueWithUrisExclusiveEndUsesUriIndex() {
+        explain(() -> repository.getStatsNotUniqueWithUrisExclusiveEnd(START, END, URIS));
+        assertIndexScan(uriIndexes);
+        explain(() -> repository.getStatsNotUniqueWithUrisExclusiveEnd(START, END, PREFIX));
+        assertIndexScan(uriIndexes);
+    }
+
+    private void explain(Runnable query) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            query.run();
+        });
+    }
+
+    private void assertIndexScan(List<String> indexes) {
+        assertEquals(1, plans.size());
+        String plan = plans.remove(0);
+        for (String partition : hitPartitions) {
+            assertFalse(mentions(plan, "Seq Scan on " + partition), plan);
+        }
+        assertTrue(indexes.stream().anyMatch(index -> mentions(plan, index)), plan);
+    }
+
+    private static boolean mentions(String plan, String name) {
+        return Pattern.compile("(^|\\s)" + Pattern.quote(name) + "(\\s|$)", Pattern.MULTILINE).matcher(plan).find();
+    }
+
+    private static class ExplainingJdbcTemplate extends NamedParameterJdbcTemplate {
+        private final List<String> plans;
+
+        ExplainingJdbcTemplate(JdbcTemplate jdbcTemplate, List<String> plans) {
+            super(jdbcTemplate);
+            this.plans = plans;
+        }
+
+        @Override
+        public <T> List<T> query(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper) {
+            if (sql.startsWith("EXPLAIN ")) {
+                return super.query(sql, paramSource, rowMapper);
+            }
+            plans.add(String.join("\n", queryForList("EXPLAIN " + sql, paramSource, String.class)));
+            return List.of();
+        }
+    }
+}
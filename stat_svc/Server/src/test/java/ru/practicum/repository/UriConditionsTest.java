@@ -0,0 +1,73 @@
+package ru.practicum.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UriConditionsTest {
+    private static final List<String> URIS = List.of("/like/a_b/1", "/like/axb/1", "/like/100%/x", "/like/1000/x",
+            "/like/back\\slash/1", "/like/backXslash/1", "/like/plain");
+
+    @Autowired
+    private HitDictionary hitDictionary;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void escapesLikeWildcardsInPrefixParameter() {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
+        String condition = UriConditions.uriIn("uri", new String[]{"/a_b%c\\d*", "/plain"}, params);
+
+        assertEquals("uri IN (SELECT uri FROM hit_uris WHERE (uri LIKE :uriPrefix0 ESCAPE '\\' OR uri IN (:uris)))",
+                condition);
+        assertEquals("/a\\_b\\%c\\\\d%", params.getValue("uriPrefix0"));
+        assertEquals(List.of("/plain"), params.getValue("uris"));
+    }
+
+    @Test
+    void prefixWithUnderscoreDoesNotMatchAnyCharacter() {
+        assertEquals(Set.of("/like/a_b/1"), matching("/like/a_b/*"));
+    }
+
+    @Test
+    void prefixWithPercentDoesNotMatchAnySequence() {
+        assertEquals(Set.of("/like/100%/x"), matching("/like/100%/*"));
+    }
+
+    @Test
+    void prefixWithBackslashMatchesBackslashOnly() {
+        assertEquals(Set.of("/like/back\\slash/1"), matching("/like/back\\slash/*"));
+    }
+
+    @Test
+    void combinesPrefixesWithExactUris() {
+        assertEquals(Set.of("/like/a_b/1", "/like/axb/1", "/like/plain"), matching("/like/a*", "/like/plain"));
+    }
+
+    private Set<String> matching(String... patterns) {
+        transactionTemplate.executeWithoutResult(status -> hitDictionary.uriIds(URIS));
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = "SELECT uri FROM hit_uris WHERE " + UriConditions.uriIn("uri", patterns, params);
+        Set<String> found = new TreeSet<>(new NamedParameterJdbcTemplate(jdbcTemplate)
+                .queryForList(sql, params, String.class));
+        assertTrue(URIS.containsAll(found));
+        return found;
+    }
+}
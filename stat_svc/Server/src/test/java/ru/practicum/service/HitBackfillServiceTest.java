@@ -0,0 +1,69 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.model.HitBackfill;
+import ru.practicum.repository.HitBackfillRepository;
+import ru.practicum.repository.HitJdbcRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "stats.backfill.batch-size=7")
+@ActiveProfiles("test")
+class HitBackfillServiceTest {
+    @Autowired
+    private HitBackfillService hitBackfillService;
+    @Autowired
+    private HitBackfillRepository hitBackfillRepository;
+    @Autowired
+    private HitJdbcRepository hitJdbcRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void feedsHitsUpToCutoffInBatchesAndStoresWatermark() {
+        List<EndpointHit> stored = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            EndpointHit hit = new EndpointHit();
+            hit.setApp("backfill-app");
+            hit.setUri("/backfill/" + (i % 4));
+            hit.setIp("10.1.0." + i);
+            hit.setTimestamp(LocalDateTime.of(2024, 4, 1, 9, i));
+            stored.add(hit);
+        }
+        transactionTemplate.executeWithoutResult(status -> hitJdbcRepository.saveAll(stored));
+        List<EndpointHit> received = Collections.synchronizedList(new ArrayList<>());
+
+        assertTrue(hitBackfillService.register("test_backfill", false, received::addAll));
+        assertFalse(hitBackfillService.isComplete("test_backfill"));
+        for (int i = 0; i < 100 && !hitBackfillService.isComplete("test_backfill"); i++) {
+            hitBackfillService.backfill();
+        }
+
+        assertTrue(hitBackfillService.isComplete("test_backfill"));
+        assertEquals(20, received.stream().filter(hit -> "backfill-app".equals(hit.getApp())).count());
+        HitBackfill backfill = hitBackfillRepository.find("test_backfill");
+        assertEquals(backfill.getCutoffId(), backfill.getBackfilledId());
+    }
+
+    @Test
+    void treatsAlreadyFilledTableAsComplete() {
+        List<EndpointHit> received = new ArrayList<>();
+
+        hitBackfillService.register("test_backfill_filled", true, received::addAll);
+
+        assertTrue(hitBackfillService.isComplete("test_backfill_filled"));
+        assertTrue(received.isEmpty());
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.repository.HitBitmapRepository;
+import ru.practicum.repository.HitJdbcRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "stats.unique.bitmaps.flush-interval-ms=3600000")
+@ActiveProfiles("test")
+class HitBitmapServiceTest {
+    private static final String[] URIS = {"/bitmap/*"};
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 2);
+    private static final LocalDateTime START = DAY.atStartOfDay();
+    private static final LocalDateTime END = DAY.atTime(23, 59, 59);
+
+    @Autowired
+    private StatsService statsService;
+    @Autowired
+    private HitBitmapService hitBitmapService;
+    @Autowired
+    private HitBitmapRepository hitBitmapRepository;
+    @Autowired
+    private HitBackfillService hitBackfillService;
+    @Autowired
+    private HitJdbcRepository hitJdbcRepository;
+
+    @Test
+    void readsBufferedBitmapsBeforeFlushAndStoresThemOnFlush() {
+        while (!hitBackfillService.isIdle()) {
+            hitBackfillService.backfill();
+        }
+        hitBitmapService.flush();
+        assertTrue(hitBitmapService.isReady());
+        for (int i = 0; i < 30; i++) {
+            EndpointHit hit = new EndpointHit();
+            hit.setApp("bitmap-app");
+            hit.setUri("/bitmap/" + (i % 2));
+            hit.setIp("10.5.0." + (i % 10));
+            hit.setTimestamp(DAY.atTime(9, i));
+            statsService.saveHit(hit);
+        }
+
+        assertTrue(hitBitmapRepository.mergeBitmaps(DAY, DAY, URIS).isEmpty());
+        assertUnique(hitBitmapService.getStatsUnique(START, END, URIS));
+
+        hitBitmapService.flush();
+
+        assertEquals(2, hitBitmapRepository.mergeBitmaps(DAY, DAY, URIS).size());
+        assertUnique(hitBitmapService.getStatsUnique(START, END, URIS));
+    }
+
+    @Test
+    void backfillsHitsStoredWhileBitmapsWereOff() {
+        while (!hitBackfillService.isIdle()) {
+            hitBackfillService.backfill();
+        }
+        hitBitmapService.flush();
+        hitBitmapService.flush();
+        List<EndpointHit> missed = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            EndpointHit hit = new EndpointHit();
+            hit.setApp("bitmap-app");
+            hit.setUri("/bitmap-gap/1");
+            hit.setIp("10.5.1." + (i % 3));
+            hit.setTimestamp(DAY.atTime(10, i));
+            missed.add(hit);
+        }
+        hitJdbcRepository.saveAll(missed);
+
+        hitBitmapService.init();
+        assertFalse(hitBitmapService.isReady());
+        while (!hitBackfillService.isIdle()) {
+            hitBackfillService.backfill();
+        }
+
+        assertTrue(hitBitmapService.isReady());
+        List<EndpointStats> stats = hitBitmapService.getStatsUnique(START, END, new String[]{"/bitmap-gap/1"});
+        assertEquals(1, stats.size());
+        assertEquals(3, stats.get(0).getHits());
+    }
+
+    private static void assertUnique(List<EndpointStats> stats) {
+        assertEquals(2, stats.size());
+        for (EndpointStats stat : stats) {
+            assertEquals(5, stat.getHits());
+        }
+    }
+}
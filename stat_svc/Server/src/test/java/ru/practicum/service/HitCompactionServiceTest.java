@@ -0,0 +1,93 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.repository.HitCompactionRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HitCompactionServiceTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(1990, 1, 1);
+
+    @Autowired
+    private HitWriter hitWriter;
+    @Autowired
+    private HitCompactionRepository hitCompactionRepository;
+    @Autowired
+    private HitBackfillService hitBackfillService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void instancesCompactUnderLockAndSeeEachOthersWatermark() throws Exception {
+        hitWriter.write(List.of(
+                hit("10.5.0.1", FIRST_DAY.atTime(10, 0)),
+                hit("10.5.0.1", FIRST_DAY.atTime(11, 0)),
+                hit("10.5.0.2", FIRST_DAY.atTime(12, 0)),
+                hit("10.5.0.3", FIRST_DAY.plusDays(1).atTime(9, 0))));
+        HitCompactionService first = instance();
+        HitCompactionService second = instance();
+        assertFalse(second.isCompacted(FIRST_DAY.atTime(10, 0)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> a = executor.submit(first::compact);
+            Future<?> b = executor.submit(second::compact);
+            a.get();
+            b.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(FIRST_DAY.plusDays(2), second.getWatermark());
+        assertTrue(second.isCompacted(FIRST_DAY.plusDays(1).atTime(9, 0)));
+        assertEquals(0, count("SELECT COUNT(*) FROM hits WHERE timestamp < ?"));
+        assertEquals(3, count("SELECT COUNT(*) FROM hits_daily_ips WHERE hit_date < ?"));
+        List<EndpointStats> stats = second.getStatsUnique(FIRST_DAY.atStartOfDay(),
+                FIRST_DAY.plusDays(1).atTime(23, 59, 59), new String[]{"/compaction/1"});
+        assertEquals(1, stats.size());
+        assertEquals(3, stats.get(0).getHits());
+    }
+
+    private HitCompactionService instance() {
+        int afterDays = (int) ChronoUnit.DAYS.between(FIRST_DAY.plusYears(1), LocalDate.now());
+        HitCompactionService service = new HitCompactionService(hitCompactionRepository, hitBackfillService,
+                transactionTemplate, afterDays, 1);
+        service.init();
+        return service;
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class, Timestamp.valueOf(FIRST_DAY.plusYears(1).atStartOfDay()));
+    }
+
+    private static EndpointHit hit(String ip, LocalDateTime timestamp) {
+        EndpointHit hit = new EndpointHit();
+        hit.setApp("ewm-main-service");
+        hit.setUri("/compaction/1");
+        hit.setIp(ip);
+        hit.setTimestamp(timestamp);
+        return hit;
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.repository.HitJdbcRepository;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.StatsJdbcRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HitCounterIndexTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 6, 1, 0, 0);
+
+    private StatsJdbcRepository statsJdbcRepository;
+    private HitCounterIndex hitCounterIndex;
+
+    @BeforeEach
+    void setUp() {
+        statsJdbcRepository = mock(StatsJdbcRepository.class);
+        hitCounterIndex = new HitCounterIndex(mock(HitJdbcRepository.class), mock(HitRollupRepository.class),
+                mock(HitBackfillService.class), statsJdbcRepository, mock(TransactionTemplate.class), 1, 48);
+        hitCounterIndex.onHits(List.of(
+                hit("/events/1", DAY.withHour(10).withMinute(15).withSecond(30)),
+                hit("/events/1", DAY.withHour(10).withMinute(45)),
+                hit("/events/1", DAY.withHour(11)),
+                hit("/events/1", DAY.withHour(12).withMinute(30)),
+                hit("/events/2", DAY.withHour(11).withMinute(5)),
+                hit("/users/1", DAY.withHour(11).withMinute(5))));
+    }
+
+    @Test
+    void sumsHourlyAndSecondBucketsWithInclusiveBounds() {
+        List<EndpointStats> stats = hitCounterIndex.getStatsNotUnique(
+                DAY.withHour(10).withMinute(15).withSecond(30), DAY.withHour(12).withMinute(30), new String[]{"/events/1"});
+
+        assertEquals(1, stats.size());
+        assertEquals(4, stats.get(0).getHits());
+        verify(statsJdbcRepository, never()).getStatsNotUniqueWithUrisExclusiveEnd(any(), any(), any());
+    }
+
+    @Test
+    void excludesHitsOneSecondOutsideRange() {
+        List<EndpointStats> stats = hitCounterIndex.getStatsNotUnique(
+                DAY.withHour(10).withMinute(15).withSecond(31), DAY.withHour(12).withMinute(29).withSecond(59),
+                new String[]{"/events/1"});
+
+        assertEquals(2, stats.get(0).getHits());
+    }
+
+    @Test
+    void matchesPrefixPatterns() {
+        List<EndpointStats> stats = hitCounterIndex.getStatsNotUnique(DAY, DAY.withHour(23), new String[]{"/events/*"});
+
+        List<String> uris = new ArrayList<>();
+        long total = 0;
+        for (EndpointStats stat : stats) {
+            uris.add(stat.getUri());
+            total += stat.getHits();
+        }
+        assertEquals(5, total);
+        assertTrue(uris.contains("/events/1") && uris.contains("/events/2") && !uris.contains("/users/1"));
+    }
+
+    @Test
+    void readsEvictedFineRangesFromRawHits() {
+        hitCounterIndex.evictFineBuckets();
+        String[] uris = {"/events/1"};
+        LocalDateTime start = DAY.withHour(10).withMinute(15).withSecond(30);
+        LocalDateTime end = DAY.withHour(12).withMinute(30);
+        when(statsJdbcRepository.getStatsNotUniqueWithUrisExclusiveEnd(start, DAY.withHour(11), uris))
+                .thenReturn(List.of(new EndpointStats("ewm-main-service", "/events/1", 2)));
+        when(statsJdbcRepository.getStatsNotUniqueWithUrisExclusiveEnd(DAY.withHour(12), end.plusSeconds(1), uris))
+                .thenReturn(List.of(new EndpointStats("ewm-main-service", "/events/1", 1)));
+
+        List<EndpointStats> stats = hitCounterIndex.getStatsNotUnique(start, end, uris);
+
+        assertEquals(4, stats.get(0).getHits());
+    }
+
+    private static EndpointHit hit(String uri, LocalDateTime timestamp) {
+        EndpointHit hit = new EndpointHit();
+        hit.setApp("ewm-main-service");
+        hit.setUri(uri);
+        hit.setIp("10.0.0.1");
+        hit.setTimestamp(timestamp);
+        return hit;
+    }
+}
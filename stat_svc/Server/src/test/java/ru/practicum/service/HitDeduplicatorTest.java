@@ -0,0 +1,71 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitDeduplicatorTest {
+    private static final long WINDOW_MS = 1000;
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(WINDOW_MS);
+    private static final long START = 1000 * WINDOW_NANOS;
+
+    private final HitDeduplicator deduplicator = new HitDeduplicator(new SimpleMeterRegistry(),
+            WINDOW_MS, 10_000, 0.001);
+
+    @Test
+    void collapsesRepeatWithinWindowAndAcceptsOtherIps() {
+        assertTrue(deduplicator.accept(hit("10.0.0.1"), START));
+        assertFalse(deduplicator.accept(hit("10.0.0.1"), START + 1));
+        assertTrue(deduplicator.accept(hit("10.0.0.2"), START + 2));
+    }
+
+    @Test
+    void keepsCollapsingHitThatOnlyPreviousGenerationRemembered() {
+        assertTrue(deduplicator.accept(hit("10.0.0.1"), START));
+        assertFalse(deduplicator.accept(hit("10.0.0.1"), START + WINDOW_NANOS));
+        assertFalse(deduplicator.accept(hit("10.0.0.1"), START + 2 * WINDOW_NANOS));
+    }
+
+    @Test
+    void acceptsAgainAfterTwoQuietWindows() {
+        assertTrue(deduplicator.accept(hit("10.0.0.1"), START));
+        assertTrue(deduplicator.accept(hit("10.0.0.1"), START + 2 * WINDOW_NANOS));
+    }
+
+    @Test
+    void splitsBatchIntoAcceptedAndCollapsedHits() {
+        List<EndpointHit> collapsed = new ArrayList<>();
+
+        List<EndpointHit> accepted = deduplicator.acceptAll(
+                List.of(hit("10.0.1.1"), hit("10.0.1.1"), hit("10.0.1.2"), hit("10.0.1.1")), collapsed);
+
+        assertEquals(List.of("10.0.1.1", "10.0.1.2"), ips(accepted));
+        assertEquals(List.of("10.0.1.1", "10.0.1.1"), ips(collapsed));
+    }
+
+    private static List<String> ips(List<EndpointHit> hits) {
+        List<String> ips = new ArrayList<>();
+        for (EndpointHit hit : hits) {
+            ips.add(hit.getIp());
+        }
+        return ips;
+    }
+
+    private static EndpointHit hit(String ip) {
+        EndpointHit hit = new EndpointHit();
+        hit.setApp("ewm-main-service");
+        hit.setUri("/events/1");
+        hit.setIp(ip);
+        hit.setTimestamp(LocalDateTime.of(2024, 1, 1, 12, 0));
+        return hit;
+    }
+}
@@ -0,0 +1,159 @@
+package ru.practicum.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.EndpointHit;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitJsonParserTest {
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final String HIT = "{\"app\":\"ewm\",\"uri\":\"/events/1\",\"ip\":\"10.7.0.1\"," +
+            "\"timestamp\":\"2024-06-01 12:30:45\"}";
+
+    @Test
+    void readsSingleObject() throws IOException {
+        HitJsonParser hitParser = parser(HIT);
+
+        assertTrue(hitParser.next());
+        EndpointHit hit = hitParser.getHit();
+        assertEquals("ewm", hit.getApp());
+        assertEquals("/events/1", hit.getUri());
+        assertEquals("10.7.0.1", hit.getIp());
+        assertEquals(LocalDateTime.of(2024, 6, 1, 12, 30, 45), hit.getTimestamp());
+        assertNull(hitParser.getError());
+        assertFalse(hitParser.next());
+    }
+
+    @Test
+    void readsArrayAndNdjsonAlike() throws IOException {
+        for (String body : new String[]{"[" + HIT + "," + HIT + "]", HIT + "\n" + HIT + "\n"}) {
+            HitJsonParser hitParser = parser(body);
+
+            assertTrue(hitParser.next());
+            assertTrue(hitParser.next());
+            assertEquals("/events/1", hitParser.getHit().getUri());
+            assertFalse(hitParser.next());
+        }
+    }
+
+    @Test
+    void skipsUnknownFieldsIncludingNestedOnes() throws IOException {
+        HitJsonParser hitParser = parser("{\"id\":5,\"extra\":{\"a\":[1,2,{\"b\":3}]},\"app\":\"ewm\"," +
+                "\"uri\":\"/events/1\",\"ip\":\"10.7.0.1\",\"timestamp\":\"2024-06-01 12:30:45\",\"tags\":[\"x\"]}");
+
+        assertTrue(hitParser.next());
+        assertEquals("ewm", hitParser.getHit().getApp());
+        assertFalse(hitParser.next());
+    }
+
+    @Test
+    void reusesAppStringForRepeatedApp() throws IOException {
+        HitJsonParser hitParser = parser(HIT + HIT);
+
+        hitParser.next();
+        String first = hitParser.getHit().getApp();
+        hitParser.next();
+
+        assertSame(first, hitParser.getHit().getApp());
+    }
+
+    @Test
+    void reportsEveryMissingFieldInSortedOrder() throws IOException {
+        HitJsonParser hitParser = parser("{\"uri\":\"/events/1\"}");
+
+        assertTrue(hitParser.next());
+        assertNull(hitParser.getHit());
+        assertEquals("app не должно быть пустым, ip не должно быть пустым, timestamp не должно быть пустым",
+                hitParser.getError());
+    }
+
+    @Test
+    void rejectsBlankNullAndOversizedValues() throws IOException {
+        HitJsonParser hitParser = parser("{\"app\":\"  \",\"uri\":null,\"ip\":\"" + "1".repeat(41) + "\"," +
+                "\"timestamp\":\"2024-06-01 12:30:45\"}");
+
+        assertTrue(hitParser.next());
+        assertNull(hitParser.getHit());
+        assertEquals("app не должно быть пустым, ip размер должен находиться в диапазоне от 1 до 40, " +
+                "uri не должно быть пустым", hitParser.getError());
+    }
+
+    @Test
+    void rejectsStructuredValueAndKeepsReadingNextHit() throws IOException {
+        HitJsonParser hitParser = parser("{\"app\":\"ewm\",\"uri\":{\"path\":\"/events/1\"},\"ip\":\"10.7.0.1\"," +
+                "\"timestamp\":\"2024-06-01 12:30:45\"}\n" + HIT);
+
+        assertTrue(hitParser.next());
+        assertEquals("uri имеет неверный тип", hitParser.getError());
+        assertTrue(hitParser.next());
+        assertEquals("/events/1", hitParser.getHit().getUri());
+    }
+
+    @Test
+    void rejectsNullAndNonObjectEntries() throws IOException {
+        HitJsonParser hitParser = parser("[null,[1,2],\"hit\"," + HIT + "]");
+
+        assertTrue(hitParser.next());
+        assertEquals("пустой запрос", hitParser.getError());
+        assertTrue(hitParser.next());
+        assertEquals("ожидался объект", hitParser.getError());
+        assertTrue(hitParser.next());
+        assertEquals("ожидался объект", hitParser.getError());
+        assertTrue(hitParser.next());
+        assertEquals("ewm", hitParser.getHit().getApp());
+        assertFalse(hitParser.next());
+    }
+
+    @Test
+    void rejectsMalformedTimestamp() throws IOException {
+        for (String timestamp : new String[]{"2024-06-01T12:30:45", "2024-06-01 12:30", "2024-13-01 12:30:45",
+                "2024-06-00 12:30:45", "2024-06-01 24:00:00", "2024-06-01 12:60:00", "2024-o6-01 12:30:45"}) {
+            HitJsonParser hitParser = parser("{\"app\":\"ewm\",\"uri\":\"/events/1\",\"ip\":\"10.7.0.1\"," +
+                    "\"timestamp\":\"" + timestamp + "\"}");
+
+            assertTrue(hitParser.next());
+            assertEquals("timestamp имеет неверный формат", hitParser.getError(), timestamp);
+        }
+    }
+
+    @Test
+    void clampsDayToMonthLengthLikeDateTimeFormatter() {
+        assertEquals(LocalDateTime.of(2024, 2, 29, 0, 0), parseTimestamp("2024-02-31 00:00:00"));
+        assertEquals(LocalDateTime.of(2023, 2, 28, 0, 0), parseTimestamp("2023-02-29 00:00:00"));
+        assertEquals(LocalDateTime.of(2024, 4, 30, 23, 59, 59), parseTimestamp("2024-04-31 23:59:59"));
+    }
+
+    @Test
+    void parsesTimestampFromCharacterWindow() {
+        char[] chars = "xx2024-06-01 12:30:45yy".toCharArray();
+
+        assertEquals(LocalDateTime.of(2024, 6, 1, 12, 30, 45), HitJsonParser.parseTimestamp(chars, 2, 19));
+    }
+
+    @Test
+    void failsOnBrokenJson() throws IOException {
+        HitJsonParser hitParser = parser("{\"app\":\"ewm\",");
+
+        assertThrows(JsonParseException.class, hitParser::next);
+    }
+
+    private static LocalDateTime parseTimestamp(String text) {
+        return HitJsonParser.parseTimestamp(text.toCharArray(), 0, text.length());
+    }
+
+    private static HitJsonParser parser(String body) throws IOException {
+        JsonParser parser = FACTORY.createParser(body);
+        return new HitJsonParser(parser);
+    }
+}
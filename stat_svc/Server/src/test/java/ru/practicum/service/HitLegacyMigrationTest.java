@@ -0,0 +1,41 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HitLegacyMigrationTest {
+    @Autowired
+    private HitLegacyMigration hitLegacyMigration;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void movesStringLayoutHitsIntoDictionaryEncodedTable() {
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS stats_legacy");
+        jdbcTemplate.execute("CREATE TABLE stats_legacy.hits (id BIGINT PRIMARY KEY, app VARCHAR(100), " +
+                "uri VARCHAR(40), ip VARCHAR(40), timestamp TIMESTAMP)");
+        for (int i = 1; i <= 12; i++) {
+            jdbcTemplate.update("INSERT INTO stats_legacy.hits VALUES (?, ?, ?, ?, ?)", i, "legacy-app",
+                    "/legacy/" + (i % 3), "10.0.0." + i, Timestamp.valueOf(LocalDateTime.of(2023, 5, i, 10, 0)));
+        }
+
+        hitLegacyMigration.migrate();
+
+        assertEquals(12, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM hits h " +
+                "JOIN hit_apps a ON a.id = h.app_id WHERE a.name = 'legacy-app'", Integer.class));
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM hits h " +
+                "JOIN hit_uris u ON u.id = h.uri_id WHERE u.uri = '/legacy/1'", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.tables " +
+                "WHERE LOWER(table_schema) = 'stats_legacy'", Integer.class));
+    }
+}
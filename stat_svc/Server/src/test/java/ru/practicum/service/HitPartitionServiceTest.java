@@ -0,0 +1,78 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.repository.DatabaseInfo;
+import ru.practicum.repository.HitPartitionRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HitPartitionServiceTest {
+    private HitPartitionRepository hitPartitionRepository;
+    private List<String> partitions;
+    private HitPartitionService hitPartitionService;
+
+    @BeforeEach
+    void setUp() {
+        hitPartitionRepository = mock(HitPartitionRepository.class);
+        DatabaseInfo databaseInfo = mock(DatabaseInfo.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        partitions = new ArrayList<>();
+        LocalDate current = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i <= 3; i++) {
+            partitions.add("hits_p" + current.plusMonths(i).format(DateTimeFormatter.ofPattern("yyyyMM")));
+        }
+        when(databaseInfo.isPostgres()).thenReturn(true);
+        when(hitPartitionRepository.isPartitioned()).thenReturn(true);
+        when(hitPartitionRepository.findPartitionNames()).thenAnswer(invocation -> new ArrayList<>(partitions));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> partitions.add(invocation.getArgument(0)))
+                .when(hitPartitionRepository).movePartitionFromDefault(anyString(), any(), any());
+        hitPartitionService = new HitPartitionService(hitPartitionRepository, databaseInfo, transactionTemplate,
+                "month", 3, 0, "detach");
+    }
+
+    @Test
+    void movesEveryPeriodFoundInDefaultPartitionUnderLock() {
+        when(hitPartitionRepository.findOldestInDefault()).thenReturn(
+                LocalDateTime.of(2023, 1, 15, 10, 0), LocalDateTime.of(2023, 3, 2, 0, 0), null);
+        when(hitPartitionRepository.defaultHasRows(any(), any())).thenReturn(true);
+
+        hitPartitionService.maintainPartitions();
+
+        verify(hitPartitionRepository).movePartitionFromDefault(eq("hits_p202301"),
+                eq(LocalDateTime.of(2023, 1, 1, 0, 0)), eq(LocalDateTime.of(2023, 2, 1, 0, 0)));
+        verify(hitPartitionRepository).movePartitionFromDefault(eq("hits_p202303"),
+                eq(LocalDateTime.of(2023, 3, 1, 0, 0)), eq(LocalDateTime.of(2023, 4, 1, 0, 0)));
+        verify(hitPartitionRepository, never()).movePartitionFromDefault(eq("hits_p202302"), any(), any());
+        verify(hitPartitionRepository, times(2)).lockHits();
+    }
+
+    @Test
+    void stopsWhenOldestDefaultRowAlreadyHasPartition() {
+        partitions.add("hits_p202301");
+        when(hitPartitionRepository.findOldestInDefault()).thenReturn(LocalDateTime.of(2023, 1, 15, 10, 0));
+
+        hitPartitionService.maintainPartitions();
+
+        verify(hitPartitionRepository, never()).movePartitionFromDefault(anyString(), any(), any());
+        verify(hitPartitionRepository, never()).createPartition(anyString(), any(), any());
+    }
+}
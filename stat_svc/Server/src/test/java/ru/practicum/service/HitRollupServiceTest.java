@@ -0,0 +1,96 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.StatsJdbcRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HitRollupServiceTest {
+    private static final String[] URIS = {"/events/1"};
+
+    private HitRollupRepository hitRollupRepository;
+    private StatsJdbcRepository statsJdbcRepository;
+    private HitBackfillService hitBackfillService;
+    private HitRollupService hitRollupService;
+
+    @BeforeEach
+    void setUp() {
+        hitRollupRepository = mock(HitRollupRepository.class);
+        statsJdbcRepository = mock(StatsJdbcRepository.class);
+        hitBackfillService = mock(HitBackfillService.class);
+        when(hitBackfillService.isComplete(HitRollupRepository.BACKFILL)).thenReturn(true);
+        hitRollupService = new HitRollupService(hitRollupRepository, statsJdbcRepository, hitBackfillService,
+                Optional.empty());
+    }
+
+    @Test
+    void splitsPartialHoursAtBothEdgesAndSumsParts() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 10, 30);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 1, 14, 15);
+        LocalDateTime fullStart = LocalDateTime.of(2024, 3, 1, 11, 0);
+        LocalDateTime fullEnd = LocalDateTime.of(2024, 3, 1, 14, 0);
+        when(statsJdbcRepository.getStatsNotUniqueWithUrisExclusiveEnd(start, fullStart, URIS))
+                .thenReturn(List.of(stats(2)));
+        when(hitRollupRepository.getStats(fullStart, fullEnd, URIS)).thenReturn(List.of(stats(30)));
+        when(statsJdbcRepository.getStatsNotUniqueWithUris(fullEnd, end, URIS)).thenReturn(List.of(stats(5)));
+
+        List<EndpointStats> result = hitRollupService.getStatsNotUnique(start, end, URIS);
+
+        assertEquals(1, result.size());
+        assertEquals(37, result.get(0).getHits());
+    }
+
+    @Test
+    void doesNotQueryRawHitsBeforeHourAlignedStart() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 10, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 1, 12, 0);
+        when(hitRollupRepository.getStats(start, end, URIS)).thenReturn(List.of(stats(7)));
+        when(statsJdbcRepository.getStatsNotUniqueWithUris(end, end, URIS)).thenReturn(List.of(stats(1)));
+
+        List<EndpointStats> result = hitRollupService.getStatsNotUnique(start, end, URIS);
+
+        assertEquals(8, result.get(0).getHits());
+        verify(statsJdbcRepository, never()).getStatsNotUniqueWithUrisExclusiveEnd(any(), any(), any());
+    }
+
+    @Test
+    void usesRawHitsWhenRangeHasNoFullHour() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 10, 10);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 1, 10, 50);
+        when(statsJdbcRepository.getStatsNotUniqueWithUris(start, end, URIS)).thenReturn(List.of(stats(3)));
+
+        List<EndpointStats> result = hitRollupService.getStatsNotUnique(start, end, URIS);
+
+        assertEquals(3, result.get(0).getHits());
+        verify(hitRollupRepository, never()).getStats(any(), any(), any());
+    }
+
+    @Test
+    void usesRawHitsUntilBackfillCompletes() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 2, 0, 0);
+        when(hitBackfillService.isComplete(HitRollupRepository.BACKFILL)).thenReturn(false);
+        when(statsJdbcRepository.getStatsNotUniqueWithUris(start, end, URIS)).thenReturn(List.of(stats(11)));
+
+        List<EndpointStats> result = hitRollupService.getStatsNotUnique(start, end, URIS);
+
+        assertEquals(11, result.get(0).getHits());
+        verify(hitRollupRepository, never()).getStats(any(), any(), any());
+    }
+
+    private static EndpointStats stats(long hits) {
+        return new EndpointStats("ewm-main-service", "/events/1", hits);
+    }
+}
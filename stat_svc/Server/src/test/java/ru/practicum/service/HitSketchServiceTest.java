@@ -0,0 +1,62 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.dto.RequestParamDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "stats.sketch.flush-interval-ms=3600000")
+@ActiveProfiles("test")
+class HitSketchServiceTest {
+    private static final String[] URIS = {"/sketch/1"};
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 1);
+
+    @Autowired
+    private StatsService statsService;
+    @Autowired
+    private HitSketchService hitSketchService;
+    @Autowired
+    private HitBackfillService hitBackfillService;
+
+    @Test
+    void mergesBufferedHitsIntoStoredSketchOnFlush() {
+        while (!hitBackfillService.isIdle()) {
+            hitBackfillService.backfill();
+        }
+        hitSketchService.flush();
+        for (int i = 0; i < 30; i++) {
+            EndpointHit hit = new EndpointHit();
+            hit.setApp("sketch-app");
+            hit.setUri("/sketch/1");
+            hit.setIp("10.2.0." + (i % 10));
+            hit.setTimestamp(DAY.atTime(8, i));
+            statsService.saveHit(hit);
+        }
+
+        List<EndpointStats> buffered = hitSketchService.getStatsUnique(DAY, DAY, URIS);
+        hitSketchService.flush();
+        List<EndpointStats> stats = hitSketchService.getStatsUnique(DAY, DAY, URIS);
+
+        assertEquals(1, buffered.size());
+        assertEquals(10, buffered.get(0).getHits());
+        assertEquals(1, stats.size());
+        assertEquals(10, stats.get(0).getHits());
+    }
+
+    @Test
+    void rejectsApproxUniqueRangeNotAlignedToDays() {
+        RequestParamDto requestParamDto = new RequestParamDto("2024-05-01 08:00:00", "2024-05-01 23:59:59",
+                URIS, true, true, false);
+
+        assertThrows(RuntimeException.class, () -> statsService.getStats(requestParamDto));
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.repository.StatsJdbcRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "stats.dedup.enabled=true")
+@ActiveProfiles("test")
+class HitWriterTest {
+    private static final LocalDateTime MINUTE = LocalDateTime.of(2024, 6, 3, 10, 0);
+
+    @Autowired
+    private StatsService statsService;
+    @Autowired
+    private HitBatchService hitBatchService;
+    @Autowired
+    private HitBackfillService hitBackfillService;
+    @Autowired
+    private StatsJdbcRepository statsJdbcRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void awaitBackfill() {
+        while (!hitBackfillService.isIdle()) {
+            hitBackfillService.backfill();
+        }
+    }
+
+    @Test
+    void storesCollapsedHitsAsCountOnStoredHit() {
+        statsService.saveHit(hit("/collapsed/1", "10.6.0.1", MINUTE.plusSeconds(5)));
+        statsService.saveHit(hit("/collapsed/1", "10.6.0.1", MINUTE.plusSeconds(6)));
+        statsService.saveHit(hit("/collapsed/1", "10.6.0.1", MINUTE.plusSeconds(7)));
+        statsService.saveHit(hit("/collapsed/1", "10.6.0.2", MINUTE.plusSeconds(8)));
+
+        assertStored("/collapsed/1", 2, 4);
+    }
+
+    @Test
+    void storesCollapsedHitInAnotherMinuteAsItsOwnRow() {
+        statsService.saveHit(hit("/collapsed/2", "10.6.1.1", MINUTE.plusSeconds(59)));
+        statsService.saveHit(hit("/collapsed/2", "10.6.1.1", MINUTE.plusSeconds(61)));
+        statsService.saveHit(hit("/collapsed/2", "10.6.1.1", MINUTE.plusSeconds(62)));
+
+        assertStored("/collapsed/2", 2, 3);
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT h.hits FROM hits h " +
+                "JOIN hit_uris u ON u.id = h.uri_id WHERE u.uri = '/collapsed/2' AND h.timestamp > ?",
+                Integer.class, Timestamp.valueOf(MINUTE.plusSeconds(59))));
+    }
+
+    @Test
+    void collapsesDuplicatesInBatch() {
+        hitBatchService.writeHits(List.of(
+                hit("/collapsed/3", "10.6.2.1", MINUTE.plusSeconds(1)),
+                hit("/collapsed/3", "10.6.2.1", MINUTE.plusSeconds(2)),
+                hit("/collapsed/3", "10.6.2.2", MINUTE.plusSeconds(3)),
+                hit("/collapsed/3", "10.6.2.1", MINUTE.plusSeconds(4))));
+
+        assertStored("/collapsed/3", 2, 4);
+    }
+
+    private void assertStored(String uri, int rows, long hits) {
+        assertEquals(rows, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM hits h " +
+                "JOIN hit_uris u ON u.id = h.uri_id WHERE u.uri = ?", Integer.class, uri));
+        List<EndpointStats> stats = statsJdbcRepository.getStatsNotUniqueWithUris(MINUTE, MINUTE.plusHours(1),
+                new String[]{uri});
+        assertEquals(1, stats.size());
+        assertEquals(hits, stats.get(0).getHits());
+    }
+
+    private static EndpointHit hit(String uri, String ip, LocalDateTime timestamp) {
+        EndpointHit hit = new EndpointHit();
+        hit.setApp("collapsed-app");
+        hit.setUri(uri);
+        hit.setIp(ip);
+        hit.setTimestamp(timestamp);
+        return hit;
+    }
+}
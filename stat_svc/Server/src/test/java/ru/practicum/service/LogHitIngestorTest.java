@@ -0,0 +1,111 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.repository.HitLogCheckpointRepository;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class LogHitIngestorTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void parksPoisonBatchAfterRetriesAndMovesOn() throws Exception {
+        HitWriter hitWriter = mock(HitWriter.class);
+        HitDeadLetter hitDeadLetter = mock(HitDeadLetter.class);
+        HitLogCheckpointRepository checkpointRepository = mock(HitLogCheckpointRepository.class);
+        AtomicInteger attempts = new AtomicInteger();
+        List<EndpointHit> parked = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("значение слишком длинное");
+        }).when(hitWriter).bulkWrite(anyList());
+        doAnswer(invocation -> parked.addAll(invocation.getArgument(0)))
+                .when(hitDeadLetter).park(anyList());
+
+        LogHitIngestor ingestor = ingestor(hitWriter, hitDeadLetter, checkpointRepository);
+        ingestor.start();
+        ingestor.ingest(hit("/events/1"));
+        ingestor.ingest(hit("/events/2"));
+        awaitUntil(() -> parked.size() == 2);
+        ingestor.shutdown();
+
+        assertEquals(2, parked.size());
+        assertEquals(0, attempts.get() % 3);
+        verify(checkpointRepository, atLeastOnce()).save(anyString(), anyLong());
+    }
+
+    @Test
+    void keepsRetryingWhileDatabaseIsUnavailable() throws Exception {
+        HitWriter hitWriter = mock(HitWriter.class);
+        HitDeadLetter hitDeadLetter = mock(HitDeadLetter.class);
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            attempts.incrementAndGet();
+            throw new DataAccessResourceFailureException("база недоступна");
+        }).when(hitWriter).bulkWrite(anyList());
+
+        LogHitIngestor ingestor = ingestor(hitWriter, hitDeadLetter, mock(HitLogCheckpointRepository.class));
+        ingestor.start();
+        ingestor.ingest(hit("/events/1"));
+        awaitUntil(() -> attempts.get() > 5);
+        ingestor.shutdown();
+
+        verify(hitDeadLetter, never()).park(anyList());
+    }
+
+    private LogHitIngestor ingestor(HitWriter hitWriter, HitDeadLetter hitDeadLetter,
+                                    HitLogCheckpointRepository checkpointRepository) {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        return new LogHitIngestor(hitWriter, checkpointRepository, hitDeadLetter, transactionTemplate,
+                new SimpleMeterRegistry(), directory.toString(), 1 << 20, 100, 1, 1, 2, false);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static EndpointHit hit(String uri) {
+        EndpointHit hit = new EndpointHit();
+        hit.setApp("ewm-main-service");
+        hit.setUri(uri);
+        hit.setIp("10.0.0.1");
+        hit.setTimestamp(LocalDateTime.of(2024, 1, 1, 12, 0));
+        return hit;
+    }
+}
@@ -0,0 +1,228 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.exceptions.ServiceUnavailableException;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ParallelStatsExecutorTest {
+    private static final int MAX_CONCURRENT = 8;
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final List<ParallelStatsExecutor> executors = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        executors.forEach(ParallelStatsExecutor::shutdown);
+    }
+
+    @Test
+    void queriesFewUrisInCallerThread() {
+        ParallelStatsExecutor executor = executor(admission(10), 4, 3, 31);
+        List<String[]> chunks = Collections.synchronizedList(new ArrayList<>());
+        Thread caller = Thread.currentThread();
+        String[] uris = {"/a", "/b"};
+
+        executor.splitByUris(uris, chunk -> {
+            chunks.add(chunk);
+            assertSame(caller, Thread.currentThread());
+            return List.of();
+        });
+
+        assertEquals(1, chunks.size());
+        assertSame(uris, chunks.get(0));
+    }
+
+    @Test
+    void splitsUrisAcrossPoolAndMergesSortedByHits() {
+        StatsAdmission admission = admission(10);
+        ParallelStatsExecutor executor = executor(admission, 3, 3, 31);
+        String[] uris = {"/1", "/2", "/3", "/4", "/5", "/6", "/7"};
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        CountDownLatch started = new CountDownLatch(3);
+
+        List<EndpointStats> stats = executor.splitByUris(uris, chunk -> {
+            started.countDown();
+            await(started, 5000);
+            List<EndpointStats> partial = new ArrayList<>();
+            for (String uri : chunk) {
+                assertTrue(seen.add(uri), uri);
+                partial.add(new EndpointStats("app", uri, Long.parseLong(uri.substring(1))));
+            }
+            return partial;
+        });
+
+        assertEquals(7, seen.size());
+        assertEquals(7, stats.size());
+        for (int i = 0; i < stats.size(); i++) {
+            assertEquals(7 - i, stats.get(i).getHits());
+        }
+        assertEquals(MAX_CONCURRENT, admission.tryAcquireWorkers(MAX_CONCURRENT));
+    }
+
+    @Test
+    void runsWorkerChunksInReadOnlyTransactionBoundedByRequestDeadline() {
+        StatsAdmission admission = admission(10);
+        ParallelStatsExecutor executor = executor(admission, 2, 2, 31);
+        CountDownLatch started = new CountDownLatch(2);
+
+        admission.execute(1, () -> executor.splitByUris(new String[]{"/a", "/b"}, chunk -> {
+            started.countDown();
+            await(started, 5000);
+            return List.of();
+        }));
+
+        verify(transactionManager, atLeastOnce()).getTransaction(argThat(definition -> definition != null
+                && definition.isReadOnly() && definition.getTimeout() >= 1 && definition.getTimeout() <= 10));
+    }
+
+    @Test
+    void runsAllChunksInCallerThreadWhenNoSlotIsFree() {
+        StatsAdmission admission = new StatsAdmission(transactionManager, mock(DataSource.class),
+                new SimpleMeterRegistry(), 1, 100, 30, 20, 5, 50, 10);
+        ParallelStatsExecutor executor = executor(admission, 4, 2, 31);
+        Thread caller = Thread.currentThread();
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        admission.execute(1, () -> executor.splitByUris(new String[]{"/a", "/b", "/c", "/d"}, chunk -> {
+            threads.add(Thread.currentThread());
+            return List.of();
+        }));
+
+        assertEquals(Set.of(caller), threads);
+    }
+
+    @Test
+    void dropsDuplicatesReturnedByOverlappingChunks() {
+        ParallelStatsExecutor executor = executor(admission(10), 2, 2, 31);
+        String[] uris = {"/a/*", "/a/1"};
+
+        List<EndpointStats> stats = executor.splitByUris(uris,
+                chunk -> List.of(new EndpointStats("app", "/a/1", 4)));
+
+        assertEquals(1, stats.size());
+        assertEquals(4, stats.get(0).getHits());
+    }
+
+    @Test
+    void coversDayRangeWithContiguousChunks() {
+        ParallelStatsExecutor executor = executor(admission(10), 4, 20, 10);
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 2, 4);
+
+        List<LocalDate[]> chunks = new ArrayList<>(executor.splitByDays(from, to,
+                (chunkFrom, chunkTo) -> new LocalDate[]{chunkFrom, chunkTo}));
+        chunks.sort(Comparator.comparing(chunk -> chunk[0]));
+
+        assertEquals(4, chunks.size());
+        assertEquals(from, chunks.get(0)[0]);
+        assertEquals(to, chunks.get(3)[1]);
+        for (int i = 1; i < chunks.size(); i++) {
+            assertEquals(chunks.get(i - 1)[1].plusDays(1), chunks.get(i)[0]);
+        }
+    }
+
+    @Test
+    void keepsShortDayRangeInOneQuery() {
+        ParallelStatsExecutor executor = executor(admission(10), 4, 20, 10);
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 1, 10);
+
+        List<LocalDate[]> chunks = executor.splitByDays(from, to,
+                (chunkFrom, chunkTo) -> new LocalDate[]{chunkFrom, chunkTo});
+
+        assertEquals(1, chunks.size());
+        assertEquals(from, chunks.get(0)[0]);
+        assertEquals(to, chunks.get(0)[1]);
+    }
+
+    @Test
+    void rethrowsChunkFailure() {
+        ParallelStatsExecutor executor = executor(admission(10), 2, 2, 31);
+        IllegalStateException failure = new IllegalStateException("boom");
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> executor.splitByUris(new String[]{"/a", "/b"}, chunk -> {
+                    if (chunk[0].equals("/b")) {
+                        throw failure;
+                    }
+                    return List.of();
+                }));
+
+        assertSame(failure, thrown);
+    }
+
+    @Test
+    void failsWithServiceUnavailableWhenWorkerOutlivesRequestDeadline() {
+        StatsAdmission admission = admission(1);
+        ParallelStatsExecutor executor = executor(admission, 2, 2, 31);
+        Thread caller = Thread.currentThread();
+        CountDownLatch workerStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            assertThrows(ServiceUnavailableException.class,
+                    () -> admission.execute(1, () -> executor.splitByUris(new String[]{"/a", "/b"}, chunk -> {
+                        if (Thread.currentThread() == caller) {
+                            await(workerStarted, 5000);
+                        } else {
+                            workerStarted.countDown();
+                            await(release, 5000);
+                        }
+                        return List.of();
+                    })));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveSettings() {
+        StatsAdmission admission = admission(10);
+        assertThrows(IllegalArgumentException.class, () -> new ParallelStatsExecutor(admission, 0, 20, 31));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelStatsExecutor(admission, 4, 0, 31));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelStatsExecutor(admission, 4, 20, 0));
+    }
+
+    private StatsAdmission admission(int queryTimeoutSeconds) {
+        return new StatsAdmission(transactionManager, mock(DataSource.class), new SimpleMeterRegistry(),
+                MAX_CONCURRENT, 100, 30, 20, 5, 50, queryTimeoutSeconds);
+    }
+
+    private ParallelStatsExecutor executor(StatsAdmission admission, int poolSize, int uriSplitThreshold, int splitDays) {
+        ParallelStatsExecutor executor = new ParallelStatsExecutor(admission, poolSize, uriSplitThreshold, splitDays);
+        executors.add(executor);
+        return executor;
+    }
+
+    private static void await(CountDownLatch latch, long timeoutMs) {
+        try {
+            latch.await(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class QueuedHitIngestorTest {
+    @Test
+    void parksBatchInDeadLetterAfterRetriesAreExhausted() throws InterruptedException {
+        HitWriter hitWriter = mock(HitWriter.class);
+        HitDeadLetter hitDeadLetter = mock(HitDeadLetter.class);
+        AtomicInteger attempts = new AtomicInteger();
+        List<EndpointHit> parked = new ArrayList<>();
+        doAnswer(invocation -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("база недоступна");
+        }).when(hitWriter).write(anyList());
+        doAnswer(invocation -> parked.addAll(invocation.getArgument(0)))
+                .when(hitDeadLetter).park(anyList());
+
+        QueuedHitIngestor ingestor = new QueuedHitIngestor(hitWriter, hitDeadLetter, new SimpleMeterRegistry(),
+                100, 10, 20, 1000, 2, 1);
+        ingestor.start();
+        ingestor.ingest(hit("/events/1"));
+        ingestor.ingest(hit("/events/2"));
+        ingestor.shutdown();
+
+        assertEquals(2, parked.size());
+        assertEquals(0, attempts.get() % 3);
+    }
+
+    @Test
+    void writesQueuedHitsOnShutdown() throws InterruptedException {
+        HitWriter hitWriter = mock(HitWriter.class);
+        List<EndpointHit> written = new ArrayList<>();
+        doAnswer(invocation -> written.addAll(invocation.getArgument(0)))
+                .when(hitWriter).write(anyList());
+
+        QueuedHitIngestor ingestor = new QueuedHitIngestor(hitWriter, mock(HitDeadLetter.class), new SimpleMeterRegistry(),
+                100, 10, 20, 1000, 2, 1);
+        ingestor.start();
+        for (int i = 0; i < 25; i++) {
+            ingestor.ingest(hit("/events/" + i));
+        }
+        ingestor.shutdown();
+
+        assertEquals(25, written.size());
+        for (int i = 0; i < 25; i++) {
+            assertEquals("/events/" + i, written.get(i).getUri());
+        }
+    }
+
+    @Test
+    void writesHitsThroughAfterShutdown() throws InterruptedException {
+        HitWriter hitWriter = mock(HitWriter.class);
+        List<EndpointHit> written = new ArrayList<>();
+        doAnswer(invocation -> written.addAll(invocation.getArgument(0)))
+                .when(hitWriter).write(anyList());
+
+        QueuedHitIngestor ingestor = new QueuedHitIngestor(hitWriter, mock(HitDeadLetter.class), new SimpleMeterRegistry(),
+                100, 10, 20, 1000, 2, 1);
+        ingestor.start();
+        ingestor.shutdown();
+        ingestor.ingest(hit("/events/late"));
+
+        assertEquals(1, written.size());
+        assertEquals("/events/late", written.get(0).getUri());
+    }
+
+    @Test
+    void parksHitsLeftAfterShutdownTimeout() throws InterruptedException {
+        HitWriter hitWriter = mock(HitWriter.class);
+        HitDeadLetter hitDeadLetter = mock(HitDeadLetter.class);
+        List<EndpointHit> parked = new ArrayList<>();
+        doAnswer(invocation -> {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("база не отвечает");
+        }).when(hitWriter).write(anyList());
+        doAnswer(invocation -> parked.addAll(invocation.getArgument(0)))
+                .when(hitDeadLetter).park(anyList());
+
+        QueuedHitIngestor ingestor = new QueuedHitIngestor(hitWriter, hitDeadLetter, new SimpleMeterRegistry(),
+                100, 1, 20, 50, 2, 1);
+        ingestor.start();
+        for (int i = 0; i < 3; i++) {
+            ingestor.ingest(hit("/events/" + i));
+        }
+        ingestor.shutdown();
+
+        assertEquals(3, parked.size());
+    }
+
+    private static EndpointHit hit(String uri) {
+        EndpointHit hit = new EndpointHit();
+        hit.setApp("ewm-main-service");
+        hit.setUri(uri);
+        hit.setIp("10.0.0.1");
+        hit.setTimestamp(LocalDateTime.of(2024, 1, 1, 12, 0));
+        return hit;
+    }
+}
@@ -0,0 +1,126 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RealtimeCountersTest {
+    @Test
+    void sumsPerSecondSlotsInsideShortWindow() {
+        RealtimeCounters counters = new RealtimeCounters();
+        LocalDateTime now = LocalDateTime.now();
+        counters.record(hit("/events/1", now.minusSeconds(2)));
+        counters.record(hit("/events/1", now.minusSeconds(2)));
+        counters.record(hit("/events/1", now.minusSeconds(3)));
+        counters.record(hit("/events/1", now.minusSeconds(120)));
+
+        assertEquals(3, hits(counters.getStats(null, 30), "/events/1"));
+        assertEquals(4, hits(counters.getStats(null, RealtimeCounters.SECOND_SLOTS), "/events/1"));
+    }
+
+    @Test
+    void usesMinuteSlotsForLongWindow() {
+        RealtimeCounters counters = new RealtimeCounters();
+        LocalDateTime now = LocalDateTime.now();
+        counters.record(hit("/events/2", now.minusMinutes(20)));
+        counters.record(hit("/events/2", now.minusMinutes(40)));
+        counters.record(hit("/events/2", now.minusSeconds(5)));
+
+        assertEquals(1, hits(counters.getStats(null, 600), "/events/2"));
+        assertEquals(2, hits(counters.getStats(null, 1800), "/events/2"));
+        assertEquals(3, hits(counters.getStats(null, RealtimeCounters.MAX_WINDOW_SECONDS), "/events/2"));
+    }
+
+    @Test
+    void ignoresHitsOlderThanLongestWindow() {
+        RealtimeCounters counters = new RealtimeCounters();
+        counters.record(hit("/events/3", LocalDateTime.now().minusHours(2)));
+
+        assertTrue(counters.getStats(null, RealtimeCounters.MAX_WINDOW_SECONDS).isEmpty());
+    }
+
+    @Test
+    void filtersByExactUrisAndPrefixes() {
+        RealtimeCounters counters = new RealtimeCounters();
+        LocalDateTime now = LocalDateTime.now().minusSeconds(1);
+        counters.recordAll(List.of(hit("/events/4", now), hit("/events/5", now), hit("/users/1", now)));
+
+        assertEquals(1, counters.getStats(new String[]{"/events/4"}, 60).size());
+        assertEquals(2, counters.getStats(new String[]{"/events/*"}, 60).size());
+        assertEquals(3, counters.getStats(null, 60).size());
+    }
+
+    @Test
+    void rejectsWindowOutsideSupportedRange() {
+        RealtimeCounters counters = new RealtimeCounters();
+
+        assertThrows(RuntimeException.class, () -> counters.getStats(null, 0));
+        assertThrows(RuntimeException.class, () -> counters.getStats(null, RealtimeCounters.MAX_WINDOW_SECONDS + 1));
+    }
+
+    @Test
+    void keepsSeriesWithRecentHitsOnEviction() {
+        RealtimeCounters counters = new RealtimeCounters();
+        counters.record(hit("/events/6", LocalDateTime.now().minusMinutes(30)));
+
+        counters.evictIdle();
+
+        assertEquals(1, hits(counters.getStats(null, RealtimeCounters.MAX_WINDOW_SECONDS), "/events/6"));
+    }
+
+    @Test
+    void countsConcurrentIncrementsWithoutLosingUpdates() throws Exception {
+        RealtimeCounters counters = new RealtimeCounters();
+        LocalDateTime timestamp = LocalDateTime.now().minusSeconds(2);
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        counters.record(hit("/events/7", timestamp));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals((long) threads * perThread, hits(counters.getStats(null, 60), "/events/7"));
+    }
+
+    private static long hits(List<EndpointStats> stats, String uri) {
+        long total = 0;
+        for (EndpointStats stat : stats) {
+            if (stat.getUri().equals(uri)) {
+                total += stat.getHits();
+            }
+        }
+        return total;
+    }
+
+    private static EndpointHit hit(String uri, LocalDateTime timestamp) {
+        EndpointHit hit = new EndpointHit();
+        hit.setApp("ewm-main-service");
+        hit.setUri(uri);
+        hit.setIp("10.0.0.1");
+        hit.setTimestamp(timestamp);
+        return hit;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.exceptions.TooManyRequestsException;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class StatsAdmissionTest {
+    private final StatsAdmission admission = new StatsAdmission(mock(PlatformTransactionManager.class),
+            mock(DataSource.class), new SimpleMeterRegistry(), 4, 100, 30, 20, 5, 50, 10);
+
+    @Test
+    void preAggregatedQueryCostsOnePermit() {
+        assertEquals(1, admission.estimateCost(Duration.ZERO, null));
+        assertEquals(1, admission.estimateCost(Duration.ofHours(2), new String[]{"/events/1"}));
+    }
+
+    @Test
+    void rawScanCostGrowsWithDaysAndUriWeight() {
+        assertEquals(1, admission.estimateCost(Duration.ofDays(30), new String[]{"/events/1"}));
+        assertEquals(4, admission.estimateCost(Duration.ofDays(60), new String[]{"/events/1", "/events/2"}));
+        assertEquals(5, admission.estimateCost(Duration.ofDays(30), new String[]{"/events/*"}));
+        assertEquals(2, admission.estimateCost(Duration.ofDays(3), null));
+    }
+
+    @Test
+    void longRawScanIsClampedToCapacity() {
+        Duration sinceEpoch = Duration.between(LocalDateTime.of(1970, 1, 1, 0, 0), LocalDateTime.now());
+
+        assertEquals(100, admission.estimateCost(sinceEpoch, new String[]{"/events/1"}));
+    }
+
+    @Test
+    void rejectsQueryWhenBudgetIsTaken() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> heavy = executor.submit(() -> admission.execute(100, () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 1;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(TooManyRequestsException.class, () -> admission.execute(1, () -> 1));
+
+            release.countDown();
+            assertEquals(1, heavy.get());
+            assertEquals(2, admission.execute(1, () -> 2));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.dto.EndpointStats;
+import ru.practicum.model.StatsCacheKey;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StatsResultCacheTest {
+    private static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2024, 7, 1, 12, 0);
+
+    private StatsResultCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new StatsResultCache(new SimpleMeterRegistry(), 100, 60, 60_000);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void servesRepeatedQueryFromCache() {
+        get(new String[]{"/events/1"});
+        get(new String[]{"/events/1"});
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidatesOnlyQueriesThatCoverCommittedUri() {
+        get(new String[]{"/events/1"});
+        get(new String[]{"/events/2"});
+
+        cache.onHits(List.of(hit("/events/1")));
+        get(new String[]{"/events/1"});
+        get(new String[]{"/events/2"});
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void invalidatesPrefixAndAllUrisQueries() {
+        get(new String[]{"/events/*"});
+        get(null);
+        get(new String[]{"/users/*"});
+
+        cache.onHits(List.of(hit("/events/42")));
+        get(new String[]{"/events/*"});
+        get(null);
+        get(new String[]{"/users/*"});
+
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void doesNotCacheResultLoadedWhileHitWasCommitted() {
+        StatsCacheKey key = cache.key(new String[]{"/events/1"}, true, false, START, END);
+        cache.get(key, () -> {
+            loads.incrementAndGet();
+            cache.onHits(List.of(hit("/events/1")));
+            return List.of();
+        });
+
+        get(new String[]{"/events/1"});
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesAndTheirIndex() {
+        cache = new StatsResultCache(new SimpleMeterRegistry(), 1, 60, 60_000);
+        get(new String[]{"/events/1"});
+        get(new String[]{"/events/2"});
+
+        cache.onHits(List.of(hit("/events/1")));
+        get(new String[]{"/events/2"});
+
+        assertEquals(2, loads.get());
+    }
+
+    private List<EndpointStats> get(String[] uris) {
+        return cache.get(cache.key(uris, true, false, START, END), () -> {
+            loads.incrementAndGet();
+            return List.of(new EndpointStats("ewm-main-service", "/events/1", loads.get()));
+        });
+    }
+
+    private static EndpointHit hit(String uri) {
+        EndpointHit hit = new EndpointHit();
+        hit.setApp("ewm-main-service");
+        hit.setUri(uri);
+        hit.setIp("10.0.0.1");
+        hit.setTimestamp(END.minusMinutes(1));
+        return hit;
+    }
+}
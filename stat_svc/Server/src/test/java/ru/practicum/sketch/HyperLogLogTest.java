@@ -0,0 +1,67 @@
+package ru.practicum.sketch;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.service.HitSketchService;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+    private static final double MAX_RELATIVE_ERROR = 3 * 1.04 / Math.sqrt(1 << HitSketchService.PRECISION);
+
+    @Test
+    void estimateStaysWithinThreeStandardErrorsOfExactCount() {
+        for (int distinct : new int[]{100, 1_000, 10_000, 100_000, 500_000}) {
+            HyperLogLog sketch = new HyperLogLog(HitSketchService.PRECISION);
+            Set<String> exact = new HashSet<>();
+            for (int i = 0; i < distinct * 3; i++) {
+                String ip = ip(i % distinct);
+                sketch.add(ip);
+                exact.add(ip);
+            }
+
+            assertWithinBound(exact.size(), sketch.estimate());
+        }
+    }
+
+    @Test
+    void mergedSketchEstimatesUnionOfOverlappingSets() {
+        HyperLogLog first = new HyperLogLog(HitSketchService.PRECISION);
+        HyperLogLog second = new HyperLogLog(HitSketchService.PRECISION);
+        for (int i = 0; i < 60_000; i++) {
+            first.add(ip(i));
+        }
+        for (int i = 40_000; i < 100_000; i++) {
+            second.add(ip(i));
+        }
+
+        first.merge(second);
+
+        assertWithinBound(100_000, first.estimate());
+    }
+
+    @Test
+    void survivesSerializationRoundTrip() {
+        HyperLogLog sketch = new HyperLogLog(HitSketchService.PRECISION);
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add(ip(i));
+        }
+
+        HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertEquals(sketch.estimate(), restored.estimate());
+    }
+
+    private static void assertWithinBound(long exact, long estimate) {
+        double error = Math.abs(estimate - exact) / (double) exact;
+        assertTrue(error <= MAX_RELATIVE_ERROR,
+                "exact " + exact + ", estimate " + estimate + ", error " + error);
+    }
+
+    private static String ip(int i) {
+        return "10." + (i >>> 16 & 0xFF) + "." + (i >>> 8 & 0xFF) + "." + (i & 0xFF);
+    }
+}
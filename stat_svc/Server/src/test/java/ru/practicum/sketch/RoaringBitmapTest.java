@@ -0,0 +1,116 @@
+package ru.practicum.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoaringBitmapTest {
+
+    @Test
+    void countsDistinctValuesAcrossContainers() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+
+        assertTrue(bitmap.add(7));
+        assertFalse(bitmap.add(7));
+        assertTrue(bitmap.add(70_000));
+        assertTrue(bitmap.add(Integer.MAX_VALUE));
+
+        assertEquals(3, bitmap.cardinality());
+        assertTrue(bitmap.contains(70_000));
+        assertFalse(bitmap.contains(70_001));
+    }
+
+    @Test
+    void convertsDenseContainerToBitmap() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.add(i * 3);
+        }
+
+        assertEquals(10_000, bitmap.cardinality());
+        assertTrue(bitmap.contains(4_500 * 3));
+        assertFalse(bitmap.contains(4_500 * 3 + 1));
+    }
+
+    @Test
+    void mergeMatchesSetUnion() {
+        Random random = new Random(42);
+        for (int bound : new int[]{1_000, 100_000, 1_000_000}) {
+            RoaringBitmap first = new RoaringBitmap();
+            RoaringBitmap second = new RoaringBitmap();
+            TreeSet<Integer> exact = new TreeSet<>();
+            for (int i = 0; i < 20_000; i++) {
+                int left = random.nextInt(bound);
+                int right = random.nextInt(bound);
+                first.add(left);
+                second.add(right);
+                exact.add(left);
+                exact.add(right);
+            }
+
+            first.merge(second);
+
+            assertEquals(exact.size(), first.cardinality());
+            for (int value : exact) {
+                assertTrue(first.contains(value), "value " + value);
+            }
+        }
+    }
+
+    @Test
+    void mergeReportsWhetherAnythingChanged() {
+        RoaringBitmap first = new RoaringBitmap();
+        RoaringBitmap second = new RoaringBitmap();
+        first.add(1);
+        first.add(2);
+        second.add(2);
+
+        assertFalse(first.merge(second));
+        second.add(3);
+        assertTrue(first.merge(second));
+        assertEquals(3, first.cardinality());
+    }
+
+    @Test
+    void mergeDoesNotShareContainersWithSource() {
+        RoaringBitmap first = new RoaringBitmap();
+        RoaringBitmap second = new RoaringBitmap();
+        second.add(5);
+
+        first.merge(second);
+        first.add(6);
+
+        assertEquals(1, second.cardinality());
+        assertFalse(second.contains(6));
+    }
+
+    @Test
+    void survivesSerializationRoundTrip() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < 5_000; i++) {
+            bitmap.add(i);
+        }
+        for (int i = 0; i < 100; i++) {
+            bitmap.add(1 << 20 | i * 7);
+        }
+
+        RoaringBitmap restored = RoaringBitmap.fromBytes(bitmap.toBytes());
+
+        assertEquals(bitmap.cardinality(), restored.cardinality());
+        assertTrue(restored.contains(4_999));
+        assertTrue(restored.contains(1 << 20 | 99 * 7));
+        assertFalse(restored.contains(5_000));
+    }
+
+    @Test
+    void rejectsCorruptedBytes() {
+        assertThrows(IllegalArgumentException.class, () -> RoaringBitmap.fromBytes(new byte[]{9, 0, 0, 0, 0}));
+        assertThrows(IllegalArgumentException.class, () -> RoaringBitmap.fromBytes(new byte[]{1}));
+    }
+}
@@ -0,0 +1,95 @@
+package ru.practicum.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+
+    @Test
+    void countsExactlyWhileUnderCapacity() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(10);
+        sketch.offer("/events/1", 3);
+        sketch.offer("/events/2", 1);
+        sketch.offer("/events/1", 2);
+
+        List<SpaceSaving.Counter<String>> top = sketch.top(5);
+
+        assertEquals(2, top.size());
+        assertEquals("/events/1", top.get(0).getItem());
+        assertEquals(5, top.get(0).getCount());
+        assertEquals(0, top.get(0).getError());
+        assertEquals(1, top.get(1).getCount());
+    }
+
+    @Test
+    void replacedItemInheritsMinimumCountAsError() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(2);
+        sketch.offer("a", 5);
+        sketch.offer("b", 2);
+        sketch.offer("c", 1);
+
+        List<SpaceSaving.Counter<String>> top = sketch.top(2);
+
+        assertEquals("a", top.get(0).getItem());
+        assertEquals("c", top.get(1).getItem());
+        assertEquals(3, top.get(1).getCount());
+        assertEquals(2, top.get(1).getError());
+    }
+
+    @Test
+    void keepsEveryItemAboveStreamShareOfCapacityWithBoundedError() {
+        int capacity = 50;
+        SpaceSaving<Integer> sketch = new SpaceSaving<>(capacity);
+        Map<Integer, Long> exact = new HashMap<>();
+        Random random = new Random(7);
+        long total = 200_000;
+        for (int i = 0; i < total; i++) {
+            int item = (int) Math.floor(Math.pow(1000, random.nextDouble()));
+            sketch.offer(item, 1);
+            exact.merge(item, 1L, Long::sum);
+        }
+
+        List<SpaceSaving.Counter<Integer>> top = sketch.top(capacity);
+        Map<Integer, SpaceSaving.Counter<Integer>> tracked = new HashMap<>();
+        for (SpaceSaving.Counter<Integer> counter : top) {
+            tracked.put(counter.getItem(), counter);
+            long trueCount = exact.get(counter.getItem());
+            assertTrue(counter.getCount() >= trueCount);
+            assertTrue(counter.getCount() - counter.getError() <= trueCount);
+            assertTrue(counter.getError() <= total / capacity);
+        }
+        for (Map.Entry<Integer, Long> entry : exact.entrySet()) {
+            if (entry.getValue() > total / capacity) {
+                assertTrue(tracked.containsKey(entry.getKey()), "потерян частый элемент " + entry.getKey());
+            }
+        }
+    }
+
+    @Test
+    void mergeAddsCountsOfBothSketches() {
+        SpaceSaving<String> first = new SpaceSaving<>(10);
+        SpaceSaving<String> second = new SpaceSaving<>(10);
+        first.offer("/events/1", 4);
+        second.offer("/events/1", 6);
+        second.offer("/events/2", 3);
+
+        first.merge(second);
+        List<SpaceSaving.Counter<String>> top = first.top(2);
+
+        assertEquals(10, top.get(0).getCount());
+        assertEquals("/events/2", top.get(1).getItem());
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSaving<String>(0));
+    }
+}
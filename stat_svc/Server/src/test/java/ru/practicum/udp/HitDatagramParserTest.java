@@ -0,0 +1,87 @@
+package ru.practicum.udp;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.EndpointHit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitDatagramParserTest {
+    private final HitDatagramParser parser = new HitDatagramParser();
+
+    @Test
+    void parsesEveryLineOfPacket() {
+        List<EndpointHit> hits = new ArrayList<>();
+
+        int malformed = parser.parse(packet("ewm-main-service|/events/1|10.0.0.1|2024-01-01 12:00:00\n" +
+                "ewm-main-service|/events/2|10.0.0.2|2024-01-01 12:00:01\r\n" +
+                "ewm-main-service|/events/3|10.0.0.3|2024-01-01 12:00:02"), hits);
+
+        assertEquals(0, malformed);
+        assertEquals(3, hits.size());
+        assertEquals("ewm-main-service", hits.get(1).getApp());
+        assertEquals("/events/2", hits.get(1).getUri());
+        assertEquals("10.0.0.2", hits.get(1).getIp());
+        assertEquals(LocalDateTime.of(2024, 1, 1, 12, 0, 1), hits.get(1).getTimestamp());
+        assertEquals("/events/3", hits.get(2).getUri());
+    }
+
+    @Test
+    void countsMalformedLinesAndKeepsValidOnes() {
+        List<EndpointHit> hits = new ArrayList<>();
+
+        int malformed = parser.parse(packet("ewm-main-service|/events/1|10.0.0.1\n" +
+                "ewm-main-service|/events/1|10.0.0.1|2024-13-01 12:00:00\n" +
+                "ewm-main-service|/events/1|10.0.0.1|2024-01-01T12:00:00\n" +
+                "|/events/1|10.0.0.1|2024-01-01 12:00:00\n" +
+                "ewm-main-service|   |10.0.0.1|2024-01-01 12:00:00\n" +
+                "ewm-main-service|/events/1|10.0.0.1|2024-01-01 12:00:00\n" +
+                "\n"), hits);
+
+        assertEquals(5, malformed);
+        assertEquals(1, hits.size());
+    }
+
+    @Test
+    void rejectsFieldsLongerThanColumns() {
+        List<EndpointHit> hits = new ArrayList<>();
+        String longUri = "/" + "a".repeat(HitDatagramParser.MAX_URI_LENGTH);
+
+        int malformed = parser.parse(packet("ewm-main-service|" + longUri + "|10.0.0.1|2024-01-01 12:00:00"), hits);
+
+        assertEquals(1, malformed);
+        assertTrue(hits.isEmpty());
+    }
+
+    @Test
+    void decodesUtf8AndReusesAppStringAcrossPackets() {
+        List<EndpointHit> hits = new ArrayList<>();
+
+        parser.parse(packet("сервис|/события/1|10.0.0.1|2024-01-01 12:00:00"), hits);
+        parser.parse(packet("сервис|/события/2|10.0.0.1|2024-01-01 12:00:00"), hits);
+
+        assertEquals("сервис", hits.get(0).getApp());
+        assertEquals("/события/2", hits.get(1).getUri());
+        assertSame(hits.get(0).getApp(), hits.get(1).getApp());
+    }
+
+    @Test
+    void consumesWholeBuffer() {
+        ByteBuffer buffer = packet("ewm-main-service|/events/1|10.0.0.1|2024-01-01 12:00:00\n");
+
+        parser.parse(buffer, new ArrayList<>());
+
+        assertEquals(buffer.limit(), buffer.position());
+    }
+
+    private static ByteBuffer packet(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
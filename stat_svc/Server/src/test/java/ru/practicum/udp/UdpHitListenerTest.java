@@ -0,0 +1,63 @@
+package ru.practicum.udp;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.EndpointHit;
+import ru.practicum.service.HitBatchService;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class UdpHitListenerTest {
+    @Test
+    void receivesDatagramsOnLocalhostAndWritesThemInBatches() throws Exception {
+        HitBatchService hitBatchService = mock(HitBatchService.class);
+        List<EndpointHit> written = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            List<EndpointHit> batch = invocation.getArgument(0);
+            batches.add(batch.size());
+            written.addAll(batch);
+            return null;
+        }).when(hitBatchService).writeHits(anyList());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UdpHitListener listener = new UdpHitListener(hitBatchService, Optional.empty(), meterRegistry,
+                "127.0.0.1", 0, 1 << 20, 1000, 100, 50);
+        listener.start();
+        try (DatagramSocket socket = new DatagramSocket()) {
+            send(socket, listener.getPort(), "ewm-main-service|/events/1|10.0.0.1|2024-01-01 12:00:00\n" +
+                    "ewm-main-service|/events/2|10.0.0.2|2024-01-01 12:00:01\n" +
+                    "broken line\n");
+            send(socket, listener.getPort(), "ewm-main-service|/events/3|10.0.0.3|2024-01-01 12:00:02");
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (written.size() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            listener.stop();
+        }
+
+        assertEquals(3, written.size());
+        assertTrue(batches.size() <= 2);
+        assertEquals(1.0, meterRegistry.get("stats.udp.hits.dropped").tag("reason", "malformed").counter().count());
+        assertEquals(3.0, meterRegistry.get("stats.udp.hits.saved").counter().count());
+    }
+
+    private static void send(DatagramSocket socket, int port, String text) throws Exception {
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        socket.send(new DatagramPacket(data, data.length, InetAddress.getLoopbackAddress(), port));
+    }
+}